@@ -126,7 +126,7 @@
 #         condition: service_healthy
 #     environment:
 #       SPRING_PROFILES_ACTIVE: ${PROFILE}
-#       SPRING_DATASOURCE_URL: jdbc:mysql://mysql:3306/${MYSQL_DB}
+#       SPRING_DATASOURCE_URL: jdbc:mysql://mysql:3306/${MYSQL_DB}?rewriteBatchedStatements=true&useCursorFetch=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048
 #       SPRING_DATASOURCE_USERNAME: appuser
 #       SPRING_DATASOURCE_PASSWORD: apppassword
 #     ports:
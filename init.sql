@@ -9,6 +9,8 @@ FLUSH PRIVILEGES;
 
 -- Optional: Create tables if needed (Spring Boot will handle this with JPA)
 -- This is just for reference or manual setup
+-- The tables here are the baseline schema (db/migration V1); later changes are the Flyway
+-- migrations from V2 onwards, which the prod profile applies at startup
 
 CREATE TABLE IF NOT EXISTS roles (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
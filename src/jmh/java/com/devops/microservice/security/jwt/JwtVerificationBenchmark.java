@@ -0,0 +1,101 @@
+package com.devops.microservice.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the refresh-token path before and after the single-parse {@link VerifiedToken} API.
+ * The legacy methods reproduce what {@code AuthServiceImpl.refreshToken} used to do:
+ * validate, check expiry and extract the subject, each with a freshly built parser and key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKey123456789012345678901234567890123456789012345678901234567890";
+
+    private JwtUtils jwtUtils;
+    private String validToken;
+    private String expiredToken;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "refreshExpirationMs", 86_400_000);
+        jwtUtils.init();
+
+        validToken = jwtUtils.generateRefreshToken("benchmark-user");
+        expiredToken = Jwts.builder()
+                .setSubject("benchmark-user")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 7_200_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public void legacyRefreshPath(Blackhole blackhole) {
+        if (legacyValidate(validToken) && !legacyIsExpired(validToken)) {
+            blackhole.consume(legacyClaims(validToken).getSubject());
+        }
+    }
+
+    @Benchmark
+    public void verifiedTokenRefreshPath(Blackhole blackhole) {
+        blackhole.consume(jwtUtils.verifyToken(validToken).getSubject());
+    }
+
+    @Benchmark
+    public boolean legacyExpiredRejection() {
+        return legacyValidate(expiredToken);
+    }
+
+    @Benchmark
+    public boolean verifiedTokenExpiredRejection() {
+        try {
+            jwtUtils.verifyToken(expiredToken);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static boolean legacyValidate(String token) {
+        try {
+            legacyClaims(token);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean legacyIsExpired(String token) {
+        try {
+            return legacyClaims(token).getExpiration().before(new Date());
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.UserRegistrationServiceApplication;
+import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.exception.UserAlreadyExistsException;
+import com.devops.microservice.repository.RoleRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registrations per second against H2 in MySQL mode, before and after relying on the
+ * unique constraints and the role registry. The legacy method reproduces the old
+ * {@code registerUser}: two existence checks and a role query ahead of the insert.
+ * BCrypt runs at cost 4 so the database work is what gets measured. Single-threaded because
+ * H2 2.2 can hand out the same identity value to concurrent inserts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class RegistrationBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private RoleRepository roleRepository;
+    private PasswordEncoder passwordEncoder;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(UserRegistrationServiceApplication.class,
+                "--spring.profiles.active=test",
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:registration;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.devops.microservice=WARN",
+                "--app.security.password.bcrypt-strength=4");
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+        roleRepository = context.getBean(RoleRepository.class);
+        passwordEncoder = context.getBean(PasswordEncoder.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void legacyRegistration(Blackhole blackhole) {
+        UserRegistrationRequest request = nextRequest("legacy");
+        blackhole.consume(transactionTemplate.execute(status -> {
+            if (userRepository.existsByUsername(request.getUsername())) {
+                throw new UserAlreadyExistsException("Username is already taken!");
+            }
+            if (userRepository.existsByEmail(request.getEmail())) {
+                throw new UserAlreadyExistsException("Email is already in use!");
+            }
+            Role userRole = roleRepository.findByName(Role.RoleName.ROLE_USER)
+                    .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
+            User user = User.builder()
+                    .username(request.getUsername())
+                    .email(request.getEmail())
+                    .password(passwordEncoder.encode(request.getPassword()))
+                    .firstName(request.getFirstName())
+                    .lastName(request.getLastName())
+                    .isActive(true)
+                    .isEmailVerified(false)
+                    .build();
+            user.addRole(userRole);
+            User saved = userRepository.save(user);
+            context.publishEvent(UserChangedEvent.created(UserSnapshot.of(saved)));
+            return userService.convertToUserResponse(saved);
+        }));
+    }
+
+    @Benchmark
+    public void constraintBasedRegistration(Blackhole blackhole) {
+        blackhole.consume(userService.registerUser(nextRequest("current")));
+    }
+
+    private UserRegistrationRequest nextRequest(String prefix) {
+        long n = sequence.incrementAndGet();
+        return UserRegistrationRequest.builder()
+                .username(prefix + n)
+                .email(prefix + n + "@bench.example")
+                .password("password123")
+                .firstName("Bench")
+                .lastName("User")
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.sharding.UserShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query time of the user search index and the heap it holds, to size {@code -Xmx} against
+ * {@code app.users.search.enabled}. Setup prints the index's own estimate and the retained heap
+ * measured around a GC, both per user; a rebuild holds two indexes, so budget twice that.
+ * Run with {@code -Dbenchmark=UserSearchBenchmark} and a heap large enough for the largest size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class UserSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Maria", "Ahmed", "Wei", "Olga", "Pedro", "Aiko"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Garcia", "Nguyen", "Kowalski", "Tanaka", "Okafor"};
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private UserSearchServiceImpl searchService;
+    private String[] queries;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        long heapBefore = usedHeap();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        searchService = new UserSearchServiceImpl(null, UserShards.unsharded(), null, meterRegistry);
+        ReflectionTestUtils.setField(searchService, "enabled", true);
+        ReflectionTestUtils.setField(searchService, "maxCandidates", 2000);
+        searchService.init();
+        for (int i = 1; i <= users; i++) {
+            searchService.onUserChanged(UserChangedEvent.created(user(i)));
+        }
+        long retained = usedHeap() - heapBefore;
+        double estimated = meterRegistry.get("users.search.index.bytes").gauge().value();
+        System.out.printf("%n%d users: index estimate %.0f B/user, retained heap %d B/user%n",
+                users, estimated / users, retained / users);
+
+        queries = new String[1024];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < queries.length; i++) {
+            int id = 1 + random.nextInt(users);
+            queries[i] = switch (i % 3) {
+                case 0 -> "user" + id;
+                case 1 -> LAST_NAMES[id % LAST_NAMES.length].toLowerCase().substring(1, 5);
+                default -> FIRST_NAMES[id % FIRST_NAMES.length] + " " + id % 1000;
+            };
+        }
+    }
+
+    @Benchmark
+    public int search(Cursor cursor) {
+        return searchService.searchUsers(queries[cursor.next++ & 1023], null, null, 20).size();
+    }
+
+    @Benchmark
+    public int searchActiveAdmins(Cursor cursor) {
+        return searchService.searchUsers(queries[cursor.next++ & 1023], Role.RoleName.ROLE_ADMIN, true, 20).size();
+    }
+
+    private static UserSnapshot user(long id) {
+        return UserSnapshot.builder()
+                .id(id)
+                .username("user" + id)
+                .email("user" + id + "@example.com")
+                .firstName(FIRST_NAMES[(int) (id % FIRST_NAMES.length)])
+                .lastName(LAST_NAMES[(int) (id % LAST_NAMES.length)])
+                .active(id % 10 != 0)
+                .roles(Set.of(id % 50 == 0 ? Role.RoleName.ROLE_ADMIN : Role.RoleName.ROLE_USER))
+                .build();
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -2,6 +2,8 @@ package com.devops.microservice.config;
 
 import com.devops.microservice.security.jwt.AuthEntryPointJwt;
 import com.devops.microservice.security.jwt.AuthTokenFilter;
+import com.devops.microservice.security.password.AdaptivePasswordEncoder;
+import com.devops.microservice.security.password.BCryptCostCalibrator;
 import com.devops.microservice.security.service.UserDetailsServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,7 +17,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -23,6 +24,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -57,9 +59,28 @@ public class SecurityConfig {
     @Value("${app.cors.max-age:3600}")
     private long maxAge;
 
+    @Value("${app.security.password.bcrypt-strength:0}")
+    private int bcryptStrength;
+
+    @Value("${app.security.password.target-hash-ms:250}")
+    private long targetHashMs;
+
+    @Value("${app.security.password.min-strength:10}")
+    private int minBcryptStrength;
+
+    @Value("${app.security.password.max-strength:14}")
+    private int maxBcryptStrength;
+
+    /**
+     * BCrypt encoder at a fixed cost when configured, otherwise at the cost calibrated
+     * to the target hash latency on this machine
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptStrength > 0
+                ? bcryptStrength
+                : BCryptCostCalibrator.calibrate(Duration.ofMillis(targetHashMs), minBcryptStrength, maxBcryptStrength);
+        return new AdaptivePasswordEncoder(strength);
     }
 
     @Bean
@@ -67,6 +88,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehashes outdated or too expensive hashes after a successful login
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -0,0 +1,69 @@
+package com.devops.microservice.config;
+
+import com.devops.microservice.sharding.ShardContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * DataSource that hands out connections of the shard bound with {@link ShardContext}, or of shard 0
+ * when none is bound. A transaction keeps the connection it started with, so the shard has to be
+ * bound before the transaction's first statement; use it behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so that is also late enough.
+ */
+@Slf4j
+public class ShardRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return current().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return current().getConnection(username, password);
+    }
+
+    /**
+     * The pool of one shard, bypassing the routing
+     */
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < shards.size(); i++) {
+            if (shards.get(i) instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close datasource of shard {}", i, e);
+                }
+            }
+        }
+    }
+
+    private DataSource current() {
+        Integer shard = ShardContext.current();
+        return shards.get(shard != null ? shard : 0);
+    }
+}
@@ -0,0 +1,139 @@
+package com.devops.microservice.config;
+
+import com.devops.microservice.sharding.ShardBootstrap;
+import com.devops.microservice.sharding.ShardRebalancer;
+import com.devops.microservice.sharding.UserShardDirectory;
+import com.devops.microservice.sharding.UserShards;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * User sharding configuration. When enabled, replaces the auto-configured datasource with one that
+ * hands out connections of the shard bound for the current transaction. Shard 0 is the
+ * {@code spring.datasource.*} database and also holds the shard directory; the other shards are
+ * {@code app.sharding.shard-urls} and copy shard 0's {@code spring.datasource.hikari.*} settings.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@Slf4j
+public class ShardedDataSourceConfig {
+
+    @Value("${app.sharding.shard-urls:}")
+    private List<String> shardUrls;
+
+    @Value("${app.sharding.username:${spring.datasource.username:}}")
+    private String shardUsername;
+
+    @Value("${app.sharding.password:${spring.datasource.password:}}")
+    private String shardPassword;
+
+    @Value("${app.datasource.replica.enabled:false}")
+    private boolean replicasEnabled;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource shardZeroDataSource(DataSourceProperties properties) {
+        if (replicasEnabled) {
+            // Replicas route by transaction type over a single primary; they do not know about shards
+            throw new IllegalStateException("app.sharding.enabled cannot be combined with app.datasource.replica.enabled");
+        }
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource shardZeroDataSource) {
+        List<String> urls = shardUrls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(shardZeroDataSource);
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            shardZeroDataSource.copyStateTo(config);
+            config.setPoolName("shard-" + shards.size());
+            config.setJdbcUrl(url);
+            config.setUsername(shardUsername);
+            config.setPassword(shardPassword);
+            shards.add(new HikariDataSource(config));
+        }
+        log.info("Routing user transactions over {} shard(s)", shards.size());
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public UserShardDirectory userShardDirectory(ShardRoutingDataSource shardRoutingDataSource) {
+        return new UserShardDirectory(shardRoutingDataSource.getShard(0));
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRoutingDataSource shardRoutingDataSource, UserShardDirectory userShardDirectory) {
+        return new ShardRebalancer(shardRoutingDataSource, userShardDirectory);
+    }
+
+    @Bean
+    public ShardBootstrap shardBootstrap(ShardRoutingDataSource shardRoutingDataSource, UserShards userShards,
+                                         UserShardDirectory userShardDirectory, ShardRebalancer shardRebalancer,
+                                         ConfigurableApplicationContext applicationContext) {
+        return new ShardBootstrap(shardRoutingDataSource, userShards, userShardDirectory, shardRebalancer,
+                applicationContext);
+    }
+
+    /**
+     * Flyway is configured with the routing datasource, which outside a transaction is shard 0;
+     * apply the same migrations to every other shard before Hibernate validates them
+     */
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardRoutingDataSource shardRoutingDataSource) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < shardRoutingDataSource.shardCount(); shard++) {
+                log.info("Migrating the schema of shard {}", shard);
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shardRoutingDataSource.getShard(shard))
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+
+    /**
+     * Prepare the other shards' schemas as soon as Hibernate has prepared shard 0's, so beans that
+     * load users while starting up find every shard ready
+     */
+    @Bean
+    static BeanPostProcessor shardSchemaPreparer(ObjectProvider<ShardBootstrap> shardBootstrap) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof EntityManagerFactory entityManagerFactory) {
+                    shardBootstrap.getObject().prepareSchemas(entityManagerFactory);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package com.devops.microservice.controller;
+
+import com.devops.microservice.dto.request.UserExportFilter;
+import com.devops.microservice.dto.response.ApiResponse;
+import com.devops.microservice.dto.response.UserImportResult;
+import com.devops.microservice.dto.response.UserStatsResponse;
+import com.devops.microservice.service.UserExportService;
+import com.devops.microservice.service.UserImportService;
+import com.devops.microservice.service.UserStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+/**
+ * Controller for administrative user operations
+ */
+@RestController
+@RequestMapping("/api/v1/admin/users")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "User Administration", description = "Administrative user APIs")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminUserController {
+
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final String EXPORT_TIMEOUT_KEY = AdminUserController.class.getName() + ".exportTimeout";
+
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
+    private final UserStatsService userStatsService;
+
+    @Value("${app.users.export.timeout-ms:3600000}")
+    private long exportTimeoutMs;
+
+    @Operation(summary = "Import users",
+            description = "Create users from NDJSON (one registration object per line) or CSV "
+                    + "(header: username,email,password,firstName,lastName). Rows are validated like "
+                    + "registrations; rejected rows are listed in the response and the rest are imported.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Import finished",
+                    content = @Content(schema = @Schema(implementation = UserImportResult.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "File cannot be imported (e.g. missing CSV columns)"
+            )
+    })
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserImportResult>> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+
+        UserImportService.Format format = MediaType.parseMediaType(TEXT_CSV_VALUE).includes(contentType)
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        log.info("User import request - format: {}", format);
+
+        // The body is read straight from the request stream, row by row
+        UserImportResult result = userImportService.importUsers(body, format);
+
+        return ResponseEntity.ok(ApiResponse.success(result, "Users imported"));
+    }
+
+    @Operation(summary = "Export users",
+            description = "Stream every user matching the optional filters as NDJSON or CSV, in id order. "
+                    + "The response is written while the users are read, so it can be used for full syncs.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Users streamed"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown format or invalid filter"
+            )
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @ParameterObject UserExportFilter filter,
+            HttpServletRequest request) {
+
+        UserExportService.Format exportFormat = UserExportService.Format.fromParam(format);
+        log.info("User export request - format: {}, filter: {}", exportFormat, filter);
+
+        // The application-wide async timeout is sized for login and registration; an export runs far longer
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_TIMEOUT_KEY, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                if (webRequest instanceof AsyncWebRequest asyncWebRequest) {
+                    asyncWebRequest.setTimeout(exportTimeoutMs);
+                }
+            }
+        });
+
+        StreamingResponseBody body = out -> userExportService.exportUsers(filter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat == UserExportService.Format.CSV
+                        ? MediaType.parseMediaType(TEXT_CSV_VALUE)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + exportFormat.name().toLowerCase(Locale.ROOT))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @Operation(summary = "Get user statistics",
+            description = "Totals by role, active/inactive, verified/unverified and signups per recent day, "
+                    + "archived users included. Served from in-memory counters kept current by user changes and "
+                    + "recounted periodically (see reconciledAt), so no users are counted per request.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Statistics retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = UserStatsResponse.class))
+            )
+    })
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserStatsResponse>> getUserStats() {
+        log.info("User statistics request");
+
+        return ResponseEntity.ok(ApiResponse.success(userStatsService.getUserStats(), "Statistics retrieved successfully"));
+    }
+}
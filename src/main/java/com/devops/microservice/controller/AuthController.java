@@ -3,14 +3,17 @@ package com.devops.microservice.controller;
 import com.devops.microservice.dto.request.LoginRequest;
 import com.devops.microservice.dto.request.UserRegistrationRequest;
 import com.devops.microservice.dto.response.ApiResponse;
+import com.devops.microservice.dto.response.AvailabilityResponse;
 import com.devops.microservice.dto.response.JwtResponse;
 import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.security.service.PasswordHashingExecutor;
 import com.devops.microservice.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +21,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controller for authentication operations
  */
@@ -29,6 +34,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final PasswordHashingExecutor hashingExecutor;
 
     @Operation(summary = "User login", description = "Authenticate user and return JWT token")
     @ApiResponses(value = {
@@ -40,15 +46,25 @@ public class AuthController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "401",
                     description = "Invalid credentials"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "429",
+                    description = "Too many failed login attempts"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "503",
+                    description = "Too many concurrent logins, retry later"
             )
     })
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<JwtResponse>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<ApiResponse<JwtResponse>>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                                                                       HttpServletRequest request) {
         log.info("Login request received for user: {}", loginRequest.getUsername());
         
-        JwtResponse jwtResponse = authService.authenticateUser(loginRequest);
-        
-        return ResponseEntity.ok(ApiResponse.success(jwtResponse, "User authenticated successfully"));
+        // Behind a trusted proxy the remote address is taken from X-Forwarded-For (server.forward-headers-strategy)
+        String clientIp = request.getRemoteAddr();
+        return hashingExecutor.submit("login", () -> authService.authenticateUser(loginRequest, clientIp))
+                .thenApply(jwtResponse -> ResponseEntity.ok(ApiResponse.success(jwtResponse, "User authenticated successfully")));
     }
 
     @Operation(summary = "User registration", description = "Register a new user")
@@ -65,16 +81,44 @@ public class AuthController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "409",
                     description = "User already exists"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "503",
+                    description = "Too many concurrent registrations, retry later"
             )
     })
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse<UserResponse>> registerUser(@Valid @RequestBody UserRegistrationRequest registrationRequest) {
+    public CompletableFuture<ResponseEntity<ApiResponse<UserResponse>>> registerUser(@Valid @RequestBody UserRegistrationRequest registrationRequest) {
         log.info("Registration request received for user: {}", registrationRequest.getUsername());
         
-        UserResponse userResponse = authService.registerUser(registrationRequest);
-        
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ApiResponse.success(userResponse, "User registered successfully"));
+        return hashingExecutor.submit("register", () -> authService.registerUser(registrationRequest))
+                .thenApply(userResponse -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(ApiResponse.success(userResponse, "User registered successfully")));
+    }
+
+    @Operation(summary = "Username and email availability",
+            description = "Check whether a username and/or an email are free to register. Most free names are "
+                    + "answered from in-memory Bloom filters; only possible matches are looked up")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Availability checked",
+                    content = @Content(schema = @Schema(implementation = AvailabilityResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Neither a username nor an email given"
+            )
+    })
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse<AvailabilityResponse>> checkAvailability(@RequestParam(required = false) String username,
+                                                                             @RequestParam(required = false) String email) {
+        if (isBlank(username) && isBlank(email)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Give a username, an email or both"));
+        }
+        AvailabilityResponse availability = authService.checkAvailability(
+                isBlank(username) ? null : username, isBlank(email) ? null : email);
+        return ResponseEntity.ok(ApiResponse.success(availability));
     }
 
     @Operation(summary = "Refresh JWT token", description = "Refresh expired JWT token using refresh token")
@@ -103,7 +147,8 @@ public class AuthController {
         return ResponseEntity.ok(ApiResponse.success(jwtResponse, "Token refreshed successfully"));
     }
 
-    @Operation(summary = "User logout", description = "Logout user and invalidate token")
+    @Operation(summary = "User logout",
+            description = "Logout user and invalidate the access token, and the refresh token when sent in X-Refresh-Token")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "200",
@@ -111,7 +156,8 @@ public class AuthController {
             )
     })
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<String>> logout(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<String>> logout(@RequestHeader("Authorization") String token,
+                                                      @RequestHeader(value = "X-Refresh-Token", required = false) String refreshToken) {
         log.info("Logout request received");
         
         // Remove "Bearer " prefix if present
@@ -119,8 +165,12 @@ public class AuthController {
             token = token.substring(7);
         }
         
-        authService.logout(token);
+        authService.logout(token, isBlank(refreshToken) ? null : refreshToken);
         
         return ResponseEntity.ok(ApiResponse.success("User logged out successfully"));
     }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
 }
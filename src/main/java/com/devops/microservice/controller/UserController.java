@@ -1,9 +1,17 @@
 package com.devops.microservice.controller;
 
+import com.devops.microservice.dto.request.UserListFilter;
 import com.devops.microservice.dto.request.UserRegistrationRequest;
 import com.devops.microservice.dto.response.ApiResponse;
+import com.devops.microservice.dto.response.CursorPage;
 import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.dto.response.UserSearchResult;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.exception.InvalidPageRequestException;
+import com.devops.microservice.service.CountMode;
+import com.devops.microservice.service.UserSearchService;
 import com.devops.microservice.service.UserService;
+import com.devops.microservice.service.UserSortKey;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,14 +21,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * Controller for user management operations
  */
@@ -32,7 +43,11 @@ import org.springframework.web.bind.annotation.*;
 @SecurityRequirement(name = "bearerAuth")
 public class UserController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     private final UserService userService;
+    private final UserSearchService userSearchService;
 
     @Operation(summary = "Get current user profile", description = "Get profile of currently authenticated user")
     @ApiResponses(value = {
@@ -80,33 +95,96 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success(userResponse, "User retrieved successfully"));
     }
 
-    @Operation(summary = "Get all users", description = "Get all users with pagination")
+    @Operation(summary = "Get all users",
+            description = "Get all users with pagination. The default offset mode returns a Page with totals; "
+                    + "pagination=cursor (or any cursor) returns a CursorPage whose next/prev cursors seek "
+                    + "directly to the adjacent page, so deep pages cost the same as the first one. In offset mode, "
+                    + "count=none skips the total (use 'last' to detect the end) and count=cached uses a "
+                    + "periodically reconciled total instead of COUNT(*). includeArchived=true merges in archived "
+                    + "users (offset mode only). isActive, isEmailVerified, role and the createdFrom/createdTo and "
+                    + "lastLoginFrom/lastLoginTo ranges filter the listing (offset mode only); a filtered count=cached "
+                    + "listing has no total. sortBy is one of createdAt, username, email or id.")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "200",
                     description = "Users retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Unsupported sort, filter with cursor pagination, or invalid cursor"
             )
     })
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<Page<UserResponse>>> getAllUsers(
+    public ResponseEntity<? extends ApiResponse<?>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "offset") String pagination,
+            @RequestParam(defaultValue = "exact") String count,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @ParameterObject UserListFilter filter) {
         
-        log.info("Get all users request - page: {}, size: {}, sortBy: {}, sortDir: {}", 
-                page, size, sortBy, sortDir);
+        log.info("Get all users request - page: {}, size: {}, sortBy: {}, sortDir: {}, pagination: {}, includeArchived: {}, filter: {}", 
+                page, size, sortBy, sortDir, cursor != null ? "cursor" : pagination, includeArchived, filter);
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
-                Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        if (cursor != null || pagination.equalsIgnoreCase("cursor")) {
+            if (includeArchived) {
+                throw new InvalidPageRequestException("Archived users are only listed with offset pagination");
+            }
+            if (!filter.isEmpty()) {
+                throw new InvalidPageRequestException("Filtered users are only listed with offset pagination");
+            }
+            CursorPage<UserResponse> users = userService.getUsers(UserSortKey.fromProperty(sortBy), direction,
+                    Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE), cursor);
+            return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
+        }
+
+        // Only the allowed keys, each backed by an index that also serves it under the filters
+        Sort sort = UserSortKey.fromProperty(sortBy).sort(direction);
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<UserResponse> users = userService.getAllUsers(pageable);
+        Slice<UserResponse> users = userService.getAllUsers(filter, pageable, CountMode.fromParam(count), includeArchived);
         
         return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
     }
 
+    @Operation(summary = "Search users",
+            description = "Find users by partial username, email, first or last name, best matches first. Every "
+                    + "term must match; terms of one or two characters match the start of a field. Served from an "
+                    + "in-memory index, so changes show up once committed; archived users are not searched.")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Matching users, at most limit of them"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Empty query"
+            )
+    })
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<UserSearchResult>>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) Role.RoleName role,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        log.info("Search users request - q: {}, role: {}, active: {}, limit: {}", q, role, active, limit);
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Search query must not be empty"));
+        }
+
+        List<UserSearchResult> users = userSearchService.searchUsers(q, role, active,
+                Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS));
+        return ResponseEntity.ok(ApiResponse.success(users, "Users found"));
+    }
+
     @Operation(summary = "Update user", description = "Update user details")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
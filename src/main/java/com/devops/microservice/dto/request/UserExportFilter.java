@@ -0,0 +1,38 @@
+package com.devops.microservice.dto.request;
+
+import com.devops.microservice.entity.Role;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the optional filters of a user export; a null field does not filter
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserExportFilter {
+
+    private Boolean active;
+
+    private Boolean emailVerified;
+
+    private Role.RoleName role;
+
+    /**
+     * Inclusive lower bound on the creation time
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+
+    /**
+     * Exclusive upper bound on the creation time
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+}
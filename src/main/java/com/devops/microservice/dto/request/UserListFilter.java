@@ -0,0 +1,63 @@
+package com.devops.microservice.dto.request;
+
+import com.devops.microservice.entity.Role;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * DTO for the optional filters of a user listing; a null field does not filter
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserListFilter {
+
+    private Boolean isActive;
+
+    private Boolean isEmailVerified;
+
+    private Role.RoleName role;
+
+    /**
+     * Inclusive lower bound on the creation time
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+
+    /**
+     * Exclusive upper bound on the creation time
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+
+    /**
+     * Inclusive lower bound on the last login; users who never logged in do not match
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime lastLoginFrom;
+
+    /**
+     * Exclusive upper bound on the last login; users who never logged in do not match
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime lastLoginTo;
+
+    public static UserListFilter none() {
+        return new UserListFilter();
+    }
+
+    /**
+     * Whether no field filters, so every user is listed
+     */
+    public boolean isEmpty() {
+        return Stream.of(isActive, isEmailVerified, role, createdFrom, createdTo, lastLoginFrom, lastLoginTo)
+                .allMatch(field -> field == null);
+    }
+}
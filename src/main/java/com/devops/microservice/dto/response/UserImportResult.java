@@ -0,0 +1,43 @@
+package com.devops.microservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk user import
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResult {
+
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private long durationMs;
+    private double rowsPerSecond;
+    private List<RowError> errors;
+
+    /**
+     * True when more rows failed than are listed in {@link #errors}
+     */
+    private boolean errorsTruncated;
+
+    /**
+     * A rejected row, identified by its line number in the uploaded file
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        private long line;
+        private String username;
+        private String message;
+    }
+}
@@ -27,4 +27,9 @@ public class UserResponse {
     private Set<String> roles;
     private LocalDateTime createdAt;
     private LocalDateTime lastLogin;
+
+    /**
+     * Whether the user is stored in the archive; it is restored on its next login or change
+     */
+    private boolean archived;
 }
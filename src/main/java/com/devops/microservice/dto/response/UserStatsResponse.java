@@ -0,0 +1,37 @@
+package com.devops.microservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * DTO for user totals, including archived users
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStatsResponse {
+
+    private long totalUsers;
+    private long activeUsers;
+    private long inactiveUsers;
+    private long emailVerifiedUsers;
+    private long emailUnverifiedUsers;
+    private Map<String, Long> usersByRole;
+
+    /**
+     * Signups of each recent day, oldest first, counting the users that still exist
+     */
+    private Map<LocalDate, Long> signupsPerDay;
+
+    /**
+     * When the counters were last recounted from the database
+     */
+    private LocalDateTime reconciledAt;
+}
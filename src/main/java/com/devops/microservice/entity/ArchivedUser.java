@@ -0,0 +1,101 @@
+package com.devops.microservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * User moved out of the hot users table because it was deactivated long ago or has not logged in
+ * for a long time. Same columns and id as the user it was, plus when it was archived; rows are moved
+ * in both directions with plain SQL, so this mapping is only read.
+ */
+@Entity
+@Table(name = "users_archive",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_users_archive_username", columnNames = "username"),
+           @UniqueConstraint(name = "uk_users_archive_email", columnNames = "email")
+       },
+       indexes = @Index(name = "idx_users_archive_archived_at", columnList = "archived_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedUser {
+
+    @Id
+    private Long id;
+
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "email", nullable = false, length = 100)
+    private String email;
+
+    @Column(name = "password", nullable = false, length = 100)
+    private String password;
+
+    @Column(name = "first_name", length = 50)
+    private String firstName;
+
+    @Column(name = "last_name", length = 50)
+    private String lastName;
+
+    @Column(name = "is_active")
+    private Boolean isActive;
+
+    @Column(name = "is_email_verified")
+    private Boolean isEmailVerified;
+
+    @ManyToMany
+    @BatchSize(size = 100)
+    @JoinTable(
+        name = "user_roles_archive",
+        joinColumns = @JoinColumn(name = "user_id"),
+        inverseJoinColumns = @JoinColumn(name = "role_id")
+    )
+    @Builder.Default
+    private Set<Role> roles = new HashSet<>();
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "last_login")
+    private LocalDateTime lastLogin;
+
+    @Column(name = "security_version")
+    private Integer securityVersion;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Detached user with this state, for code that reads users without writing them
+     */
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .email(email)
+                .password(password)
+                .firstName(firstName)
+                .lastName(lastName)
+                .isActive(isActive)
+                .isEmailVerified(isEmailVerified)
+                .roles(new HashSet<>(roles))
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .lastLogin(lastLogin)
+                .securityVersion(securityVersion)
+                .build();
+    }
+}
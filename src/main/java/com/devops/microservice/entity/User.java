@@ -8,7 +8,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -16,33 +21,55 @@ import java.util.HashSet;
 import java.util.Set;
 
 /**
- * User entity representing a user in the system
+ * User entity representing a user in the system.
+ * Users, their role sets and the username-to-id mapping are kept in the second-level cache.
  */
 @Entity
 @Table(name = "users", 
        uniqueConstraints = {
-           @UniqueConstraint(columnNames = "username"),
-           @UniqueConstraint(columnNames = "email")
+           @UniqueConstraint(name = "uk_users_username", columnNames = "username"),
+           @UniqueConstraint(name = "uk_users_email", columnNames = "email")
+       },
+       // Mirrors db/migration, where production gets its indexes
+       indexes = {
+           @Index(name = "idx_users_created_at_id", columnList = "created_at, id"),
+           @Index(name = "idx_users_active_created_at_id", columnList = "is_active, created_at, id"),
+           @Index(name = "idx_users_verified_created_at_id", columnList = "is_email_verified, created_at, id"),
+           @Index(name = "idx_users_last_login_id", columnList = "last_login, id"),
+           @Index(name = "idx_users_active_updated_at", columnList = "is_active, updated_at")
        })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users_by_username")
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
 
+    /**
+     * Sequence-generated so inserts can be JDBC-batched (IDENTITY needs a round trip per row).
+     * Ids are reserved in blocks of 50; MySQL has no sequences, so Hibernate uses the users_seq table.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * Mutable because users may rename themselves; Hibernate then updates the natural-id cache.
+     * Hibernate folds uk_users_username into the natural id's own unique key, which generated
+     * schemas name after a hash (or leave unnamed on H2); UserConstraintViolations recognizes both.
+     */
+    @NaturalId(mutable = true)
     @NotBlank
     @Size(min = 3, max = 50)
-    @Column(name = "username", unique = true, nullable = false, length = 50)
+    @Column(name = "username", nullable = false, length = 50)
     private String username;
 
     @NotBlank
     @Size(max = 100)
     @Email
-    @Column(name = "email", unique = true, nullable = false, length = 100)
+    @Column(name = "email", nullable = false, length = 100)
     private String email;
 
     @NotBlank
@@ -66,11 +93,15 @@ public class User {
     @Column(name = "is_email_verified")
     private Boolean isEmailVerified = false;
 
+    // Batched so a list of users loads its roles in one query instead of one per user
     @ManyToMany(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user_roles")
     @JoinTable(
         name = "user_roles",
         joinColumns = @JoinColumn(name = "user_id"),
-        inverseJoinColumns = @JoinColumn(name = "role_id")
+        inverseJoinColumns = @JoinColumn(name = "role_id"),
+        indexes = @Index(name = "idx_user_roles_role_user", columnList = "role_id, user_id")
     )
     @Builder.Default
     private Set<Role> roles = new HashSet<>();
@@ -86,6 +117,14 @@ public class User {
     @Column(name = "last_login")
     private LocalDateTime lastLogin;
 
+    /**
+     * Incremented whenever outstanding tokens must stop being accepted
+     * (deactivation, password change)
+     */
+    @Builder.Default
+    @Column(name = "security_version")
+    private Integer securityVersion = 0;
+
     /**
      * Helper method to add a role to the user
      */
@@ -96,6 +135,13 @@ public class User {
         this.roles.add(role);
     }
 
+    /**
+     * Helper method to invalidate all tokens issued before this change
+     */
+    public void incrementSecurityVersion() {
+        this.securityVersion = (this.securityVersion == null ? 0 : this.securityVersion) + 1;
+    }
+
     /**
      * Helper method to remove a role from the user
      */
@@ -0,0 +1,49 @@
+package com.devops.microservice.entity;
+
+import com.devops.microservice.event.UserChangedEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entry of the shared user change log; its id is the sequence other nodes poll from
+ */
+@Entity
+@Table(name = "user_changes",
+       indexes = @Index(name = "idx_user_changes_changed_at", columnList = "changed_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 20)
+    private UserChangedEvent.Type kind;
+
+    /**
+     * Node that made the change; it has applied the change already and skips the entry
+     */
+    @Column(name = "origin", nullable = false, length = 64)
+    private String origin;
+
+    /**
+     * Snapshots before and after the change, as JSON
+     */
+    @Column(name = "payload", nullable = false, length = 2000)
+    private String payload;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
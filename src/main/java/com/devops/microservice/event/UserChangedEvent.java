@@ -0,0 +1,69 @@
+package com.devops.microservice.event;
+
+import lombok.Value;
+import lombok.With;
+
+import java.time.Instant;
+
+/**
+ * Application event published by the user service whenever a user is created, modified or removed.
+ * Listeners use it to keep in-memory state (caches, indexes, counters) in step with the database.
+ */
+@Value
+public class UserChangedEvent {
+
+    Type type;
+
+    /**
+     * State before the change, {@code null} for {@link Type#CREATED}
+     */
+    UserSnapshot before;
+
+    /**
+     * State after the change, {@code null} for {@link Type#DELETED}
+     */
+    UserSnapshot after;
+
+    /**
+     * When the change was made, just before its transaction committed; replayed changes keep the
+     * time of the node that made them
+     */
+    @With
+    Instant changedAt;
+
+    public Long getUserId() {
+        return after != null ? after.getId() : before.getId();
+    }
+
+    public static UserChangedEvent created(UserSnapshot after) {
+        return new UserChangedEvent(Type.CREATED, null, after, Instant.now());
+    }
+
+    public static UserChangedEvent changed(Type type, UserSnapshot before, UserSnapshot after) {
+        return new UserChangedEvent(type, before, after, Instant.now());
+    }
+
+    public static UserChangedEvent deleted(UserSnapshot before) {
+        return new UserChangedEvent(Type.DELETED, before, null, Instant.now());
+    }
+
+    /**
+     * Kind of change applied to the user
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        ACTIVATED,
+        DEACTIVATED,
+        EMAIL_VERIFIED,
+        DELETED,
+        /**
+         * Moved to the archive tables, unchanged; still found by lookups
+         */
+        ARCHIVED,
+        /**
+         * Moved back from the archive tables, unchanged
+         */
+        RESTORED
+    }
+}
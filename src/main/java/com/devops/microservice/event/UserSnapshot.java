@@ -0,0 +1,51 @@
+package com.devops.microservice.event;
+
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Immutable view of a user's state at the time a change was made; the change log stores it as JSON
+ */
+@Value
+@Builder
+@Jacksonized
+public class UserSnapshot {
+
+    Long id;
+    String username;
+    String email;
+    String firstName;
+    String lastName;
+    boolean active;
+    boolean emailVerified;
+    int securityVersion;
+    Set<Role.RoleName> roles;
+    LocalDateTime createdAt;
+
+    public static UserSnapshot of(User user) {
+        Set<Role.RoleName> roleNames = EnumSet.noneOf(Role.RoleName.class);
+        if (user.getRoles() != null) {
+            user.getRoles().forEach(role -> roleNames.add(role.getName()));
+        }
+
+        return UserSnapshot.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .active(Boolean.TRUE.equals(user.getIsActive()))
+                .emailVerified(Boolean.TRUE.equals(user.getIsEmailVerified()))
+                .securityVersion(user.getSecurityVersion() != null ? user.getSecurityVersion() : 0)
+                .roles(Set.copyOf(roleNames))
+                .createdAt(user.getCreatedAt())
+                .build();
+    }
+}
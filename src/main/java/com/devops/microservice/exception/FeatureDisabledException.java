@@ -0,0 +1,11 @@
+package com.devops.microservice.exception;
+
+/**
+ * Exception thrown when a request needs a feature that is switched off on this node
+ */
+public class FeatureDisabledException extends RuntimeException {
+
+    public FeatureDisabledException(String message) {
+        super(message);
+    }
+}
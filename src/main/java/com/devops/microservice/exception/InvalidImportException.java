@@ -0,0 +1,11 @@
+package com.devops.microservice.exception;
+
+/**
+ * Exception thrown when an import file cannot be processed at all (as opposed to individual bad rows)
+ */
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.devops.microservice.exception;
+
+/**
+ * Exception thrown when a listing or export request has an unsupported sort or format, or a cursor that cannot be decoded
+ */
+public class InvalidPageRequestException extends RuntimeException {
+
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidPageRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
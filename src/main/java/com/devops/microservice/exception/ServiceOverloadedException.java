@@ -0,0 +1,15 @@
+package com.devops.microservice.exception;
+
+/**
+ * Exception thrown when a bounded work queue is full and the request is shed
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+
+    public ServiceOverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
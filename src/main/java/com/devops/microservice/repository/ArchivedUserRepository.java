@@ -0,0 +1,89 @@
+package com.devops.microservice.repository;
+
+import com.devops.microservice.entity.ArchivedUser;
+import com.devops.microservice.repository.projection.UserRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository interface for ArchivedUser entity
+ */
+@Repository
+public interface ArchivedUserRepository extends JpaRepository<ArchivedUser, Long>, JpaSpecificationExecutor<ArchivedUser>,
+        UserRowSpecificationRepository {
+
+    String ROW_SELECT = "SELECT new com.devops.microservice.repository.projection.UserRow("
+            + "a.id, a.username, a.email, a.firstName, a.lastName, a.isActive, a.isEmailVerified, a.createdAt, a.lastLogin) "
+            + "FROM ArchivedUser a";
+
+    Optional<ArchivedUser> findByUsername(String username);
+
+    Optional<ArchivedUser> findByEmail(String email);
+
+    boolean existsByUsername(String username);
+
+    boolean existsByEmail(String email);
+
+    /**
+     * Find which of the given usernames belong to archived users
+     */
+    @Query("SELECT a.username FROM ArchivedUser a WHERE a.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Find which of the given emails belong to archived users
+     */
+    @Query("SELECT a.email FROM ArchivedUser a WHERE a.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Read one page of archived user rows without counting the total
+     */
+    @Query(ROW_SELECT)
+    Slice<UserRow> findRowsBy(Pageable pageable);
+
+    /**
+     * Stream [username, email] of every archived user, fetched from the cursor in blocks; consume inside a transaction
+     */
+    @Query("SELECT a.username, a.email FROM ArchivedUser a")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamUsernamesAndEmails();
+
+    /**
+     * Count archived users as [isActive, isEmailVerified, signup day, count]
+     */
+    @Query("SELECT a.isActive, a.isEmailVerified, CAST(a.createdAt AS LocalDate), COUNT(a) FROM ArchivedUser a "
+            + "GROUP BY a.isActive, a.isEmailVerified, CAST(a.createdAt AS LocalDate)")
+    List<Object[]> countByStatusAndSignupDay();
+
+    /**
+     * Count archived users as [role name, count]
+     */
+    @Query("SELECT r.name, COUNT(a) FROM ArchivedUser a JOIN a.roles r GROUP BY r.name")
+    List<Object[]> countByRole();
+
+    /**
+     * Find [userId, roleName] pairs for a batch of archived users in one query
+     */
+    @Query("SELECT a.id, r.name FROM ArchivedUser a JOIN a.roles r WHERE a.id IN :userIds")
+    List<Object[]> findRoleNamesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Find [id, securityVersion] pairs for archived users whose tokens have been invalidated at least once
+     */
+    @Query("SELECT a.id, a.securityVersion FROM ArchivedUser a WHERE a.securityVersion > 0")
+    List<Object[]> findSecurityVersions();
+}
@@ -0,0 +1,41 @@
+package com.devops.microservice.repository;
+
+import com.devops.microservice.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for RevokedToken entity
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    /**
+     * Find revocations that are still in effect
+     */
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+
+    /**
+     * Find the next batch of revocations recorded after the given id
+     */
+    List<RevokedToken> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    /**
+     * Find revocations by id, for ids a sync skipped over before they were committed
+     */
+    List<RevokedToken> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Delete revocations whose tokens have expired
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
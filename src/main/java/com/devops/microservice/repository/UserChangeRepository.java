@@ -0,0 +1,42 @@
+package com.devops.microservice.repository;
+
+import com.devops.microservice.entity.UserChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for UserChange entity
+ */
+@Repository
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+
+    /**
+     * Find the next batch of changes recorded after the given id
+     */
+    List<UserChange> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    /**
+     * Find changes by id, used to pick up entries that committed after later ones
+     */
+    List<UserChange> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Highest id in the log, or {@code null} when it is empty
+     */
+    @Query("SELECT MAX(c.id) FROM UserChange c")
+    Long findMaxId();
+
+    /**
+     * Delete changes recorded before the given time
+     */
+    @Modifying
+    @Query("DELETE FROM UserChange c WHERE c.changedAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
@@ -0,0 +1,16 @@
+package com.devops.microservice.repository;
+
+import com.devops.microservice.entity.User;
+
+import java.util.Optional;
+
+/**
+ * User lookups by natural id, which Hibernate resolves through the natural-id cache
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * Find user by username; a cached username needs no query
+     */
+    Optional<User> findByUsername(String username);
+}
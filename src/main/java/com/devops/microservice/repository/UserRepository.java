@@ -1,23 +1,40 @@
 package com.devops.microservice.repository;
 
+import com.devops.microservice.entity.Role;
 import com.devops.microservice.entity.User;
+import com.devops.microservice.repository.projection.UserRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for User entity
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>,
+        UserNaturalIdRepository, UserRowSpecificationRepository {
 
-    /**
-     * Find user by username
-     */
-    Optional<User> findByUsername(String username);
+    String ROW_SELECT = "SELECT new com.devops.microservice.repository.projection.UserRow("
+            + "u.id, u.username, u.email, u.firstName, u.lastName, u.isActive, u.isEmailVerified, u.createdAt, u.lastLogin) "
+            + "FROM User u";
 
     /**
      * Find user by email
@@ -40,6 +57,109 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     boolean existsByEmail(String email);
 
+    /**
+     * Read one page of user rows without counting the total
+     */
+    @Query(ROW_SELECT)
+    Slice<UserRow> findRowsBy(Pageable pageable);
+
+    /**
+     * Find a user row by id
+     */
+    @Query(ROW_SELECT + " WHERE u.id = :id")
+    Optional<UserRow> findRowById(@Param("id") Long id);
+
+    /**
+     * Find a user row by username
+     */
+    @Query(ROW_SELECT + " WHERE u.username = :username")
+    Optional<UserRow> findRowByUsername(@Param("username") String username);
+
+    /**
+     * Find a user row by email
+     */
+    @Query(ROW_SELECT + " WHERE u.email = :email")
+    Optional<UserRow> findRowByEmail(@Param("email") String email);
+
+    /**
+     * Find [userId, roleName] pairs for a batch of users in one query
+     */
+    @Query("SELECT u.id, r.name FROM User u JOIN u.roles r WHERE u.id IN :userIds")
+    List<Object[]> findRoleNamesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Stream [username, email] of every user, fetched from the cursor in blocks; consume inside a transaction
+     */
+    @Query("SELECT u.username, u.email FROM User u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamUsernamesAndEmails();
+
+    /**
+     * Count users as [isActive, isEmailVerified, signup day, count]
+     */
+    @Query("SELECT u.isActive, u.isEmailVerified, CAST(u.createdAt AS LocalDate), COUNT(u) FROM User u "
+            + "GROUP BY u.isActive, u.isEmailVerified, CAST(u.createdAt AS LocalDate)")
+    List<Object[]> countByStatusAndSignupDay();
+
+    /**
+     * Count users as [role name, count]
+     */
+    @Query("SELECT r.name, COUNT(u) FROM User u JOIN u.roles r GROUP BY r.name")
+    List<Object[]> countByRole();
+
+    /**
+     * Stream the rows of every user matching the filters in id order; a null filter matches everything.
+     * Rows are fetched from the cursor in blocks, so the caller must consume the stream inside a transaction.
+     */
+    @Query(ROW_SELECT + " WHERE (:active IS NULL OR u.isActive = :active)"
+            + " AND (:emailVerified IS NULL OR u.isEmailVerified = :emailVerified)"
+            + " AND (:role IS NULL OR EXISTS (SELECT r.id FROM u.roles r WHERE r.name = :role))"
+            + " AND (:createdFrom IS NULL OR u.createdAt >= :createdFrom)"
+            + " AND (:createdTo IS NULL OR u.createdAt < :createdTo)"
+            + " ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<UserRow> streamRows(@Param("active") Boolean active,
+                               @Param("emailVerified") Boolean emailVerified,
+                               @Param("role") Role.RoleName role,
+                               @Param("createdFrom") LocalDateTime createdFrom,
+                               @Param("createdTo") LocalDateTime createdTo);
+
+    /**
+     * Read one window of users from a keyset position, without counting the total
+     */
+    Window<User> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Find which of the given usernames are already registered (archived users are checked separately)
+     */
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Find which of the given emails are already registered (archived users are checked separately)
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Find [id, securityVersion] pairs for users whose tokens have been invalidated at least once
+     */
+    @Query("SELECT u.id, u.securityVersion FROM User u WHERE u.securityVersion > 0")
+    List<Object[]> findSecurityVersions();
+
+    /**
+     * Find [id, password] pairs after the given id, in id order, for batched hash scans
+     */
+    @Query("SELECT u.id, u.password FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findPasswordHashesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Replace a stored password hash without touching anything else on the user
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
     /**
      * Find active users by username
      */
@@ -0,0 +1,17 @@
+package com.devops.microservice.repository;
+
+import com.devops.microservice.repository.projection.UserRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * User rows selected by a {@link Specification}, for users and archived users alike
+ */
+public interface UserRowSpecificationRepository {
+
+    /**
+     * Read one page of the rows of {@code type} matching the specification, without counting the total
+     */
+    <T> Slice<UserRow> findRows(Class<T> type, Specification<T> specification, Pageable pageable);
+}
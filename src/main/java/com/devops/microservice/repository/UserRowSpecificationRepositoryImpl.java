@@ -0,0 +1,51 @@
+package com.devops.microservice.repository;
+
+import com.devops.microservice.repository.projection.UserRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Criteria query selecting the {@link UserRow} constructor, as the JPQL row queries do; a
+ * specification executor would only return entities
+ */
+class UserRowSpecificationRepositoryImpl implements UserRowSpecificationRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> Slice<UserRow> findRows(Class<T> type, Specification<T> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserRow> query = cb.createQuery(UserRow.class);
+        Root<T> root = query.from(type);
+        query.select(cb.construct(UserRow.class, root.get("id"), root.get("username"), root.get("email"),
+                root.get("firstName"), root.get("lastName"), root.get("isActive"), root.get("isEmailVerified"),
+                root.get("createdAt"), root.get("lastLogin")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        // One row past the page tells whether there is a next one
+        List<UserRow> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+}
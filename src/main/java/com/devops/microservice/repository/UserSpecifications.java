@@ -0,0 +1,58 @@
+package com.devops.microservice.repository;
+
+import com.devops.microservice.dto.request.UserListFilter;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specifications over the attributes that users and archived users share, so one filter applies
+ * to both tables
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Users matching every non-null field of the filter
+     */
+    public static <T> Specification<T> matching(UserListFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getIsActive() != null) {
+                predicates.add(cb.equal(root.get("isActive"), filter.getIsActive()));
+            }
+            if (filter.getIsEmailVerified() != null) {
+                predicates.add(cb.equal(root.get("isEmailVerified"), filter.getIsEmailVerified()));
+            }
+            if (filter.getRole() != null) {
+                // EXISTS rather than a join, which would repeat users and break paging
+                Subquery<Integer> withRole = query.subquery(Integer.class);
+                Root<T> user = withRole.correlate(root);
+                Join<T, ?> roles = user.join("roles");
+                predicates.add(cb.exists(withRole.select(cb.literal(1))
+                        .where(cb.equal(roles.get("name"), filter.getRole()))));
+            }
+            if (filter.getCreatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("createdAt"), filter.getCreatedFrom()));
+            }
+            if (filter.getCreatedTo() != null) {
+                predicates.add(cb.lessThan(root.<LocalDateTime>get("createdAt"), filter.getCreatedTo()));
+            }
+            if (filter.getLastLoginFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("lastLogin"), filter.getLastLoginFrom()));
+            }
+            if (filter.getLastLoginTo() != null) {
+                predicates.add(cb.lessThan(root.<LocalDateTime>get("lastLogin"), filter.getLastLoginTo()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.devops.microservice.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of the user columns shown in responses. Selecting it instead of the
+ * entity avoids loading (and dirty-checking) users and their eagerly fetched roles.
+ */
+public record UserRow(
+        Long id,
+        String username,
+        String email,
+        String firstName,
+        String lastName,
+        Boolean isActive,
+        Boolean isEmailVerified,
+        LocalDateTime createdAt,
+        LocalDateTime lastLogin) {
+}
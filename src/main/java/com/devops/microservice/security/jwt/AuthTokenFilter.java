@@ -1,5 +1,9 @@
 package com.devops.microservice.security.jwt;
 
+import com.devops.microservice.security.service.UserDetailsImpl;
+import com.devops.microservice.security.revocation.TokenRevocationService;
+import com.devops.microservice.security.revocation.TokenWatermarkRegistry;
+import com.devops.microservice.security.service.SecurityVersionRegistry;
 import com.devops.microservice.security.service.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -27,17 +31,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenAuthenticationCache tokenCache;
+    private final SecurityVersionRegistry securityVersions;
+    private final TokenRevocationService revocationService;
+    private final TokenWatermarkRegistry watermarks;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUsernameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
+            UserDetails userDetails = jwt != null ? resolveUserDetails(jwt) : null;
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 
@@ -52,6 +57,44 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Resolve the principal for a token, from the cache when possible
+     */
+    private UserDetails resolveUserDetails(String jwt) {
+        TokenAuthenticationCache.CachedAuthentication cached = tokenCache.get(jwt);
+        if (cached != null) {
+            return revocationService.isRevoked(cached.getToken()) || isRejected(cached.getToken(), cached.getUserDetails())
+                    ? null : cached.getUserDetails();
+        }
+
+        VerifiedToken verified = jwtUtils.parseVerifiedToken(jwt).orElse(null);
+        if (verified == null || revocationService.isRevoked(verified)) {
+            return null;
+        }
+
+        UserDetailsImpl principal = jwtUtils.buildPrincipal(verified);
+        if (principal != null) {
+            // Self-contained token: no lookup, only the active flag and security version are checked
+            return principal.isActive() && securityVersions.isCurrent(principal.getId(), principal.getSecurityVersion())
+                    && !isRejected(verified, principal) ? principal : null;
+        }
+
+        long stamp = tokenCache.stamp();
+        Long userId = jwtUtils.getUserId(verified);
+        UserDetailsImpl userDetails = (UserDetailsImpl) (userId != null
+                ? userDetailsService.loadUserById(userId)
+                : userDetailsService.loadUserByUsername(verified.getSubject()));
+        tokenCache.put(jwt, verified, userDetails, stamp);
+        return isRejected(verified, userDetails) ? null : userDetails;
+    }
+
+    /**
+     * Whether the user's tokens were invalidated in bulk after this one was issued
+     */
+    private boolean isRejected(VerifiedToken token, UserDetailsImpl userDetails) {
+        return userDetails.getId() != null && watermarks.isInvalidated(userDetails.getId(), token.getIssuedAt());
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
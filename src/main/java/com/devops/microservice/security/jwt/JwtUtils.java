@@ -1,15 +1,24 @@
 package com.devops.microservice.security.jwt;
 
+import com.devops.microservice.security.service.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * JWT utility class for token generation and validation
@@ -18,6 +27,27 @@ import java.util.Date;
 @Slf4j
 public class JwtUtils {
 
+    /**
+     * Upper bound on accepted token length; anything larger is rejected before decoding
+     */
+    private static final int MAX_TOKEN_LENGTH = 8192;
+
+    private static final byte[] EXP_CLAIM = "\"exp\":".getBytes();
+
+    /**
+     * Custom claims carried by self-contained tokens. Their presence also marks the subject as the user id.
+     */
+    public static final String CLAIM_USERNAME = "usr";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_ACTIVE = "act";
+    public static final String CLAIM_SECURITY_VERSION = "sv";
+
+    /**
+     * Issue time in milliseconds, on every token; {@code iat} holds whole seconds, too coarse to
+     * tell a token from a change made in the same second
+     */
+    public static final String CLAIM_ISSUED_AT_MILLIS = "iatms";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -27,8 +57,24 @@ public class JwtUtils {
     @Value("${app.jwt.refresh-expiration}")
     private int refreshExpirationMs;
 
+    @Value("${app.jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        // JwtParser instances are immutable and thread-safe, so one is shared by all requests
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
     }
 
     /**
@@ -36,17 +82,51 @@ public class JwtUtils {
      */
     public String generateJwtToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        if (userPrincipal instanceof UserDetailsImpl principal) {
+            return generateAccessToken(principal);
+        }
         return generateTokenFromUsername(userPrincipal.getUsername());
     }
 
+    /**
+     * Generate access token for a principal. In stateless-principal mode the token carries
+     * the user id as subject plus roles, active flag and security version.
+     */
+    public String generateAccessToken(UserDetailsImpl principal) {
+        if (!statelessPrincipal) {
+            return generateTokenFromUsername(principal.getUsername());
+        }
+
+        List<String> roles = principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(String.valueOf(principal.getId()))
+                .claim(CLAIM_USERNAME, principal.getUsername())
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_ACTIVE, principal.isActive())
+                .claim(CLAIM_SECURITY_VERSION, principal.getSecurityVersion())
+                .setIssuedAt(new Date(now))
+                .claim(CLAIM_ISSUED_AT_MILLIS, now)
+                .setExpiration(new Date(now + jwtExpirationMs))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
     /**
      * Generate JWT token from username
      */
     public String generateTokenFromUsername(String username) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .setIssuedAt(new Date(now))
+                .claim(CLAIM_ISSUED_AT_MILLIS, now)
+                .setExpiration(new Date(now + jwtExpirationMs))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
@@ -55,49 +135,92 @@ public class JwtUtils {
      * Generate refresh token
      */
     public String generateRefreshToken(String username) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + refreshExpirationMs))
+                .setIssuedAt(new Date(now))
+                .claim(CLAIM_ISSUED_AT_MILLIS, now)
+                .setExpiration(new Date(now + refreshExpirationMs))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
     /**
-     * Get username from JWT token
+     * Generate refresh token for a principal, keyed by user id in stateless-principal mode
      */
-    public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    public String generateRefreshToken(UserDetailsImpl principal) {
+        if (!statelessPrincipal) {
+            return generateRefreshToken(principal.getUsername());
+        }
+
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(String.valueOf(principal.getId()))
+                .claim(CLAIM_USERNAME, principal.getUsername())
+                .setIssuedAt(new Date(now))
+                .claim(CLAIM_ISSUED_AT_MILLIS, now)
+                .setExpiration(new Date(now + refreshExpirationMs))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
     }
 
     /**
-     * Get expiration date from JWT token
+     * Get the user id of a token whose subject is the user id, or {@code null} for
+     * tokens whose subject is the username
      */
-    public Date getExpirationDateFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
+    public Long getUserId(VerifiedToken token) {
+        return token.getClaims().containsKey(CLAIM_USERNAME) ? Long.valueOf(token.getSubject()) : null;
     }
 
     /**
-     * Validate JWT token
+     * Build the principal straight from a self-contained token, or return {@code null}
+     * if stateless-principal mode is off or the token does not carry the claims
      */
-    public boolean validateJwtToken(String authToken) {
+    public UserDetailsImpl buildPrincipal(VerifiedToken token) {
+        if (!statelessPrincipal || !token.getClaims().containsKey(CLAIM_ROLES)) {
+            return null;
+        }
+
+        Collection<?> roles = token.getClaim(CLAIM_ROLES, Collection.class);
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString()))
+                .toList();
+        Number securityVersion = token.getClaim(CLAIM_SECURITY_VERSION, Number.class);
+
+        return UserDetailsImpl.builder()
+                .id(Long.valueOf(token.getSubject()))
+                .username(token.getClaim(CLAIM_USERNAME, String.class))
+                .isActive(Boolean.TRUE.equals(token.getClaim(CLAIM_ACTIVE, Boolean.class)))
+                .securityVersion(securityVersion != null ? securityVersion.intValue() : 0)
+                .authorities(authorities)
+                .build();
+    }
+
+    public boolean isStatelessPrincipal() {
+        return statelessPrincipal;
+    }
+
+    /**
+     * Verify a token once and return its claims.
+     * Structure and expiry are checked on the raw payload before the signature is computed,
+     * so malformed and expired tokens are rejected without any HMAC work.
+     *
+     * @throws JwtException if the token is malformed, expired or its signature does not match
+     */
+    public VerifiedToken verifyToken(String token) {
+        precheck(token);
+        return VerifiedToken.from(jwtParser.parseClaimsJws(token).getBody());
+    }
+
+    /**
+     * Verify a token, logging the reason and returning empty if it is not valid
+     */
+    public Optional<VerifiedToken> parseVerifiedToken(String authToken) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException e) {
+            return Optional.of(verifyToken(authToken));
+        } catch (io.jsonwebtoken.security.SecurityException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
@@ -107,8 +230,31 @@ public class JwtUtils {
             log.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             log.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.error("JWT token is invalid: {}", e.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    /**
+     * Get username from JWT token
+     */
+    public String getUsernameFromJwtToken(String token) {
+        return verifyToken(token).getSubject();
+    }
+
+    /**
+     * Get expiration date from JWT token
+     */
+    public Date getExpirationDateFromJwtToken(String token) {
+        return Date.from(verifyToken(token).getExpiration());
+    }
+
+    /**
+     * Validate JWT token
+     */
+    public boolean validateJwtToken(String authToken) {
+        return parseVerifiedToken(authToken).isPresent();
     }
 
     /**
@@ -129,4 +275,61 @@ public class JwtUtils {
     public long getJwtExpirationInSeconds() {
         return jwtExpirationMs / 1000;
     }
+
+    /**
+     * Cheap checks on the raw token: three non-empty segments, bounded length and an
+     * {@code exp} claim that is still in the future
+     */
+    private static void precheck(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+        }
+        if (token.length() > MAX_TOKEN_LENGTH) {
+            throw new MalformedJwtException("JWT exceeds maximum length of " + MAX_TOKEN_LENGTH);
+        }
+
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || secondDot == token.length() - 1
+                || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters with signed content.");
+        }
+
+        byte[] payload;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(firstDot + 1, secondDot));
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("Unable to decode JWT payload", e);
+        }
+
+        long exp = readExpSeconds(payload);
+        if (exp >= 0 && exp * 1000 <= System.currentTimeMillis()) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + new Date(exp * 1000));
+        }
+    }
+
+    /**
+     * Find the numeric {@code exp} claim in a compact JSON payload without a full parse.
+     * Returns -1 if the claim is absent or not a plain number; the parser then decides.
+     */
+    private static long readExpSeconds(byte[] payload) {
+        outer:
+        for (int i = 0; i <= payload.length - EXP_CLAIM.length; i++) {
+            for (int j = 0; j < EXP_CLAIM.length; j++) {
+                if (payload[i + j] != EXP_CLAIM[j]) {
+                    continue outer;
+                }
+            }
+            int pos = i + EXP_CLAIM.length;
+            long value = 0;
+            int digits = 0;
+            while (pos < payload.length && payload[pos] >= '0' && payload[pos] <= '9' && digits < 18) {
+                value = value * 10 + (payload[pos] - '0');
+                pos++;
+                digits++;
+            }
+            return digits > 0 ? value : -1;
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,185 @@
+package com.devops.microservice.security.jwt;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.security.service.UserDetailsImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of verified JWTs and the principal built for them, so that repeated requests
+ * with the same token skip signature verification and the user lookup.
+ * Entries never outlive the token's own expiration and are dropped when the user changes: each
+ * entry remembers its user's generation, a change bumps it, and a read of an entry from an older
+ * generation drops that entry. A generation is kept until the TTL has passed since it was last
+ * read or bumped, by which time every entry cached under it or before it has expired.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenAuthenticationCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.jwt.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.jwt.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Time source of both caches, replaced in tests
+     */
+    Ticker ticker = Ticker.systemTicker();
+
+    private Cache<String, CachedAuthentication> cache;
+    private Cache<Long, Long> userGenerations;
+
+    @PostConstruct
+    void init() {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        // Not bounded by size: forgetting a generation early would bring back the entries it rejects
+        userGenerations = Caffeine.newBuilder()
+                .expireAfterAccess(ttlNanos, TimeUnit.NANOSECONDS)
+                .ticker(ticker)
+                .build();
+        cache = Caffeine.newBuilder()
+                .ticker(ticker)
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedAuthentication>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedAuthentication value, long currentTime) {
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                                value.getToken().getExpiration().toEpochMilli() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(ttlNanos, untilExpiry));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedAuthentication value,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedAuthentication value,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.authentication");
+        log.info("JWT authentication cache {} (max size: {}, ttl: {}s)",
+                enabled ? "enabled" : "disabled", maxSize, ttlSeconds);
+    }
+
+    /**
+     * Get the cached authentication for a raw token, or {@code null} on a miss
+     */
+    public CachedAuthentication get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        String key = digest(token);
+        CachedAuthentication cached = cache.getIfPresent(key);
+        if (cached != null && cached.generation != generationOf(cached.getUserDetails().getId())) {
+            cache.invalidate(key);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Current invalidation stamp. Callers read it before loading a user and pass it back to
+     * {@link #put} so that a load racing with an invalidation is not cached.
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Cache the principal built for a verified token
+     */
+    public void put(String token, VerifiedToken verified, UserDetailsImpl userDetails, long stamp) {
+        if (!enabled || verified.getExpiration() == null) {
+            return;
+        }
+        String key = digest(token);
+        cache.put(key, new CachedAuthentication(verified, userDetails, generationOf(userDetails.getId())));
+        if (invalidations.get() != stamp) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Drop every cached token belonging to the given user
+     */
+    public void evictUser(Long userId) {
+        // Stamp first: a put that misses the new stamp has read the generation before the bump
+        invalidations.incrementAndGet();
+        if (userId != null) {
+            userGenerations.asMap().merge(userId, 1L, Long::sum);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() != UserChangedEvent.Type.CREATED) {
+            evictUser(event.getUserId());
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private long generationOf(Long userId) {
+        Long generation = userId != null ? userGenerations.getIfPresent(userId) : null;
+        return generation != null ? generation : 0;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Verified token claims together with the principal built from them
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class CachedAuthentication {
+        private final VerifiedToken token;
+        private final UserDetailsImpl userDetails;
+        @Getter(AccessLevel.NONE)
+        private final long generation;
+    }
+}
@@ -0,0 +1,56 @@
+package com.devops.microservice.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable result of a single, successful JWT verification
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class VerifiedToken {
+
+    private final String id;
+    private final String subject;
+    private final Instant issuedAt;
+    private final Instant expiration;
+    private final Map<String, Object> claims;
+
+    static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                issuedAt(claims),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                Collections.unmodifiableMap(new LinkedHashMap<>(claims)));
+    }
+
+    /**
+     * The millisecond issue time where the token carries one, else {@code iat} in whole seconds
+     */
+    private static Instant issuedAt(Claims claims) {
+        if (claims.get(JwtUtils.CLAIM_ISSUED_AT_MILLIS) instanceof Number millis) {
+            return Instant.ofEpochMilli(millis.longValue());
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+    }
+
+    /**
+     * Get a claim converted to the requested type, or {@code null} if absent
+     */
+    public <T> T getClaim(String name, Class<T> type) {
+        Object value = claims.get(name);
+        return value != null ? type.cast(value) : null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiration != null && !expiration.isAfter(now);
+    }
+}
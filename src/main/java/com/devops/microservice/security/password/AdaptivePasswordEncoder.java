@@ -0,0 +1,78 @@
+package com.devops.microservice.security.password;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+/**
+ * Password encoder storing {@code {bcrypt}}-prefixed hashes at a configured cost.
+ * Legacy hashes without a prefix still match. Hashes below the configured cost are reported for
+ * upgrade, higher ones are kept: nodes calibrated to different costs would otherwise rehash the
+ * same user back and forth on every login, and a lowered cost only applies to new hashes.
+ */
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+
+    public static final String BCRYPT_ID = "bcrypt";
+    private static final String BCRYPT_PREFIX = "{" + BCRYPT_ID + "}";
+
+    private final int strength;
+    private final DelegatingPasswordEncoder delegate;
+
+    public AdaptivePasswordEncoder(int strength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.delegate = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        this.delegate.setDefaultPasswordEncoderForMatches(bcrypt);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encodedPassword == null
+                || !encodedPassword.startsWith(BCRYPT_PREFIX)
+                || costOf(encodedPassword) < strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Whether the hash is stored in the prefixed format written by this encoder
+     */
+    public static boolean isPrefixed(String encodedPassword) {
+        return encodedPassword != null && encodedPassword.startsWith(BCRYPT_PREFIX);
+    }
+
+    /**
+     * Cost factor of a BCrypt hash, with or without the {@code {bcrypt}} prefix, or -1 if unknown
+     */
+    public static int costOf(String encodedPassword) {
+        if (encodedPassword == null) {
+            return -1;
+        }
+        String hash = isPrefixed(encodedPassword) ? encodedPassword.substring(BCRYPT_PREFIX.length()) : encodedPassword;
+        // $2a$10$... / $2$10$...
+        int costStart = hash.indexOf('$', 1) + 1;
+        if (!hash.startsWith("$2") || costStart <= 0 || hash.length() < costStart + 3 || hash.charAt(costStart + 2) != '$') {
+            return -1;
+        }
+        char tens = hash.charAt(costStart);
+        char units = hash.charAt(costStart + 1);
+        if (!Character.isDigit(tens) || !Character.isDigit(units)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+}
@@ -0,0 +1,61 @@
+package com.devops.microservice.security.password;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt cost whose hash time on this machine is closest to a target latency.
+ * Each cost step doubles the work, so one measurement at a cheap probe cost is extrapolated
+ * and then checked once at the chosen cost.
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+
+    private static final int PROBE_STRENGTH = 8;
+    private static final int PROBE_RUNS = 5;
+    private static final String PROBE_PASSWORD = "calibration-password";
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration target, int minStrength, int maxStrength) {
+        // Warm up the JIT so the probe measures steady-state hashing
+        measure(PROBE_STRENGTH, 2);
+        long probeNanos = measure(PROBE_STRENGTH, PROBE_RUNS);
+
+        double steps = Math.log((double) target.toNanos() / probeNanos) / Math.log(2);
+        int strength = clamp(PROBE_STRENGTH + (int) Math.round(steps), minStrength, maxStrength);
+
+        long chosenNanos = measure(strength, 1);
+        if (chosenNanos > target.toNanos() * 3 / 2 && strength > minStrength) {
+            strength--;
+            chosenNanos /= 2;
+        }
+
+        log.info("Calibrated BCrypt cost {} (~{} ms per hash, target {} ms, allowed {}-{})",
+                strength, Duration.ofNanos(chosenNanos).toMillis(), target.toMillis(), minStrength, maxStrength);
+        return strength;
+    }
+
+    /**
+     * Median hash time in nanoseconds at the given cost
+     */
+    private static long measure(int strength, int runs) {
+        String salt = BCrypt.gensalt(strength);
+        long[] samples = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(PROBE_PASSWORD, salt);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return Math.max(1, samples[runs / 2]);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,92 @@
+package com.devops.microservice.security.password;
+
+import com.devops.microservice.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Background report of how many users are stored at each password-hash cost.
+ * Hashes are read in small keyset batches with a pause in between, so the scan never
+ * competes with login traffic. Outdated hashes are upgraded as their users log in.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHashCostReporter {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.password.report.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.security.password.report.pause-ms:50}")
+    private long pauseMs;
+
+    private MultiGauge usersByCost;
+
+    @PostConstruct
+    void init() {
+        usersByCost = MultiGauge.builder("auth.password.hash.users")
+                .description("Users per stored password-hash format and cost")
+                .register(meterRegistry);
+        if (passwordEncoder instanceof AdaptivePasswordEncoder adaptive) {
+            Gauge.builder("auth.password.bcrypt.strength", adaptive, AdaptivePasswordEncoder::getStrength)
+                    .description("BCrypt cost used for new hashes")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.security.password.report.initial-delay-ms:60000}",
+            fixedDelayString = "${app.security.password.report.interval-ms:3600000}")
+    public void report() {
+        Map<String, Long> counts = new TreeMap<>();
+        long afterId = 0;
+        try {
+            List<Object[]> batch;
+            do {
+                batch = userRepository.findPasswordHashesAfter(afterId, PageRequest.of(0, batchSize));
+                for (Object[] row : batch) {
+                    afterId = (Long) row[0];
+                    counts.merge(key((String) row[1]), 1L, Long::sum);
+                }
+                if (batch.size() == batchSize && pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            } while (batch.size() == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        usersByCost.register(counts.entrySet().stream()
+                .map(entry -> {
+                    String[] formatAndCost = entry.getKey().split(":");
+                    return MultiGauge.Row.of(Tags.of("format", formatAndCost[0], "cost", formatAndCost[1]), entry.getValue());
+                })
+                .collect(Collectors.toList()), true);
+        log.info("Password hashes by format:cost: {}", counts);
+    }
+
+    private static String key(String encodedPassword) {
+        int cost = AdaptivePasswordEncoder.costOf(encodedPassword);
+        String format = AdaptivePasswordEncoder.isPrefixed(encodedPassword) ? AdaptivePasswordEncoder.BCRYPT_ID : "legacy";
+        return format + ":" + (cost >= 0 ? String.valueOf(cost) : "unknown");
+    }
+}
@@ -0,0 +1,116 @@
+package com.devops.microservice.security.revocation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Append-only file journal of revocations so they survive a restart of a single node.
+ * Each line is {@code <jti> <expiresAtEpochMillis>}. The file is compacted down to the
+ * still-active entries on every startup.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.revocation.journal.enabled", havingValue = "true")
+@Slf4j
+public class FileRevocationJournal implements RevocationBackend {
+
+    private final Path path;
+    private final boolean fsync;
+
+    private FileChannel channel;
+
+    public FileRevocationJournal(@Value("${app.jwt.revocation.journal.path:./data/revoked-tokens.journal}") String path,
+                                 @Value("${app.jwt.revocation.journal.fsync:false}") boolean fsync) {
+        this.path = Path.of(path);
+        this.fsync = fsync;
+    }
+
+    @Override
+    public synchronized void persist(String tokenId, Instant expiresAt) {
+        ByteBuffer line = ByteBuffer.wrap((tokenId + " " + expiresAt.toEpochMilli() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        try {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to revocation journal " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void replay(Instant now, BiConsumer<String, Instant> sink) {
+        Map<String, Instant> active = new LinkedHashMap<>();
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int space = line.indexOf(' ');
+                        if (space <= 0) {
+                            continue;
+                        }
+                        try {
+                            Instant expiresAt = Instant.ofEpochMilli(Long.parseLong(line.substring(space + 1).trim()));
+                            if (expiresAt.isAfter(now)) {
+                                active.put(line.substring(0, space), expiresAt);
+                            }
+                        } catch (NumberFormatException e) {
+                            log.warn("Skipping corrupt revocation journal line: {}", line);
+                        }
+                    }
+                }
+            }
+
+            compact(active);
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open revocation journal " + path, e);
+        }
+
+        active.forEach(sink);
+        log.info("Replayed {} token revocations from {}", active.size(), path);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void compact(Map<String, Instant> active) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Instant> entry : active.entrySet()) {
+                out.write(entry.getKey() + " " + entry.getValue().toEpochMilli());
+                out.write('\n');
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,136 @@
+package com.devops.microservice.security.revocation;
+
+import com.devops.microservice.entity.RevokedToken;
+import com.devops.microservice.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Revocation backend on the shared {@code revoked_tokens} table, so that a logout on one node
+ * behind the load balancer is picked up by every other node on its next sync.
+ * <p>
+ * Ids are assigned at insert but become visible at commit, so a smaller id can appear after a
+ * larger one. As in {@code UserChangeLog}, ids skipped over are re-read on later syncs until they
+ * appear or {@code gap-timeout-ms} passes (rolled-back inserts never appear).
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.revocation.shared.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class JpaRevocationBackend implements RevocationBackend {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Upper bound on tracked gaps, in case ids advance in steps (e.g. auto_increment_increment > 1)
+     */
+    private static final int MAX_GAPS = 10_000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.jwt.revocation.shared.gap-timeout-ms:60000}")
+    private long gapTimeoutMs;
+
+    /**
+     * Highest row id already fed into the registry
+     */
+    private volatile long highWaterMark;
+
+    /**
+     * Ids below the high-water mark that have not been seen yet, with the time they were first missed
+     */
+    private final Map<Long, Instant> gaps = new ConcurrentHashMap<>();
+
+    private TransactionTemplate insertTemplate;
+
+    @PostConstruct
+    void init() {
+        // Inserts run on their own, so a duplicate rolls back only itself and not the caller's transaction
+        insertTemplate = new TransactionTemplate(transactionManager);
+        insertTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void persist(String tokenId, Instant expiresAt) {
+        try {
+            insertTemplate.executeWithoutResult(status -> revokedTokenRepository.save(RevokedToken.builder()
+                    .jti(tokenId)
+                    .expiresAt(expiresAt)
+                    .revokedAt(Instant.now())
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            // Revoked at the same time through another node; the row that won is all that is needed
+            log.debug("Token {} was already revoked", tokenId);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void replay(Instant now, BiConsumer<String, Instant> sink) {
+        List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(now);
+        for (RevokedToken token : active) {
+            sink.accept(token.getJti(), token.getExpiresAt());
+            highWaterMark = Math.max(highWaterMark, token.getId());
+        }
+        log.info("Replayed {} shared token revocations", active.size());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void sync(BiConsumer<String, Instant> sink) {
+        Instant now = Instant.now();
+        if (!gaps.isEmpty()) {
+            for (RevokedToken late : revokedTokenRepository.findByIdIn(List.copyOf(gaps.keySet()))) {
+                gaps.remove(late.getId());
+                sink.accept(late.getJti(), late.getExpiresAt());
+            }
+            gaps.values().removeIf(missedAt -> Duration.between(missedAt, now).toMillis() > gapTimeoutMs);
+        }
+
+        List<RevokedToken> batch;
+        do {
+            batch = revokedTokenRepository.findTop500ByIdGreaterThanOrderByIdAsc(highWaterMark);
+            for (RevokedToken token : batch) {
+                for (long missing = highWaterMark + 1; missing < token.getId() && gaps.size() < MAX_GAPS; missing++) {
+                    gaps.put(missing, now);
+                }
+                sink.accept(token.getJti(), token.getExpiresAt());
+                highWaterMark = token.getId();
+            }
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    @Override
+    @Transactional
+    public void purgeExpired(Instant now) {
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        if (deleted > 0) {
+            log.debug("Deleted {} expired shared token revocations", deleted);
+        }
+    }
+
+    long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    int getGapCount() {
+        return gaps.size();
+    }
+}
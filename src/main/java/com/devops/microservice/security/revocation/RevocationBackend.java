@@ -0,0 +1,32 @@
+package com.devops.microservice.security.revocation;
+
+import java.time.Instant;
+import java.util.function.BiConsumer;
+
+/**
+ * Durable storage behind the in-memory revocation registry
+ */
+public interface RevocationBackend {
+
+    /**
+     * Persist a new revocation
+     */
+    void persist(String tokenId, Instant expiresAt);
+
+    /**
+     * Feed every revocation that has not expired yet into the sink, called once at startup
+     */
+    void replay(Instant now, BiConsumer<String, Instant> sink);
+
+    /**
+     * Feed revocations recorded since the last call (for example by other nodes) into the sink
+     */
+    default void sync(BiConsumer<String, Instant> sink) {
+    }
+
+    /**
+     * Remove revocations whose tokens have expired
+     */
+    default void purgeExpired(Instant now) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.devops.microservice.security.revocation;
+
+import com.devops.microservice.util.BloomFilter;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked token ids.
+ * A Bloom filter sits in front of the exact map so the common "not revoked" answer costs a few
+ * hashes and array reads, with no allocation and no locking. Entries are evicted in expiry
+ * order and the filter is rebuilt once enough of its keys have expired.
+ */
+public class RevokedTokenRegistry {
+
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final PriorityQueue<Revocation> expiryQueue = new PriorityQueue<>(Comparator.comparing(Revocation::expiresAt));
+
+    private volatile BloomFilter filter;
+    private long expiredSinceRebuild;
+
+    public RevokedTokenRegistry(long expectedRevocations, double falsePositiveRate) {
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = BloomFilter.create(expectedRevocations, falsePositiveRate);
+    }
+
+    /**
+     * Record a revocation.
+     *
+     * @return {@code false} if the token was already revoked or has already expired
+     */
+    public synchronized boolean revoke(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now()) || revoked.putIfAbsent(tokenId, expiresAt) != null) {
+            return false;
+        }
+        expiryQueue.add(new Revocation(tokenId, expiresAt));
+        filter.put(tokenId);
+        return true;
+    }
+
+    /**
+     * Hot-path check, called for every authenticated request
+     */
+    public boolean isRevoked(String tokenId) {
+        return filter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    /**
+     * Whether the Bloom filter alone would let this id through without touching the map
+     */
+    public boolean passesFilter(String tokenId) {
+        return !filter.mightContain(tokenId);
+    }
+
+    /**
+     * Drop revocations whose tokens have expired anyway, rebuilding the filter when
+     * at least half of its capacity is taken up by keys that are no longer revoked.
+     *
+     * @return number of entries evicted
+     */
+    public synchronized int purgeExpired(Instant now) {
+        int evicted = 0;
+        while (!expiryQueue.isEmpty() && !expiryQueue.peek().expiresAt().isAfter(now)) {
+            Revocation expired = expiryQueue.poll();
+            revoked.remove(expired.tokenId(), expired.expiresAt());
+            evicted++;
+        }
+
+        expiredSinceRebuild += evicted;
+        if (expiredSinceRebuild > 0 && expiredSinceRebuild * 2 >= Math.max(expectedRevocations, revoked.size())) {
+            rebuildFilter();
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    public BloomFilter getFilter() {
+        return filter;
+    }
+
+    private void rebuildFilter() {
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedRevocations, revoked.size() * 2L), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        expiredSinceRebuild = 0;
+    }
+
+    private record Revocation(String tokenId, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.devops.microservice.security.revocation;
+
+import com.devops.microservice.security.jwt.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Token revocation: an in-memory registry answers the per-request check, while the configured
+ * backends (file journal, shared table) make revocations durable and visible to other nodes
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final List<RevocationBackend> backends;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.revocation.expected-revocations:100000}")
+    private long expectedRevocations;
+
+    @Value("${app.jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private RevokedTokenRegistry registry;
+    private Counter revocations;
+    private Counter filterFalsePositives;
+
+    @PostConstruct
+    void init() {
+        registry = new RevokedTokenRegistry(expectedRevocations, falsePositiveRate);
+        Instant now = Instant.now();
+        backends.forEach(backend -> backend.replay(now, registry::revoke));
+
+        revocations = meterRegistry.counter("jwt.revocation.revoked");
+        filterFalsePositives = meterRegistry.counter("jwt.revocation.filter.false.positives");
+        Gauge.builder("jwt.revocation.entries", registry, RevokedTokenRegistry::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+        log.info("Token revocation initialised with {} active revocations and {} backend(s)",
+                registry.size(), backends.size());
+    }
+
+    /**
+     * Revoke a verified token until it expires
+     */
+    public void revoke(VerifiedToken token) {
+        if (token.getId() == null || token.getExpiration() == null) {
+            log.warn("Token for {} has no id or expiry and cannot be revoked", token.getSubject());
+            return;
+        }
+        if (registry.revoke(token.getId(), token.getExpiration())) {
+            backends.forEach(backend -> backend.persist(token.getId(), token.getExpiration()));
+            revocations.increment();
+        }
+    }
+
+    /**
+     * Per-request check; does not allocate or lock for tokens that were never revoked
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        String tokenId = token.getId();
+        if (tokenId == null || registry.passesFilter(tokenId)) {
+            return false;
+        }
+        boolean revoked = registry.isRevoked(tokenId);
+        if (!revoked) {
+            filterFalsePositives.increment();
+        }
+        return revoked;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval-ms:5000}")
+    public void syncBackends() {
+        for (RevocationBackend backend : backends) {
+            try {
+                backend.sync(registry::revoke);
+            } catch (RuntimeException e) {
+                log.warn("Token revocation sync failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int evicted = registry.purgeExpired(now);
+        for (RevocationBackend backend : backends) {
+            try {
+                backend.purgeExpired(now);
+            } catch (RuntimeException e) {
+                log.warn("Token revocation purge failed: {}", e.getMessage());
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} expired token revocations", evicted);
+        }
+    }
+
+    RevokedTokenRegistry getRegistry() {
+        return registry;
+    }
+}
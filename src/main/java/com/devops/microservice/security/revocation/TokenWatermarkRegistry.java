@@ -0,0 +1,206 @@
+package com.devops.microservice.security.revocation;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.util.LongLongHashMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+
+/**
+ * Per-user "tokens issued before" watermark, in milliseconds.
+ * Deactivating or deleting a user, or changing their password, moves the watermark to the time of
+ * that change, so every token issued before it is rejected without a database read while tokens
+ * issued after it, even within the same second, are accepted. Changes replayed from other nodes
+ * carry the time they were made, not the time they arrived. Readers see an immutable map through a
+ * volatile field; the rare writers copy it, change the copy and publish it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenWatermarkRegistry {
+
+    private static final int SNAPSHOT_MAGIC = 0x544B574E;
+
+    /**
+     * Earlier format, holding the epoch second of the newest rejected issue time
+     */
+    private static final int SECONDS_SNAPSHOT_MAGIC = 0x544B574D;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.refresh-expiration}")
+    private long refreshExpirationMs;
+
+    @Value("${app.jwt.watermark.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${app.jwt.watermark.snapshot.path:./data/token-watermarks.snapshot}")
+    private String snapshotPath;
+
+    /**
+     * userId -> epoch millisecond of the oldest accepted issue time
+     */
+    private volatile LongLongHashMap watermarks = new LongLongHashMap();
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        if (snapshotEnabled) {
+            watermarks = readSnapshot(oldestRelevant(Instant.now()));
+        }
+        rejected = meterRegistry.counter("jwt.watermark.rejected");
+        Gauge.builder("jwt.watermark.entries", this, TokenWatermarkRegistry::size)
+                .description("Users with a token watermark still inside the refresh-token lifetime")
+                .register(meterRegistry);
+        log.info("Loaded token watermarks for {} users", size());
+    }
+
+    /**
+     * Per-request check; a lookup in a primitive map, with no locking or boxing
+     */
+    public boolean isInvalidated(long userId, Instant issuedAt) {
+        long watermark = watermarks.get(userId, Long.MIN_VALUE);
+        if (watermark == Long.MIN_VALUE) {
+            return false;
+        }
+        // Tokens without an issue time cannot prove they are newer than the watermark
+        if (issuedAt == null || issuedAt.toEpochMilli() < watermark) {
+            rejected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reject every token of the user issued before the given instant
+     */
+    public synchronized void invalidateBefore(long userId, Instant cutoff) {
+        LongLongHashMap updated = watermarks.copy();
+        updated.putMax(userId, cutoff.toEpochMilli());
+        watermarks = updated;
+        writeSnapshot(updated);
+        log.info("Invalidated tokens issued before {} for user {}", cutoff, userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.DEACTIVATED
+                || event.getType() == UserChangedEvent.Type.DELETED
+                || securityVersionIncreased(event.getBefore(), event.getAfter())) {
+            invalidateBefore(event.getUserId(), event.getChangedAt() != null ? event.getChangedAt() : Instant.now());
+        }
+    }
+
+    /**
+     * Drop watermarks older than the refresh-token lifetime; every token they guard has expired
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.watermark.compact-interval-ms:3600000}")
+    public synchronized void compact() {
+        long oldest = oldestRelevant(Instant.now());
+        LongLongHashMap current = watermarks;
+        LongLongHashMap compacted = new LongLongHashMap(current.size());
+        current.forEach((userId, watermark) -> {
+            if (watermark >= oldest) {
+                compacted.put(userId, watermark);
+            }
+        });
+        if (compacted.size() != current.size()) {
+            watermarks = compacted;
+            writeSnapshot(compacted);
+            log.debug("Compacted token watermarks from {} to {} users", current.size(), compacted.size());
+        }
+    }
+
+    public int size() {
+        return watermarks.size();
+    }
+
+    private long oldestRelevant(Instant now) {
+        return now.minusMillis(refreshExpirationMs).toEpochMilli();
+    }
+
+    private static boolean securityVersionIncreased(UserSnapshot before, UserSnapshot after) {
+        return before != null && after != null && after.getSecurityVersion() > before.getSecurityVersion();
+    }
+
+    private LongLongHashMap readSnapshot(long oldest) {
+        Path path = Path.of(snapshotPath);
+        LongLongHashMap loaded = new LongLongHashMap();
+        if (!Files.exists(path)) {
+            return loaded;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC && magic != SECONDS_SNAPSHOT_MAGIC) {
+                log.warn("Ignoring token watermark snapshot {} with unknown format", path);
+                return loaded;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long userId = in.readLong();
+                long watermark = in.readLong();
+                if (magic == SECONDS_SNAPSHOT_MAGIC) {
+                    // Everything up to the end of that second was rejected
+                    watermark = (watermark + 1) * 1000;
+                }
+                if (watermark >= oldest) {
+                    loaded.putMax(userId, watermark);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read token watermark snapshot {}: {}", path, e.getMessage());
+        }
+        return loaded;
+    }
+
+    private void writeSnapshot(LongLongHashMap snapshot) {
+        if (!snapshotEnabled) {
+            return;
+        }
+        Path path = Path.of(snapshotPath);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(snapshot.size());
+                IOException[] failure = new IOException[1];
+                snapshot.forEach((userId, watermark) -> {
+                    try {
+                        out.writeLong(userId);
+                        out.writeLong(watermark);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The in-memory watermark is already active; only a restart would lose it
+            log.error("Failed to write token watermark snapshot {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.devops.microservice.security.service;
+
+import com.devops.microservice.exception.TooManyLoginAttemptsException;
+import com.devops.microservice.util.SlidingWindowCountMinSketch;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Failed-login throttling by username and by client address.
+ * Failures are counted in fixed-size sliding-window sketches, so memory does not grow with
+ * the number of distinct keys a credential-stuffing run tries. The sketches only overcount, and a
+ * flood of distinct keys raises every estimate, so a key the sketch puts over its limit is checked
+ * against the exact failure times of recently failing keys before it is refused. That log is
+ * bounded by {@code max-tracked-keys}; Caffeine keeps the frequently failing keys when a flood of
+ * one-off keys overflows it, and a key it has dropped is let through rather than locked out.
+ * Refused attempts are stopped before any database lookup or password hash.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoginAttemptThrottle {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.login-throttle.max-failures-per-user:10}")
+    private int maxFailuresPerUser;
+
+    @Value("${app.security.login-throttle.max-failures-per-ip:100}")
+    private int maxFailuresPerIp;
+
+    @Value("${app.security.login-throttle.window-seconds:900}")
+    private long windowSeconds;
+
+    @Value("${app.security.login-throttle.slices:15}")
+    private int slices;
+
+    @Value("${app.security.login-throttle.sketch-width:16384}")
+    private int sketchWidth;
+
+    @Value("${app.security.login-throttle.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${app.security.login-throttle.max-tracked-keys:50000}")
+    private int maxTrackedKeys;
+
+    private SlidingWindowCountMinSketch userFailures;
+    private SlidingWindowCountMinSketch ipFailures;
+    private Cache<String, FailureTimes> userFailureTimes;
+    private Cache<String, FailureTimes> ipFailureTimes;
+    private Counter failures;
+    private Counter rejectedByUser;
+    private Counter rejectedByIp;
+
+    @PostConstruct
+    void init() {
+        Duration window = Duration.ofSeconds(windowSeconds);
+        userFailures = new SlidingWindowCountMinSketch(sketchWidth, sketchDepth, window, slices);
+        ipFailures = new SlidingWindowCountMinSketch(sketchWidth, sketchDepth, window, slices);
+        userFailureTimes = Caffeine.newBuilder().maximumSize(maxTrackedKeys).expireAfterAccess(window).build();
+        ipFailureTimes = Caffeine.newBuilder().maximumSize(maxTrackedKeys).expireAfterAccess(window).build();
+
+        failures = meterRegistry.counter("auth.login.failures");
+        rejectedByUser = meterRegistry.counter("auth.login.throttled", "key", "username");
+        rejectedByIp = meterRegistry.counter("auth.login.throttled", "key", "ip");
+        Gauge.builder("auth.login.throttle.memory", this, LoginAttemptThrottle::memoryBytes)
+                .description("Bytes held by the failed-login sketches")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Login throttling {}: {} failures per user, {} per address within {}s",
+                enabled ? "enabled" : "disabled", maxFailuresPerUser, maxFailuresPerIp, windowSeconds);
+    }
+
+    /**
+     * Refuse the attempt if the username or the client address is over its failure limit
+     *
+     * @throws TooManyLoginAttemptsException if either limit is reached
+     */
+    public void checkAllowed(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (username != null && isOverLimit(userFailures, userFailureTimes, normalize(username), maxFailuresPerUser, now)) {
+            rejectedByUser.increment();
+            throw new TooManyLoginAttemptsException("Too many failed login attempts, please try again later", retryAfterSeconds());
+        }
+        if (clientIp != null && isOverLimit(ipFailures, ipFailureTimes, clientIp, maxFailuresPerIp, now)) {
+            rejectedByIp.increment();
+            throw new TooManyLoginAttemptsException("Too many failed login attempts, please try again later", retryAfterSeconds());
+        }
+    }
+
+    /**
+     * Count a failed attempt against both the username and the client address
+     */
+    public void recordFailure(String username, String clientIp) {
+        failures.increment();
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (username != null) {
+            String key = normalize(username);
+            userFailures.increment(key, now);
+            userFailureTimes.get(key, k -> new FailureTimes(maxFailuresPerUser)).add(now);
+        }
+        if (clientIp != null) {
+            ipFailures.increment(clientIp, now);
+            ipFailureTimes.get(clientIp, k -> new FailureTimes(maxFailuresPerIp)).add(now);
+        }
+    }
+
+    long memoryBytes() {
+        return userFailures.memoryBytes() + ipFailures.memoryBytes();
+    }
+
+    /**
+     * The sketch answers for keys under the limit; only keys it puts over are looked up exactly
+     */
+    private boolean isOverLimit(SlidingWindowCountMinSketch sketch, Cache<String, FailureTimes> failureTimes,
+                                String key, int limit, long now) {
+        if (sketch.estimate(key, now) < limit) {
+            return false;
+        }
+        FailureTimes times = failureTimes.getIfPresent(key);
+        return times != null && times.countSince(now - windowSeconds * 1000) >= limit;
+    }
+
+    private long retryAfterSeconds() {
+        return Math.max(1, userFailures.sliceLength().toSeconds());
+    }
+
+    /**
+     * Case and whitespace variants of a username must share a counter
+     */
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The times of a key's latest failures, as many as its limit
+     */
+    private static final class FailureTimes {
+
+        private final long[] times;
+        private int next;
+
+        FailureTimes(int limit) {
+            this.times = new long[Math.max(1, limit)];
+        }
+
+        synchronized void add(long time) {
+            times[next] = time;
+            next = (next + 1) % times.length;
+        }
+
+        synchronized int countSince(long from) {
+            int count = 0;
+            for (long time : times) {
+                if (time > from) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.devops.microservice.security.service;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.sharding.UserShards;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of per-user security versions used to reject stale self-contained tokens.
+ * Only users whose version was ever bumped are held, so the table stays small; deleted users are
+ * dropped again once every token issued before their deletion has expired.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SecurityVersionRegistry {
+
+    /**
+     * Version recorded for deleted users; no token can match it
+     */
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final UserShards userShards;
+
+    @Value("${app.jwt.refresh-expiration}")
+    private long refreshExpirationMs;
+
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    /**
+     * userId -> time of deletion, for the users held at {@link #DELETED}
+     */
+    private final Map<Long, Instant> deletedAt = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        userShards.forEach(shard -> {
+            for (Object[] row : userRepository.findSecurityVersions()) {
+                versions.put((Long) row[0], (Integer) row[1]);
+            }
+            // Archived users keep their tokens' versions; they are restored as they are
+            for (Object[] row : archivedUserRepository.findSecurityVersions()) {
+                versions.put((Long) row[0], (Integer) row[1]);
+            }
+        });
+        log.info("Loaded security versions for {} users", versions.size());
+    }
+
+    /**
+     * Check whether a token carrying the given version is still acceptable for the user
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= versions.getOrDefault(userId, 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.DELETED) {
+            versions.put(event.getUserId(), DELETED);
+            deletedAt.put(event.getUserId(), event.getChangedAt() != null ? event.getChangedAt() : Instant.now());
+        } else if (event.getAfter() != null && event.getAfter().getSecurityVersion() > 0) {
+            versions.merge(event.getUserId(), event.getAfter().getSecurityVersion(), Math::max);
+        }
+    }
+
+    /**
+     * Forget users deleted longer ago than the refresh-token lifetime; no token issued before can still be valid
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.watermark.compact-interval-ms:3600000}")
+    public void compact() {
+        Instant oldest = Instant.now().minusMillis(refreshExpirationMs);
+        deletedAt.entrySet().removeIf(entry -> {
+            if (entry.getValue().isBefore(oldest)) {
+                versions.remove(entry.getKey(), DELETED);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public int size() {
+        return versions.size();
+    }
+}
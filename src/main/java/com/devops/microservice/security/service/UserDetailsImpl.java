@@ -28,6 +28,7 @@ public class UserDetailsImpl implements UserDetails {
     private String password;
     private boolean isActive;
     private boolean isEmailVerified;
+    private int securityVersion;
     private Collection<? extends GrantedAuthority> authorities;
 
     public static UserDetailsImpl build(User user) {
@@ -42,6 +43,7 @@ public class UserDetailsImpl implements UserDetails {
                 .password(user.getPassword())
                 .isActive(user.getIsActive())
                 .isEmailVerified(user.getIsEmailVerified())
+                .securityVersion(user.getSecurityVersion() != null ? user.getSecurityVersion() : 0)
                 .authorities(authorities)
                 .build();
     }
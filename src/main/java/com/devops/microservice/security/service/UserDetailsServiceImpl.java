@@ -1,29 +1,102 @@
 package com.devops.microservice.security.service;
 
+import com.devops.microservice.entity.ArchivedUser;
 import com.devops.microservice.entity.User;
+import com.devops.microservice.repository.ArchivedUserRepository;
 import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.service.UserArchive;
+import com.devops.microservice.sharding.UserShards;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
- * UserDetailsService implementation for Spring Security
+ * UserDetailsService implementation for Spring Security.
+ * Each lookup runs in a transaction of its own on the user's shard; with sharding that is a new
+ * transaction even inside another one, since a transaction cannot change shard once it started.
+ * Users missing from the users table are looked up in the archive; active ones are restored as
+ * they log in.
  */
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final UserArchive userArchive;
+    private final UserShards userShards;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (userShards.isEnabled()) {
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+    }
 
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsernameOrEmail(username)
+        // Usernames resolve through the natural-id cache; only logins by email need the query
+        return onShard(userShards.shardOf(username), () -> userRepository.findByUsername(username)
+                        .or(() -> fromArchive(archivedUserRepository.findByUsername(username)))
+                        .map(UserDetailsImpl::build))
+                .or(() -> userShards.shardOfEmail(username).flatMap(shard -> onShard(shard, () -> userRepository.findByEmail(username)
+                        .or(() -> fromArchive(archivedUserRepository.findByEmail(username)))
+                        .map(UserDetailsImpl::build))))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + username));
+    }
+
+    /**
+     * Load a user by its immutable id, used for tokens whose subject is the user id
+     */
+    public UserDetails loadUserById(Long id) throws UsernameNotFoundException {
+        return userShards.shardOfUser(id)
+                .flatMap(shard -> onShard(shard, () -> userRepository.findById(id)
+                        .or(() -> archivedUserRepository.findById(id).map(ArchivedUser::toUser))
+                        .map(UserDetailsImpl::build)))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
+    }
+
+    /**
+     * Store a rehashed password after a successful login; the password itself is unchanged,
+     * so this is not a credential change and does not invalidate the user's tokens
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) user;
+        userShards.shardOfUser(userDetails.getId()).ifPresent(shard ->
+                userShards.on(shard, () -> transactionTemplate.execute(
+                        status -> userRepository.updatePassword(userDetails.getId(), newPassword))));
+        userDetails.setPassword(newPassword);
+        log.debug("Upgraded password hash for user: {}", userDetails.getUsername());
+        return userDetails;
+    }
+
+    /**
+     * Active archived users are restored; inactive ones are only read, their login fails anyway
+     */
+    private Optional<User> fromArchive(Optional<ArchivedUser> archived) {
+        return archived.flatMap(user -> Boolean.TRUE.equals(user.getIsActive())
+                ? userArchive.restore(user.getId())
+                : Optional.of(user.toUser()));
+    }
 
-        return UserDetailsImpl.build(user);
+    private <T> Optional<T> onShard(int shard, Supplier<Optional<T>> lookup) {
+        return userShards.on(shard, () -> transactionTemplate.execute(status -> lookup.get()));
     }
 }
@@ -2,6 +2,7 @@ package com.devops.microservice.service;
 
 import com.devops.microservice.dto.request.LoginRequest;
 import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.AvailabilityResponse;
 import com.devops.microservice.dto.response.JwtResponse;
 import com.devops.microservice.dto.response.UserResponse;
 
@@ -15,11 +16,21 @@ public interface AuthService {
      */
     JwtResponse authenticateUser(LoginRequest loginRequest);
 
+    /**
+     * Authenticate user and return JWT token, throttling repeated failures from the client address
+     */
+    JwtResponse authenticateUser(LoginRequest loginRequest, String clientIp);
+
     /**
      * Register a new user
      */
     UserResponse registerUser(UserRegistrationRequest registrationRequest);
 
+    /**
+     * Check whether a username and an email are free to register; either may be null
+     */
+    AvailabilityResponse checkAvailability(String username, String email);
+
     /**
      * Refresh JWT token
      */
@@ -29,4 +40,9 @@ public interface AuthService {
      * Logout user (invalidate token)
      */
     void logout(String token);
+
+    /**
+     * Logout user, invalidating the access token and, when given, the refresh token issued with it
+     */
+    void logout(String token, String refreshToken);
 }
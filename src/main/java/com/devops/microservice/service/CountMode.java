@@ -0,0 +1,29 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.exception.InvalidPageRequestException;
+
+import java.util.Locale;
+
+/**
+ * How an offset listing obtains its total
+ */
+public enum CountMode {
+
+    /** Run {@code COUNT(*)} for every page (unless the first page already holds every row) */
+    EXACT,
+    /** Skip the count; the response only says whether another page exists */
+    NONE,
+    /** Use the total kept by {@link UserCountCache}, which may briefly lag concurrent changes */
+    CACHED;
+
+    /**
+     * @throws InvalidPageRequestException if the value names no mode
+     */
+    public static CountMode fromParam(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Unknown count mode '" + value + "', allowed: exact, none, cached", e);
+        }
+    }
+}
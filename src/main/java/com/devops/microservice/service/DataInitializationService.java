@@ -23,12 +23,14 @@ public class DataInitializationService implements CommandLineRunner {
     private final RoleRepository roleRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RoleRegistry roleRegistry;
 
     @Override
     public void run(String... args) throws Exception {
         log.info("Initializing application data...");
         
         createDefaultRoles();
+        roleRegistry.reload();
         createDefaultAdminUser();
         
         log.info("Application data initialization completed");
@@ -76,11 +78,8 @@ public class DataInitializationService implements CommandLineRunner {
         String adminPassword = "admin123";
         
         if (!userRepository.existsByUsername(adminUsername)) {
-            Role adminRole = roleRepository.findByName(Role.RoleName.ROLE_ADMIN)
-                    .orElseThrow(() -> new RuntimeException("Admin role not found"));
-            
-            Role userRole = roleRepository.findByName(Role.RoleName.ROLE_USER)
-                    .orElseThrow(() -> new RuntimeException("User role not found"));
+            Role adminRole = roleRegistry.get(Role.RoleName.ROLE_ADMIN);
+            Role userRole = roleRegistry.get(Role.RoleName.ROLE_USER);
             
             User adminUser = User.builder()
                     .username(adminUsername)
@@ -0,0 +1,152 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.User;
+import com.devops.microservice.sharding.UserShards;
+import com.devops.microservice.util.Hashing;
+import com.devops.microservice.util.LongLongHashMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Write-behind buffer for users' last-login times.
+ * Logins only record {@code userId -> timestamp} in memory (the latest one wins); a scheduled
+ * flush writes all pending entries with one batched UPDATE. The map is striped by user id so
+ * concurrent logins rarely contend on the same lock. Pending entries are flushed on shutdown.
+ * The UPDATE bypasses Hibernate, so the flushed users are evicted from the second-level cache.
+ * With sharding the batch runs on every shard; each id matches on the one shard holding it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LastLoginBuffer {
+
+    private static final String UPDATE_SQL = "UPDATE users SET last_login = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    private final UserShards userShards;
+
+    @Value("${app.users.last-login.batch-size:500}")
+    private int batchSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:UTC}")
+    private String jdbcTimeZone;
+
+    private Object[] locks;
+    private LongLongHashMap[] stripes;
+    private int stripeMask;
+    private Timer flushTimer;
+    private Counter flushed;
+
+    @PostConstruct
+    void init() {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        locks = new Object[stripeCount];
+        stripes = new LongLongHashMap[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            locks[i] = new Object();
+            stripes[i] = new LongLongHashMap();
+        }
+        stripeMask = stripeCount - 1;
+
+        flushTimer = meterRegistry.timer("users.last_login.flush");
+        flushed = meterRegistry.counter("users.last_login.flushed");
+        Gauge.builder("users.last_login.buffer.size", this, LastLoginBuffer::size)
+                .description("Last-login updates waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record a login; no database work happens on the caller's thread
+     */
+    public void record(long userId, Instant loginTime) {
+        int stripe = (int) Hashing.mix(userId) & stripeMask;
+        synchronized (locks[stripe]) {
+            stripes[stripe].putMax(userId, loginTime.toEpochMilli());
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (locks[i]) {
+                size += stripes[i].size();
+            }
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.last-login.flush-interval-ms:1000}")
+    public void flush() {
+        List<long[]> pending = drain();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(jdbcTimeZone));
+        ZoneId zone = ZoneId.systemDefault();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // Bound the same way Hibernate binds User.lastLogin, so both writers agree
+            userShards.forEach(shard -> jdbcTemplate.batchUpdate(UPDATE_SQL, pending, batchSize, (ps, entry) -> {
+                LocalDateTime lastLogin = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry[1]), zone);
+                ps.setTimestamp(1, Timestamp.valueOf(lastLogin), calendar);
+                ps.setLong(2, entry[0]);
+            }));
+            flushed.increment(pending.size());
+            Cache cache = entityManagerFactory.getCache();
+            pending.forEach(entry -> cache.evict(User.class, entry[0]));
+            log.debug("Flushed {} last-login updates", pending.size());
+        } catch (RuntimeException e) {
+            // Put the entries back; a newer login recorded meanwhile still wins
+            pending.forEach(entry -> record(entry[0], Instant.ofEpochMilli(entry[1])));
+            log.warn("Failed to flush {} last-login updates, will retry: {}", pending.size(), e.getMessage());
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private List<long[]> drain() {
+        List<long[]> pending = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            LongLongHashMap drained;
+            // Swap in an empty map so logins are only blocked for the swap, not the flush
+            synchronized (locks[i]) {
+                if (stripes[i].isEmpty()) {
+                    continue;
+                }
+                drained = stripes[i];
+                stripes[i] = new LongLongHashMap();
+            }
+            drained.forEach((userId, loginTime) -> pending.add(new long[]{userId, loginTime}));
+        }
+        return pending;
+    }
+}
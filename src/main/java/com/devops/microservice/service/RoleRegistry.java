@@ -0,0 +1,53 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * In-memory lookup of the fixed set of roles, so assigning a role needs no query.
+ * Loaded once by {@link DataInitializationService}; a role that is still missing
+ * (e.g. a request arriving before initialization finished) is read from the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoleRegistry {
+
+    private final RoleRepository roleRepository;
+
+    private volatile Map<Role.RoleName, Role> roles = new EnumMap<>(Role.RoleName.class);
+
+    /**
+     * Replace the registry contents with the roles currently stored
+     */
+    public void reload() {
+        Map<Role.RoleName, Role> loaded = new EnumMap<>(Role.RoleName.class);
+        roleRepository.findAll().forEach(role -> loaded.put(role.getName(), role));
+        roles = loaded;
+        log.info("Loaded {} roles into the role registry", loaded.size());
+    }
+
+    /**
+     * Get a role by name
+     *
+     * @throws RuntimeException if the role does not exist
+     */
+    public Role get(Role.RoleName name) {
+        Role role = roles.get(name);
+        if (role != null) {
+            return role;
+        }
+        role = roleRepository.findByName(name)
+                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
+        Map<Role.RoleName, Role> updated = new EnumMap<>(roles);
+        updated.put(name, role);
+        roles = updated;
+        return role;
+    }
+}
@@ -0,0 +1,147 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.ArchivedUser;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Moves users between the hot {@code users} table and the {@code users_archive} table, with their
+ * role links. Rows are copied with INSERT ... SELECT and keep their ids, so an archived user comes
+ * back exactly as it was. Each move is published as a {@link UserChangedEvent}. Runs in the
+ * caller's transaction; archiving bypasses Hibernate, so callers {@link #evict} the archived users
+ * from the second-level cache once it commits.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserArchive {
+
+    private static final String COLUMNS = "id, username, email, password, first_name, last_name, is_active, "
+            + "is_email_verified, created_at, updated_at, last_login, security_version";
+
+    /**
+     * Deactivated before the first cutoff, or without a login (or, never logged in, created) before the second
+     */
+    private static final String COLD = "(is_active = FALSE AND COALESCE(updated_at, created_at) < :inactiveBefore)"
+            + " OR COALESCE(last_login, created_at) < :staleBefore";
+
+    /**
+     * {@link #COLD} split into ranges on the (last_login, id) and (is_active, updated_at) indexes
+     */
+    private static final List<String> COLD_CANDIDATES = List.of(
+            "SELECT id FROM users WHERE last_login < :staleBefore ORDER BY last_login",
+            "SELECT id FROM users WHERE last_login IS NULL AND created_at < :staleBefore ORDER BY id",
+            "SELECT id FROM users WHERE is_active = FALSE AND updated_at < :inactiveBefore ORDER BY updated_at",
+            "SELECT id FROM users WHERE is_active = FALSE AND updated_at IS NULL AND created_at < :inactiveBefore");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Lock and return up to {@code limit} cold users, in id order; the locks are held until the
+     * transaction ends, so a login cannot change them before they are moved. Candidates are read
+     * from the indexes without locks, then locked by primary key and checked again, so only the
+     * returned rows are locked.
+     */
+    public List<Long> lockColdUsers(LocalDateTime inactiveBefore, LocalDateTime staleBefore, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("inactiveBefore", inactiveBefore)
+                .addValue("staleBefore", staleBefore);
+        SortedSet<Long> candidates = new TreeSet<>();
+        for (String candidateQuery : COLD_CANDIDATES) {
+            candidates.addAll(jdbcTemplate.queryForList(candidateQuery + " LIMIT " + limit, params, Long.class));
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        params.addValue("ids", candidates.stream().limit(limit).toList());
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE id IN (:ids) AND (" + COLD + ") ORDER BY id FOR UPDATE",
+                params, Long.class);
+    }
+
+    /**
+     * Move the users to the archive
+     *
+     * @return number of users moved
+     */
+    public int archive(Collection<Long> userIds, LocalDateTime archivedAt) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", userIds)
+                .addValue("archivedAt", archivedAt);
+        int moved = jdbcTemplate.update("INSERT INTO users_archive (" + COLUMNS + ", archived_at) SELECT "
+                + COLUMNS + ", :archivedAt FROM users WHERE id IN (:ids)", params);
+        jdbcTemplate.update("INSERT INTO user_roles_archive (user_id, role_id) "
+                + "SELECT user_id, role_id FROM user_roles WHERE user_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (:ids)", params);
+
+        for (ArchivedUser user : archivedUserRepository.findAllById(userIds)) {
+            UserSnapshot snapshot = UserSnapshot.of(user.toUser());
+            eventPublisher.publishEvent(UserChangedEvent.changed(UserChangedEvent.Type.ARCHIVED, snapshot, snapshot));
+        }
+        return moved;
+    }
+
+    /**
+     * Move an archived user back to the hot table
+     *
+     * @return the restored user, empty if it is not archived (any more)
+     */
+    public Optional<User> restore(Long userId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("id", userId);
+        // Concurrent restores of the same user queue here; the later ones find nothing left to move
+        if (jdbcTemplate.queryForList("SELECT id FROM users_archive WHERE id = :id FOR UPDATE", params, Long.class).isEmpty()) {
+            return userRepository.findById(userId);
+        }
+        jdbcTemplate.update("INSERT INTO users (" + COLUMNS + ") SELECT " + COLUMNS + " FROM users_archive WHERE id = :id", params);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) "
+                + "SELECT user_id, role_id FROM user_roles_archive WHERE user_id = :id", params);
+        jdbcTemplate.update("DELETE FROM user_roles_archive WHERE user_id = :id", params);
+        jdbcTemplate.update("DELETE FROM users_archive WHERE id = :id", params);
+
+        Optional<User> restored = userRepository.findById(userId);
+        restored.ifPresent(user -> {
+            UserSnapshot snapshot = UserSnapshot.of(user);
+            eventPublisher.publishEvent(UserChangedEvent.changed(UserChangedEvent.Type.RESTORED, snapshot, snapshot));
+            log.info("Restored archived user {}", userId);
+        });
+        return restored;
+    }
+
+    /**
+     * Drop archived users from the second-level cache, including their role sets and the
+     * username mappings (which cannot be evicted one by one)
+     */
+    public void evict(Collection<Long> userIds) {
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (Long userId : userIds) {
+            cache.evictEntityData(User.class, userId);
+            cache.evictCollectionData(User.class.getName() + ".roles", userId);
+        }
+        cache.evictNaturalIdData(User.class);
+    }
+}
@@ -0,0 +1,122 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.sharding.UserShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduled job that moves cold users into the archive tables: deactivated for longer than
+ * {@code inactive-after}, or without a login for longer than {@code stale-after}. Works in chunks of
+ * {@code batch-size} users, one short transaction each, so the row locks of a chunk are held only
+ * while it is copied. Reports the rows moved per run and how long each chunk held its locks.
+ */
+@Component
+@ConditionalOnProperty(name = "app.users.archive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class UserArchiver {
+
+    private final UserArchive userArchive;
+    private final UserShards userShards;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.users.archive.inactive-after:30d}")
+    private Duration inactiveAfter;
+
+    @Value("${app.users.archive.stale-after:730d}")
+    private Duration staleAfter;
+
+    @Value("${app.users.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.users.archive.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    private Timer chunkTimer;
+    private Counter archived;
+    private DistributionSummary runSize;
+
+    @PostConstruct
+    void init() {
+        chunkTimer = Timer.builder("users.archive.chunk")
+                .description("Time each archive chunk holds its row locks")
+                .register(meterRegistry);
+        archived = meterRegistry.counter("users.archive.moved");
+        runSize = DistributionSummary.builder("users.archive.run.moved")
+                .description("Users archived per run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.archive.interval-ms:3600000}",
+            initialDelayString = "${app.users.archive.initial-delay-ms:60000}")
+    public void run() {
+        try {
+            archiveColdUsers();
+        } catch (RuntimeException e) {
+            log.warn("User archive run failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archive cold users on every shard
+     *
+     * @return number of users archived
+     */
+    public int archiveColdUsers() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime inactiveBefore = now.minus(inactiveAfter);
+        LocalDateTime staleBefore = now.minus(staleAfter);
+        long startedAt = System.nanoTime();
+        int[] moved = new int[1];
+        int[] chunks = new int[1];
+        long[] longestLockNanos = new long[1];
+
+        userShards.forEach(shard -> {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                long chunkStartedAt = System.nanoTime();
+                List<Long> userIds = transactionTemplate.execute(status -> {
+                    List<Long> ids = userArchive.lockColdUsers(inactiveBefore, staleBefore, batchSize);
+                    userArchive.archive(ids, now);
+                    return ids;
+                });
+                long lockNanos = System.nanoTime() - chunkStartedAt;
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                userArchive.evict(userIds);
+                chunkTimer.record(lockNanos, TimeUnit.NANOSECONDS);
+                longestLockNanos[0] = Math.max(longestLockNanos[0], lockNanos);
+                archived.increment(userIds.size());
+                moved[0] += userIds.size();
+                chunks[0]++;
+                if (userIds.size() < batchSize) {
+                    break;
+                }
+            }
+        });
+
+        runSize.record(moved[0]);
+        if (moved[0] > 0) {
+            log.info("Archived {} users in {} chunks of up to {} in {} ms (longest lock {} ms)", moved[0], chunks[0],
+                    batchSize, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+                    TimeUnit.NANOSECONDS.toMillis(longestLockNanos[0]));
+        }
+        return moved[0];
+    }
+}
@@ -0,0 +1,200 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.sharding.UserShards;
+import com.devops.microservice.util.BloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filters of every taken username and email, in front of the signup availability checks.
+ * A miss proves the name is free without a query; a hit may be a false positive and falls through
+ * to the exact lookup. Names are added when a change publishes its event, before it commits, so a
+ * rollback only costs a false positive. Freed names cannot be removed and stay "possibly taken"
+ * until the next rebuild from a scan of the hot and archived users. Until the first build every
+ * check goes to the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserAvailabilityFilter {
+
+    /**
+     * Names added this long before a rebuild started are replayed into the new filters, covering
+     * changes whose transaction had not committed when the scan read past them
+     */
+    private static final long REPLAY_GRACE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final UserShards userShards;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.users.availability.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${app.users.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private final Map<String, Long> recentUsernames = new ConcurrentHashMap<>();
+    private final Map<String, Long> recentEmails = new ConcurrentHashMap<>();
+
+    private volatile Filters filters;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        // Not read-only: a replica that lags behind could miss a fresh user and report its name free
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Gauge.builder("users.availability.filter.bytes", this, filter -> filter.filters == null ? 0
+                        : filter.filters.usernames().memoryBytes() + filter.filters.emails().memoryBytes())
+                .description("Memory held by the username and email Bloom filters")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("users.availability.filter.fpp", this, filter -> filter.expectedFalsePositiveRate(true))
+                .description("Expected false-positive rate of the username filter at its current fill")
+                .tag("field", "username")
+                .register(meterRegistry);
+        Gauge.builder("users.availability.filter.fpp", this, filter -> filter.expectedFalsePositiveRate(false))
+                .description("Expected false-positive rate of the email filter at its current fill")
+                .tag("field", "email")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a user holds the username; only possible hits run the exact check
+     */
+    public boolean isUsernameTaken(String username, Predicate<String> exactCheck) {
+        Filters current = filters;
+        return isTaken("username", username, current == null ? null : current.usernames(), exactCheck);
+    }
+
+    /**
+     * Whether a user holds the email; only possible hits run the exact check
+     */
+    public boolean isEmailTaken(String email, Predicate<String> exactCheck) {
+        Filters current = filters;
+        return isTaken("email", email, current == null ? null : current.emails(), exactCheck);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        UserSnapshot after = event.getAfter();
+        if (after == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        String username = normalize(after.getUsername());
+        String email = normalize(after.getEmail());
+        recentUsernames.put(username, now);
+        recentEmails.put(email, now);
+        Filters current = filters;
+        if (current != null) {
+            current.add(username, email);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not build the availability filters, checks will query the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild both filters from the user tables, dropping names that have been freed since the last build
+     */
+    @Scheduled(initialDelayString = "${app.users.availability.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${app.users.availability.rebuild-interval-ms:21600000}")
+    public synchronized void rebuild() {
+        long startedAt = System.nanoTime();
+        long expected = Math.max(expectedUsers, filters == null ? 0 : filters.count().get() * 2);
+        Filters rebuilt = new Filters(BloomFilter.create(expected, falsePositiveRate),
+                BloomFilter.create(expected, falsePositiveRate), new AtomicLong());
+
+        userShards.forEach(shard -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> users = userRepository.streamUsernamesAndEmails()) {
+                users.forEach(user -> rebuilt.add(normalize((String) user[0]), normalize((String) user[1])));
+            }
+            try (Stream<Object[]> users = archivedUserRepository.streamUsernamesAndEmails()) {
+                users.forEach(user -> rebuilt.add(normalize((String) user[0]), normalize((String) user[1])));
+            }
+        }));
+
+        long replayFrom = startedAt - REPLAY_GRACE_NANOS;
+        recentUsernames.values().removeIf(addedAt -> addedAt - replayFrom < 0);
+        recentEmails.values().removeIf(addedAt -> addedAt - replayFrom < 0);
+        recentUsernames.keySet().forEach(rebuilt.usernames()::put);
+        recentEmails.keySet().forEach(rebuilt.emails()::put);
+        filters = rebuilt;
+        // Names added between the replay and the swap went to the old filters only
+        recentUsernames.keySet().forEach(rebuilt.usernames()::put);
+        recentEmails.keySet().forEach(rebuilt.emails()::put);
+
+        log.info("Built availability filters over {} users in {} ms: {} KB, expected false-positive rate {}",
+                rebuilt.count().get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+                (rebuilt.usernames().memoryBytes() + rebuilt.emails().memoryBytes()) / 1024,
+                String.format(Locale.ROOT, "%.4f", expectedFalsePositiveRate(true)));
+    }
+
+    private boolean isTaken(String field, String name, BloomFilter filter, Predicate<String> exactCheck) {
+        if (filter != null && !filter.mightContain(normalize(name))) {
+            meterRegistry.counter("users.availability.checks", "field", field, "result", "filtered").increment();
+            return false;
+        }
+        boolean taken = exactCheck.test(name);
+        meterRegistry.counter("users.availability.checks", "field", field, "result", "queried").increment();
+        if (filter != null && !taken) {
+            meterRegistry.counter("users.availability.false.positives", "field", field).increment();
+        }
+        return taken;
+    }
+
+    private double expectedFalsePositiveRate(boolean usernames) {
+        Filters current = filters;
+        if (current == null) {
+            return 1;
+        }
+        return (usernames ? current.usernames() : current.emails()).expectedFalsePositiveRate(current.count().get());
+    }
+
+    /**
+     * The database compares usernames and emails without case
+     */
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails, AtomicLong count) {
+
+        void add(String username, String email) {
+            usernames.put(username);
+            emails.put(email);
+            count.incrementAndGet();
+        }
+    }
+}
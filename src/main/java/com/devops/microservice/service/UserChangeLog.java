@@ -0,0 +1,236 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.UserChange;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.UserChangeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cross-node invalidation through the shared {@code user_changes} table, with no broker.
+ * Every {@link UserChangedEvent} is appended in the transaction that made the change. Each node
+ * polls the entries past its high-water mark, skips its own, coalesces them per user and publishes
+ * them again locally, so the caches and registries listening for the event catch up with changes
+ * made on other nodes, the second-level cache included (see {@link UserEntityCacheEvictor}). Republished events are not logged again: they are published outside a
+ * transaction, where the before-commit listener does not run.
+ * <p>
+ * Ids are assigned at insert but become visible at commit, so a smaller id can appear after a
+ * larger one. Ids skipped over are re-read on later polls until they appear or
+ * {@code gap-timeout-ms} passes (rolled-back inserts never appear). Listeners do not depend on
+ * the order of changes, so a late entry can be applied after newer ones.
+ */
+@Component
+@ConditionalOnProperty(name = "app.users.changelog.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class UserChangeLog {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Upper bound on tracked gaps, in case ids advance in steps (e.g. auto_increment_increment > 1)
+     */
+    private static final int MAX_GAPS = 10_000;
+
+    private final UserChangeRepository changeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.users.changelog.node-id:}")
+    private String nodeId;
+
+    @Value("${app.users.changelog.gap-timeout-ms:60000}")
+    private long gapTimeoutMs;
+
+    @Value("${app.users.changelog.retention-ms:3600000}")
+    private long retentionMs;
+
+    /**
+     * Highest id already seen
+     */
+    private volatile long highWaterMark;
+
+    /**
+     * Ids below the high-water mark that have not been seen yet, with the time they were first missed
+     */
+    private final Map<Long, Instant> gaps = new ConcurrentHashMap<>();
+
+    private Timer lag;
+    private Counter applied;
+
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        // State loaded at startup already reflects every committed change
+        Long maxId = changeRepository.findMaxId();
+        highWaterMark = maxId != null ? maxId : 0;
+
+        lag = Timer.builder("users.changelog.lag")
+                .description("Time from a change on another node to its application on this one")
+                .register(meterRegistry);
+        applied = meterRegistry.counter("users.changelog.applied");
+        Gauge.builder("users.changelog.gaps", gaps, Map::size)
+                .description("Change log ids skipped over and still awaited")
+                .register(meterRegistry);
+        log.info("User change log enabled for node {} from id {}", nodeId, highWaterMark);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void append(UserChangedEvent event) {
+        changeRepository.save(UserChange.builder()
+                .userId(event.getUserId())
+                .kind(event.getType())
+                .origin(nodeId)
+                .payload(write(new Payload(event.getBefore(), event.getAfter())))
+                .changedAt(event.getChangedAt())
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.changelog.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            Instant now = Instant.now();
+            List<UserChange> changes = new ArrayList<>();
+            if (!gaps.isEmpty()) {
+                for (UserChange late : changeRepository.findByIdIn(List.copyOf(gaps.keySet()))) {
+                    gaps.remove(late.getId());
+                    changes.add(late);
+                }
+                gaps.values().removeIf(missedAt -> Duration.between(missedAt, now).toMillis() > gapTimeoutMs);
+            }
+
+            List<UserChange> batch;
+            do {
+                batch = changeRepository.findTop500ByIdGreaterThanOrderByIdAsc(highWaterMark);
+                for (UserChange change : batch) {
+                    for (long missing = highWaterMark + 1; missing < change.getId() && gaps.size() < MAX_GAPS; missing++) {
+                        gaps.put(missing, now);
+                    }
+                    highWaterMark = change.getId();
+                    changes.add(change);
+                }
+            } while (batch.size() == BATCH_SIZE);
+
+            apply(changes, now);
+        } catch (RuntimeException e) {
+            log.warn("User change log poll failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.users.changelog.prune-interval-ms:600000}",
+            fixedDelayString = "${app.users.changelog.prune-interval-ms:600000}")
+    @Transactional
+    public void prune() {
+        try {
+            int deleted = changeRepository.deleteOlderThan(Instant.now().minusMillis(retentionMs));
+            if (deleted > 0) {
+                log.debug("Pruned {} user change log entries", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("User change log prune failed: {}", e.getMessage());
+        }
+    }
+
+    private void apply(List<UserChange> changes, Instant now) {
+        List<UserChangedEvent> remote = new ArrayList<>();
+        for (UserChange change : changes) {
+            if (nodeId.equals(change.getOrigin())) {
+                continue;
+            }
+            Payload payload = read(change.getPayload());
+            UserChangedEvent event = switch (change.getKind()) {
+                case CREATED -> UserChangedEvent.created(payload.after());
+                case DELETED -> UserChangedEvent.deleted(payload.before());
+                default -> UserChangedEvent.changed(change.getKind(), payload.before(), payload.after());
+            };
+            remote.add(event.withChangedAt(change.getChangedAt()));
+            lag.record(Duration.between(change.getChangedAt(), now));
+        }
+
+        List<UserChangedEvent> coalesced = coalesce(remote);
+        coalesced.forEach(eventPublisher::publishEvent);
+        applied.increment(coalesced.size());
+        if (!coalesced.isEmpty()) {
+            log.debug("Applied {} user changes from other nodes ({} log entries)", coalesced.size(), remote.size());
+        }
+    }
+
+    /**
+     * Merge the changes to each user into one, spanning the first state before and the last state after.
+     * A user created in the batch stays created unless also deleted; a deletion always wins. The
+     * merged change keeps the time of the latest one.
+     */
+    static List<UserChangedEvent> coalesce(List<UserChangedEvent> events) {
+        Map<Long, UserChangedEvent> byUser = new LinkedHashMap<>();
+        for (UserChangedEvent event : events) {
+            byUser.merge(event.getUserId(), event, (first, next) -> {
+                UserChangedEvent merged;
+                if (next.getType() == UserChangedEvent.Type.DELETED) {
+                    merged = UserChangedEvent.deleted(first.getBefore() != null ? first.getBefore() : next.getBefore());
+                } else if (first.getType() == UserChangedEvent.Type.CREATED) {
+                    merged = UserChangedEvent.created(next.getAfter());
+                } else {
+                    merged = UserChangedEvent.changed(next.getType(), first.getBefore(), next.getAfter());
+                }
+                return merged.withChangedAt(first.getChangedAt().isAfter(next.getChangedAt())
+                        ? first.getChangedAt() : next.getChangedAt());
+            });
+        }
+        return List.copyOf(byUser.values());
+    }
+
+    private String write(Payload payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialise user change", e);
+        }
+    }
+
+    private Payload read(String json) {
+        try {
+            return objectMapper.readValue(json, Payload.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read user change", e);
+        }
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    record Payload(UserSnapshot before, UserSnapshot after) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owner of the {@code COUNT(*)} over users. Exact counts are timed; a cached total is kept in step
+ * by created/deleted events and replaced by a real count on a schedule, which also repairs any
+ * drift from changes that raced a reconciliation. The archive's total is cached the same way, from
+ * archived/restored events, once a listing that includes archived users first asks for it. Listings
+ * that skip the count are tallied so {@code users.count.saved} can estimate the query time avoided.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserCountCache {
+
+    private static final long UNKNOWN = -1;
+
+    private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong cachedTotal = new AtomicLong(UNKNOWN);
+    private final AtomicLong cachedArchivedTotal = new AtomicLong(UNKNOWN);
+    private final AtomicLong skipped = new AtomicLong();
+    private Timer countTimer;
+
+    @PostConstruct
+    void init() {
+        countTimer = meterRegistry.timer("users.count.query");
+        Gauge.builder("users.count.saved", this, UserCountCache::estimatedSecondsSaved)
+                .description("Estimated COUNT(*) time avoided by count-free and cached listings")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count users with a query
+     */
+    public long exactCount() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return userRepository.count();
+        } finally {
+            sample.stop(countTimer);
+        }
+    }
+
+    /**
+     * The cached total, counted on first use
+     */
+    public long cachedCount() {
+        long total = cachedTotal.get();
+        return total != UNKNOWN ? total : reconcile();
+    }
+
+    /**
+     * The cached total of archived users, counted on first use
+     */
+    public long cachedArchivedCount() {
+        long total = cachedArchivedTotal.get();
+        return total != UNKNOWN ? total : reconcileArchived();
+    }
+
+    /**
+     * Note a listing that was served without running the count
+     */
+    public void recordSkipped(CountMode mode) {
+        skipped.incrementAndGet();
+        meterRegistry.counter("users.count.skipped", "mode", mode.name().toLowerCase(Locale.ROOT)).increment();
+    }
+
+    @Scheduled(initialDelayString = "${app.users.count-cache.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.users.count-cache.reconcile-interval-ms:300000}")
+    public long reconcile() {
+        long actual = exactCount();
+        long previous = cachedTotal.getAndSet(actual);
+        if (previous != UNKNOWN && previous != actual) {
+            log.debug("Cached user count drifted by {}, reset to {}", actual - previous, actual);
+        }
+        if (cachedArchivedTotal.get() != UNKNOWN) {
+            reconcileArchived();
+        }
+        return actual;
+    }
+
+    private long reconcileArchived() {
+        long actual = archivedUserRepository.count();
+        long previous = cachedArchivedTotal.getAndSet(actual);
+        if (previous != UNKNOWN && previous != actual) {
+            log.debug("Cached archived user count drifted by {}, reset to {}", actual - previous, actual);
+        }
+        return actual;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.CREATED || event.getType() == UserChangedEvent.Type.RESTORED) {
+            increment(cachedTotal);
+        } else if (event.getType() == UserChangedEvent.Type.DELETED || event.getType() == UserChangedEvent.Type.ARCHIVED) {
+            decrement(cachedTotal);
+        }
+        // Only users in the hot table can be deleted, so the archive moves on archiving and restoring alone
+        if (event.getType() == UserChangedEvent.Type.ARCHIVED) {
+            increment(cachedArchivedTotal);
+        } else if (event.getType() == UserChangedEvent.Type.RESTORED) {
+            decrement(cachedArchivedTotal);
+        }
+    }
+
+    private static void increment(AtomicLong cached) {
+        cached.updateAndGet(total -> total == UNKNOWN ? UNKNOWN : total + 1);
+    }
+
+    private static void decrement(AtomicLong cached) {
+        cached.updateAndGet(total -> total == UNKNOWN ? UNKNOWN : Math.max(0, total - 1));
+    }
+
+    private double estimatedSecondsSaved() {
+        return skipped.get() * countTimer.mean(TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,84 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.User;
+import com.devops.microservice.exception.InvalidPageRequestException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Position in a keyset-paginated user listing: the sort, the {@code (sortKey, id)} of the row to
+ * continue from, and whether to read forward (next page) or backward (previous page).
+ * Clients only see it as an opaque URL-safe string.
+ */
+public record UserCursor(UserSortKey sortKey, Sort.Direction direction, boolean backward, String value, long id) {
+
+    private static final byte VERSION = 1;
+
+    /**
+     * Cursor continuing after (or, backward, before) the given user
+     */
+    public static UserCursor of(UserSortKey sortKey, Sort.Direction direction, boolean backward, User user) {
+        return new UserCursor(sortKey, direction, backward, sortKey.valueOf(user), user.getId());
+    }
+
+    /**
+     * Keyset position for Spring Data's scroll queries
+     */
+    public ScrollPosition toScrollPosition() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (sortKey != UserSortKey.ID) {
+            keys.put(sortKey.getProperty(), sortKey.parse(value));
+        }
+        keys.put(UserSortKey.ID.getProperty(), id);
+        return backward ? ScrollPosition.backward(keys) : ScrollPosition.forward(keys);
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(sortKey.name());
+            out.writeBoolean(direction.isDescending());
+            out.writeBoolean(backward);
+            out.writeUTF(value);
+            out.writeLong(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @throws InvalidPageRequestException if the string is not a cursor produced by {@link #encode()}
+     */
+    public static UserCursor decode(String cursor) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readByte() != VERSION) {
+                throw new InvalidPageRequestException("Unsupported cursor version");
+            }
+            UserSortKey sortKey = UserSortKey.valueOf(in.readUTF());
+            Sort.Direction direction = in.readBoolean() ? Sort.Direction.DESC : Sort.Direction.ASC;
+            boolean backward = in.readBoolean();
+            String value = in.readUTF();
+            long id = in.readLong();
+            // Fail here rather than in the query if the value does not match the key's type
+            sortKey.parse(value);
+            return new UserCursor(sortKey, direction, backward, value, id);
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof InvalidPageRequestException invalid) {
+                throw invalid;
+            }
+            throw new InvalidPageRequestException("Invalid cursor", e);
+        }
+    }
+}
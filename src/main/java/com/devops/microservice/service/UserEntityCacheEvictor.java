@@ -0,0 +1,76 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.User;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.NaturalIdMapping;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+
+/**
+ * Evicts a changed user from the Hibernate second-level cache: the entity ({@code users}), its
+ * role set ({@code user_roles}) and its username mapping ({@code users_by_username}). The regions
+ * are local to each node, so without this a node would keep serving a user deactivated, renamed
+ * or given a new password on another node until the entry expired. Changes made on other nodes
+ * reach this listener through {@link UserChangeLog}; on the node that made the change Hibernate
+ * has already updated its cache and the eviction only costs one reload.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserEntityCacheEvictor {
+
+    private static final String ROLES_ROLE = User.class.getName() + ".roles";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Long userId = event.getUserId();
+        if (userId == null) {
+            return;
+        }
+        Cache cache = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache();
+        cache.evictEntityData(User.class, userId);
+        cache.evictCollectionData(ROLES_ROLE, userId);
+        evictUsernames(usernames(event.getBefore(), event.getAfter()));
+        log.debug("Evicted user {} from the second-level cache after {}", userId, event.getType());
+    }
+
+    private void evictUsernames(String... usernames) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(User.class);
+        NaturalIdMapping naturalId = persister.getNaturalIdMapping();
+        NaturalIdDataAccess access = naturalId.getCacheAccess();
+        if (access == null) {
+            return;
+        }
+        // Keys are built from a session; a stateless one opens no connection for it
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (String username : usernames) {
+                access.evict(access.generateCacheKey(naturalId.normalizeInput(username), persister,
+                        (SharedSessionContractImplementor) session));
+            }
+        }
+    }
+
+    private static String[] usernames(UserSnapshot before, UserSnapshot after) {
+        String previous = before != null ? before.getUsername() : null;
+        String current = after != null ? after.getUsername() : null;
+        if (previous == null || Objects.equals(previous, current)) {
+            return current == null ? new String[0] : new String[]{current};
+        }
+        return current == null ? new String[]{previous} : new String[]{previous, current};
+    }
+}
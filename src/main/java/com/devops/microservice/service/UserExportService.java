@@ -0,0 +1,43 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.dto.request.UserExportFilter;
+import com.devops.microservice.exception.InvalidPageRequestException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Service interface for exporting every user in one pass
+ */
+public interface UserExportService {
+
+    /**
+     * Supported export formats
+     */
+    enum Format {
+        /** One JSON user object per line */
+        NDJSON,
+        /** A header line, then one user per line */
+        CSV;
+
+        /**
+         * @throws InvalidPageRequestException if the value names no format
+         */
+        public static Format fromParam(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidPageRequestException("Unknown export format '" + value + "', allowed: ndjson, csv", e);
+            }
+        }
+    }
+
+    /**
+     * Write every user matching the filter to the output in id order. Users are streamed from the
+     * database and written as they arrive, so memory use does not depend on how many are exported.
+     *
+     * @return the number of users written
+     */
+    long exportUsers(UserExportFilter filter, Format format, OutputStream out) throws IOException;
+}
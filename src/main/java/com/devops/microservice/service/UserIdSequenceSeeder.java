@@ -0,0 +1,57 @@
+package com.devops.microservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the users id sequence past the ids already stored before anything inserts users.
+ * Databases that predate the sequence numbered users with auto_increment; when Hibernate creates
+ * the MySQL {@code users_seq} table for them ({@code ddl-auto=update}) it starts at 1, and the
+ * first inserts would collide. Migrations seed the table themselves (db/migration V4); this covers
+ * databases Hibernate manages. Sharded shards other than 0 get their own ranges from ShardBootstrap.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserIdSequenceSeeder {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Only injected so the schema exists before seeding
+     */
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void seed() {
+        try {
+            long next = maxId("users") + 1;
+            try {
+                next = Math.max(next, maxId("users_archive") + 1);
+            } catch (BadSqlGrammarException e) {
+                // No archive table yet
+            }
+            // pooled-lo: the stored value is the first id of the next block
+            int raised = jdbcTemplate.update("UPDATE users_seq SET next_val = ? WHERE next_val < ?", next, next);
+            if (raised > 0) {
+                log.info("Moved the users id sequence to {}, past the stored users", next);
+            }
+        } catch (BadSqlGrammarException e) {
+            // A real sequence (H2), which only Hibernate-created, empty schemas use here
+            log.debug("users_seq is not a table, leaving it alone: {}", e.getMessage());
+        } catch (DataAccessException e) {
+            log.warn("Could not check the users id sequence against stored users: {}", e.getMessage());
+        }
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+}
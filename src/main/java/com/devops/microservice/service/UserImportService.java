@@ -0,0 +1,28 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.dto.response.UserImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service interface for bulk user imports
+ */
+public interface UserImportService {
+
+    /**
+     * Supported upload formats
+     */
+    enum Format {
+        /** One JSON object per line, with the fields of a registration request */
+        NDJSON,
+        /** A header line naming the columns, then one user per line */
+        CSV
+    }
+
+    /**
+     * Create users from a stream of registration rows. The stream is read row by row, never
+     * buffered whole; invalid or conflicting rows are reported and skipped.
+     */
+    UserImportResult importUsers(InputStream body, Format format) throws IOException;
+}
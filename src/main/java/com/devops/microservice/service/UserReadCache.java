@@ -0,0 +1,73 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Locale;
+
+/**
+ * Names of the caches in front of the {@link UserService} lookups, and their eviction.
+ * Every change to a user publishes a {@link UserChangedEvent}; once it commits, the entries for
+ * the user's id and for both its old and new username and email are evicted, including cached
+ * misses. Lookups load with {@code sync = true}, so an eviction waits for a load of the same key
+ * that is still in flight and a value read before the commit cannot be cached after it. They also
+ * load from the primary rather than a read replica, which may not have the commit yet and would
+ * put the old value straight back. Usernames and emails are cached lower-cased
+ * ({@link #NORMALIZED_KEY}), as the database compares them without case.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserReadCache {
+
+    public static final String BY_ID = "users-by-id";
+    public static final String BY_USERNAME = "users-by-username";
+    public static final String BY_EMAIL = "users-by-email";
+    public static final String USERNAME_EXISTS = "username-exists";
+    public static final String EMAIL_EXISTS = "email-exists";
+
+    /**
+     * Cache key of the username and email lookups
+     */
+    public static final String NORMALIZED_KEY = "T(com.devops.microservice.service.UserReadCache).normalize(#p0)";
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(BY_ID, event.getUserId());
+        evictNames(event.getBefore());
+        evictNames(event.getAfter());
+        log.debug("Evicted cached lookups for user {} ({})", event.getUserId(), event.getType());
+    }
+
+    private void evictNames(UserSnapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        evict(BY_USERNAME, normalize(snapshot.getUsername()));
+        evict(USERNAME_EXISTS, normalize(snapshot.getUsername()));
+        evict(BY_EMAIL, normalize(snapshot.getEmail()));
+        evict(EMAIL_EXISTS, normalize(snapshot.getEmail()));
+    }
+
+    /**
+     * Cache key of a username or email
+     */
+    public static String normalize(String name) {
+        return name != null ? name.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+    }
+}
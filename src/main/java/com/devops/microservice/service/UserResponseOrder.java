@@ -0,0 +1,45 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.exception.InvalidPageRequestException;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+
+/**
+ * A listing's order applied to responses in memory, for listings merged from several queries.
+ * Strings ignore case, as the database collation does; the id breaks ties.
+ */
+public final class UserResponseOrder {
+
+    private UserResponseOrder() {
+    }
+
+    public static Comparator<UserResponse> of(Sort sort) {
+        Comparator<UserResponse> order = (a, b) -> 0;
+        for (Sort.Order sortOrder : sort) {
+            Comparator<UserResponse> byProperty = Comparator.comparing(
+                    user -> property(user, sortOrder.getProperty()), Comparator.nullsFirst(UserResponseOrder::compareValues));
+            order = order.thenComparing(sortOrder.isDescending() ? byProperty.reversed() : byProperty);
+        }
+        return order.thenComparing(UserResponse::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    private static Object property(UserResponse user, String property) {
+        try {
+            return new BeanWrapperImpl(user).getPropertyValue(property);
+        } catch (BeansException e) {
+            throw new InvalidPageRequestException("Cannot sort users by '" + property + "'", e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof String left && b instanceof String right) {
+            return String.CASE_INSENSITIVE_ORDER.compare(left, right);
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+}
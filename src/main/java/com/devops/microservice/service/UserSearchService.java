@@ -0,0 +1,21 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.dto.response.UserSearchResult;
+import com.devops.microservice.entity.Role;
+
+import java.util.List;
+
+/**
+ * Service interface for searching users by partial username, email, first or last name
+ */
+public interface UserSearchService {
+
+    /**
+     * Find the best matching users. Every whitespace-separated term must occur in one of the
+     * fields; terms shorter than three characters match field prefixes only.
+     *
+     * @param role   only users with this role, or any role if null
+     * @param active only users with this active flag, or all users if null
+     */
+    List<UserSearchResult> searchUsers(String query, Role.RoleName role, Boolean active, int limit);
+}
@@ -1,10 +1,14 @@
 package com.devops.microservice.service;
 
+import com.devops.microservice.dto.request.UserListFilter;
 import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.CursorPage;
 import com.devops.microservice.dto.response.UserResponse;
 import com.devops.microservice.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 import java.util.Optional;
@@ -39,6 +43,28 @@ public interface UserService {
      */
     Page<UserResponse> getAllUsers(Pageable pageable);
 
+    /**
+     * Get all users with pagination, obtaining the total as the count mode says;
+     * {@link CountMode#NONE} returns a {@link Slice} without a total
+     */
+    Slice<UserResponse> getAllUsers(Pageable pageable, CountMode countMode);
+
+    /**
+     * As {@link #getAllUsers(Pageable, CountMode)}, optionally merging in archived users
+     */
+    Slice<UserResponse> getAllUsers(Pageable pageable, CountMode countMode, boolean includeArchived);
+
+    /**
+     * As {@link #getAllUsers(Pageable, CountMode, boolean)}, listing only the users matching the filter.
+     * The cached total covers every user, so a filtered {@link CountMode#CACHED} listing has no total.
+     */
+    Slice<UserResponse> getAllUsers(UserListFilter filter, Pageable pageable, CountMode countMode, boolean includeArchived);
+
+    /**
+     * Get one page of users by keyset position; a cursor carries its own sort and overrides the given one
+     */
+    CursorPage<UserResponse> getUsers(UserSortKey sortKey, Sort.Direction direction, int size, String cursor);
+
     /**
      * Update user
      */
@@ -75,9 +101,9 @@ public interface UserService {
     boolean existsByEmail(String email);
 
     /**
-     * Update user last login
+     * Record user last login; the write happens later in a batched flush
      */
-    void updateLastLogin(String username);
+    void updateLastLogin(Long userId);
 
     /**
      * Convert User entity to UserResponse DTO
@@ -0,0 +1,71 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.User;
+import com.devops.microservice.exception.InvalidPageRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Columns users can be listed by. Each one is non-null and indexed, and is paired with
+ * {@code id} as a tie-breaker so every position in the ordering is unique.
+ */
+public enum UserSortKey {
+
+    CREATED_AT("createdAt", User::getCreatedAt, LocalDateTime::parse),
+    USERNAME("username", User::getUsername, Function.identity()),
+    EMAIL("email", User::getEmail, Function.identity()),
+    ID("id", User::getId, Long::valueOf);
+
+    private final String property;
+    private final Function<User, Object> extractor;
+    private final Function<String, Object> parser;
+
+    UserSortKey(String property, Function<User, ?> extractor, Function<String, ?> parser) {
+        this.property = property;
+        this.extractor = extractor::apply;
+        this.parser = parser::apply;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Ordering for this key, with {@code id} in the same direction as the tie-breaker
+     */
+    public Sort sort(Sort.Direction direction) {
+        Sort sort = Sort.by(direction, property);
+        return this == ID ? sort : sort.and(Sort.by(direction, ID.property));
+    }
+
+    /**
+     * The user's value for this key, as written into a cursor
+     */
+    public String valueOf(User user) {
+        return String.valueOf(extractor.apply(user));
+    }
+
+    /**
+     * Read a value written by {@link #valueOf(User)} back into the property's type
+     */
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    /**
+     * Look up a sort key by its property name
+     *
+     * @throws InvalidPageRequestException if users cannot be listed by the property
+     */
+    public static UserSortKey fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(key -> key.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new InvalidPageRequestException("Cannot page by '" + property + "', allowed: "
+                        + Arrays.stream(values()).map(UserSortKey::getProperty).collect(Collectors.joining(", "))));
+    }
+}
@@ -0,0 +1,14 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.dto.response.UserStatsResponse;
+
+/**
+ * Service interface for user totals by role, status and signup day
+ */
+public interface UserStatsService {
+
+    /**
+     * Current totals, read from counters kept in step with user changes rather than counted
+     */
+    UserStatsResponse getUserStats();
+}
@@ -2,22 +2,36 @@ package com.devops.microservice.service.impl;
 
 import com.devops.microservice.dto.request.LoginRequest;
 import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.AvailabilityResponse;
 import com.devops.microservice.dto.response.JwtResponse;
 import com.devops.microservice.dto.response.UserResponse;
 import com.devops.microservice.security.jwt.JwtUtils;
+import com.devops.microservice.security.jwt.VerifiedToken;
+import com.devops.microservice.security.revocation.TokenRevocationService;
+import com.devops.microservice.security.revocation.TokenWatermarkRegistry;
+import com.devops.microservice.security.service.LoginAttemptThrottle;
 import com.devops.microservice.security.service.UserDetailsImpl;
+import com.devops.microservice.security.service.UserDetailsServiceImpl;
 import com.devops.microservice.service.AuthService;
+import com.devops.microservice.service.UserAvailabilityFilter;
 import com.devops.microservice.service.UserService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -33,30 +47,50 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
     private final UserService userService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationService revocationService;
+    private final TokenWatermarkRegistry tokenWatermarks;
+    private final LoginAttemptThrottle loginThrottle;
+    private final UserAvailabilityFilter availabilityFilter;
 
     @Override
     public JwtResponse authenticateUser(LoginRequest loginRequest) {
+        return authenticateUser(loginRequest, null);
+    }
+
+    @Override
+    public JwtResponse authenticateUser(LoginRequest loginRequest, String clientIp) {
         log.info("Authenticating user: {}", loginRequest.getUsername());
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getUsername(), 
-                        loginRequest.getPassword()
-                )
-        );
+        // Refuse throttled attempts before the user lookup and password hash
+        loginThrottle.checkAllowed(loginRequest.getUsername(), clientIp);
+
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getUsername(), 
+                            loginRequest.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException e) {
+            loginThrottle.recordFailure(loginRequest.getUsername(), clientIp);
+            throw e;
+        }
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
         String jwt = jwtUtils.generateJwtToken(authentication);
-        String refreshToken = jwtUtils.generateRefreshToken(loginRequest.getUsername());
+        String refreshToken = jwtUtils.generateRefreshToken(userDetails);
 
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         Set<String> roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toSet());
 
         // Update last login
-        userService.updateLastLogin(userDetails.getUsername());
+        userService.updateLastLogin(userDetails.getId());
 
         log.info("User authenticated successfully: {}", loginRequest.getUsername());
 
@@ -78,47 +112,99 @@ public class AuthServiceImpl implements AuthService {
         return userService.registerUser(registrationRequest);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AvailabilityResponse checkAvailability(String username, String email) {
+        // No transaction here: an answer from the filters must not take a connection
+        return AvailabilityResponse.builder()
+                .username(username)
+                .usernameAvailable(username == null ? null
+                        : !availabilityFilter.isUsernameTaken(username, userService::existsByUsername))
+                .email(email)
+                .emailAvailable(email == null ? null
+                        : !availabilityFilter.isEmailTaken(email, userService::existsByEmail))
+                .build();
+    }
+
     @Override
     public JwtResponse refreshToken(String refreshToken) {
         log.info("Refreshing token");
 
-        if (!jwtUtils.validateJwtToken(refreshToken)) {
+        VerifiedToken verified;
+        try {
+            verified = jwtUtils.verifyToken(refreshToken);
+        } catch (ExpiredJwtException e) {
+            throw new RuntimeException("Refresh token has expired");
+        } catch (JwtException | IllegalArgumentException e) {
             throw new RuntimeException("Invalid refresh token");
         }
 
-        if (jwtUtils.isTokenExpired(refreshToken)) {
-            throw new RuntimeException("Refresh token has expired");
+        UserDetailsImpl userDetails;
+        try {
+            Long userId = jwtUtils.getUserId(verified);
+            userDetails = (UserDetailsImpl) (userId != null
+                    ? userDetailsService.loadUserById(userId)
+                    : userDetailsService.loadUserByUsername(verified.getSubject()));
+        } catch (UsernameNotFoundException e) {
+            throw new RuntimeException("User not found");
+        }
+
+        if (!userDetails.isEnabled()) {
+            throw new RuntimeException("User account is deactivated");
         }
 
-        String username = jwtUtils.getUsernameFromJwtToken(refreshToken);
-        String newJwtToken = jwtUtils.generateTokenFromUsername(username);
-        String newRefreshToken = jwtUtils.generateRefreshToken(username);
+        if (revocationService.isRevoked(verified)
+                || tokenWatermarks.isInvalidated(userDetails.getId(), verified.getIssuedAt())) {
+            throw new RuntimeException("Refresh token has been revoked");
+        }
+
+        String newJwtToken = jwtUtils.generateAccessToken(userDetails);
+        String newRefreshToken = jwtUtils.generateRefreshToken(userDetails);
 
-        UserResponse userResponse = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Set<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet());
 
-        log.info("Token refreshed successfully for user: {}", username);
+        log.info("Token refreshed successfully for user: {}", userDetails.getUsername());
 
         return JwtResponse.builder()
                 .token(newJwtToken)
                 .refreshToken(newRefreshToken)
                 .type("Bearer")
-                .id(userResponse.getId())
-                .username(userResponse.getUsername())
-                .email(userResponse.getEmail())
-                .roles(userResponse.getRoles())
+                .id(userDetails.getId())
+                .username(userDetails.getUsername())
+                .email(userDetails.getEmail())
+                .roles(roles)
                 .expiresIn(jwtUtils.getJwtExpirationInSeconds())
                 .build();
     }
 
     @Override
     public void logout(String token) {
+        logout(token, null);
+    }
+
+    @Override
+    public void logout(String token, String refreshToken) {
         log.info("Logging out user");
-        // In a real application, you would typically:
-        // 1. Add the token to a blacklist
-        // 2. Store it in Redis with expiration time
-        // 3. Or use a token revocation mechanism
+        // Tokens that no longer verify are already unusable, so there is nothing to revoke
+        Optional<VerifiedToken> access = jwtUtils.parseVerifiedToken(token);
+        access.ifPresent(revocationService::revoke);
+        if (refreshToken != null && access.isPresent()) {
+            // Only the caller's own refresh token; a token of someone else's is left alone
+            jwtUtils.parseVerifiedToken(refreshToken)
+                    .filter(refresh -> Objects.equals(username(refresh), username(access.get())))
+                    .ifPresent(revocationService::revoke);
+        }
         SecurityContextHolder.clearContext();
         log.info("User logged out successfully");
     }
+
+    /**
+     * Tokens keyed by user id carry the username in a claim; the others have it as subject
+     */
+    private static String username(VerifiedToken token) {
+        String username = token.getClaim(JwtUtils.CLAIM_USERNAME, String.class);
+        return username != null ? username : token.getSubject();
+    }
 }
@@ -0,0 +1,53 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.exception.UserAlreadyExistsException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.mapping.Constraint;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Maps unique-constraint violations on the users table to the conflict messages shown to clients
+ */
+final class UserConstraintViolations {
+
+    static final String USERNAME_TAKEN = "Username is already taken!";
+    static final String EMAIL_IN_USE = "Email is already in use!";
+
+    /**
+     * Hibernate folds uk_users_username into the natural id's unique key and names it itself,
+     * so schemas it generates (ddl-auto) carry this name instead
+     */
+    private static final String NATURAL_ID_KEY =
+            ("UK" + Constraint.hashedName("users_NaturalID")).toLowerCase(Locale.ROOT);
+
+    private UserConstraintViolations() {
+    }
+
+    /**
+     * Translate a unique-constraint violation on users into the matching conflict message.
+     * Matches the named constraints, the column-named keys of schemas created before they were named,
+     * and the natural-id key of generated schemas (by name, or by its column where the key is unnamed).
+     * Any other integrity error is returned unchanged.
+     */
+    static RuntimeException translate(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException violation) || violation.getConstraintName() == null) {
+            return e;
+        }
+        String constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+        if (isUniqueKey(constraint, "uk_users_username", "username") || constraint.contains(NATURAL_ID_KEY)) {
+            return new UserAlreadyExistsException(USERNAME_TAKEN, e);
+        }
+        if (isUniqueKey(constraint, "uk_users_email", "email")) {
+            return new UserAlreadyExistsException(EMAIL_IN_USE, e);
+        }
+        return e;
+    }
+
+    private static boolean isUniqueKey(String constraint, String name, String column) {
+        return constraint.contains(name) || constraint.equals(column) || constraint.endsWith("." + column)
+                // H2 reports unnamed keys by their index, e.g. "CONSTRAINT_INDEX_4D ON PUBLIC.USERS(USERNAME NULLS FIRST)"
+                || constraint.contains(".users(" + column + " ") || constraint.contains(".users(" + column + ")");
+    }
+}
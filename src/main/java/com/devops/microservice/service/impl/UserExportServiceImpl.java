@@ -0,0 +1,151 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.request.UserExportFilter;
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.repository.projection.UserRow;
+import com.devops.microservice.service.UserExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Service implementation for user exports.
+ * Rows come from a forward-only, read-only cursor over a projection, so no entity is ever put in
+ * the persistence context. They are written in chunks: each chunk loads its roles with one IN query,
+ * is serialized and flushed to the client, then dropped, which keeps the heap flat however many users
+ * are exported. On MySQL that needs {@code useCursorFetch=true} on the connection URL; without it
+ * Connector/J ignores the fetch size and buffers the whole result set, which is logged at startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserExportServiceImpl implements UserExportService {
+
+    static final String CSV_HEADER = "id,username,email,firstName,lastName,active,emailVerified,roles,createdAt,lastLogin";
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.users.export.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    private Counter exportedRows;
+
+    @PostConstruct
+    void init() {
+        exportedRows = meterRegistry.counter("users.export.rows");
+        if (buffersWholeResultSet(datasourceUrl)) {
+            log.warn("The datasource URL does not set useCursorFetch=true: exports will hold every user in memory");
+        }
+    }
+
+    static boolean buffersWholeResultSet(String url) {
+        return url != null && url.startsWith("jdbc:mysql:") && !url.contains("useCursorFetch=true");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportUsers(UserExportFilter filter, Format format, OutputStream out) throws IOException {
+        long startedAt = System.nanoTime();
+        long written = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try (Stream<UserRow> rows = userRepository.streamRows(filter.getActive(), filter.getEmailVerified(),
+                filter.getRole(), filter.getCreatedFrom(), filter.getCreatedTo())) {
+            List<UserRow> chunk = new ArrayList<>(chunkSize);
+            Iterator<UserRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize) {
+                    written += writeChunk(chunk, format, writer);
+                    chunk.clear();
+                }
+            }
+            written += writeChunk(chunk, format, writer);
+        }
+        writer.flush();
+
+        log.info("User export finished - format: {}, rows: {}, durationMs: {}",
+                format, written, (System.nanoTime() - startedAt) / 1_000_000);
+        return written;
+    }
+
+    private int writeChunk(List<UserRow> chunk, Format format, Writer writer) throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        for (UserResponse user : UserRowResponses.toUserResponses(userRepository::findRoleNamesByUserIds, chunk)) {
+            if (format == Format.CSV) {
+                writeCsvRow(user, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(user));
+            }
+            writer.write('\n');
+        }
+        // Hand the chunk to the client now rather than when the buffer happens to fill
+        writer.flush();
+        exportedRows.increment(chunk.size());
+        return chunk.size();
+    }
+
+    private static void writeCsvRow(UserResponse user, Writer writer) throws IOException {
+        writer.write(String.valueOf(user.getId()));
+        writeCsvField(user.getUsername(), writer);
+        writeCsvField(user.getEmail(), writer);
+        writeCsvField(user.getFirstName(), writer);
+        writeCsvField(user.getLastName(), writer);
+        writeCsvField(String.valueOf(user.getIsActive()), writer);
+        writeCsvField(String.valueOf(user.getIsEmailVerified()), writer);
+        writeCsvField(String.join("|", user.getRoles().stream().sorted().toList()), writer);
+        writeCsvField(format(user.getCreatedAt()), writer);
+        writeCsvField(format(user.getLastLogin()), writer);
+    }
+
+    /**
+     * Append a comma and the value, quoted when it contains a separator, quote or line break
+     */
+    static void writeCsvField(String value, Writer writer) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String format(LocalDateTime time) {
+        return time == null ? null : time.toString();
+    }
+}
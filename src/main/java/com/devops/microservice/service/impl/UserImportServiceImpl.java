@@ -0,0 +1,393 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.UserImportResult;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.exception.InvalidImportException;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.service.RoleRegistry;
+import com.devops.microservice.service.UserImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Service implementation for bulk user imports.
+ * Rows are read one line at a time and collected into chunks. Each chunk is checked against the
+ * existing and archived users with IN queries, hashed in parallel on a dedicated fork-join pool and inserted
+ * in one transaction, which Hibernate sends as JDBC batches now that user ids come from a sequence.
+ * A chunk that still hits a unique constraint (a concurrent registration) is retried row by row.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of("username", "email", "password", "firstname", "lastname");
+
+    private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final RoleRegistry roleRegistry;
+    private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.users.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.users.import.hashing-parallelism:0}")
+    private int hashingParallelism;
+
+    @Value("${app.users.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${app.sharding.enabled:false}")
+    private boolean sharded;
+
+    private ForkJoinPool hashingPool;
+    private Counter importedRows;
+    private Counter failedRows;
+
+    @PostConstruct
+    void init() {
+        int parallelism = hashingParallelism > 0 ? hashingParallelism : Runtime.getRuntime().availableProcessors();
+        hashingPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("user-import-hashing-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        importedRows = meterRegistry.counter("users.import.rows", "result", "imported");
+        failedRows = meterRegistry.counter("users.import.rows", "result", "failed");
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        hashingPool.shutdown();
+        if (!hashingPool.awaitTermination(10, TimeUnit.SECONDS)) {
+            hashingPool.shutdownNow();
+        }
+    }
+
+    @Override
+    public UserImportResult importUsers(InputStream body, Format format) throws IOException {
+        if (sharded) {
+            // Batches are written to one database and would bypass the shard directory
+            throw new InvalidImportException("Bulk import is not available while users are sharded");
+        }
+        long startedAt = System.nanoTime();
+        Report report = new Report();
+        // Duplicates inside the file would otherwise fail a whole batch at insert time
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            Map<String, Integer> columns = null;
+            if (format == Format.CSV) {
+                columns = readCsvHeader(reader.readLine());
+                lineNumber++;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.totalRows++;
+
+                UserRegistrationRequest request;
+                try {
+                    request = format == Format.CSV ? parseCsvRow(line, columns) : objectMapper.readValue(line, UserRegistrationRequest.class);
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    report.fail(lineNumber, null, "Malformed row: " + rootMessage(e));
+                    continue;
+                }
+                if (request == null) {
+                    report.fail(lineNumber, null, "Malformed row: expected an object");
+                    continue;
+                }
+
+                String violations = validate(request);
+                if (violations != null) {
+                    report.fail(lineNumber, request.getUsername(), violations);
+                } else if (!seenUsernames.add(request.getUsername().toLowerCase(Locale.ROOT))) {
+                    report.fail(lineNumber, request.getUsername(), "Username appears earlier in the file");
+                } else if (!seenEmails.add(request.getEmail().toLowerCase(Locale.ROOT))) {
+                    report.fail(lineNumber, request.getUsername(), "Email appears earlier in the file");
+                } else {
+                    chunk.add(new Row(lineNumber, request));
+                    if (chunk.size() >= chunkSize) {
+                        importChunk(chunk, report);
+                        chunk.clear();
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, report);
+            }
+        }
+
+        long durationNanos = System.nanoTime() - startedAt;
+        double seconds = durationNanos / 1_000_000_000.0;
+        UserImportResult result = UserImportResult.builder()
+                .totalRows(report.totalRows)
+                .imported(report.imported)
+                .failed(report.failed)
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+                .rowsPerSecond(seconds > 0 ? Math.round(report.totalRows / seconds * 10) / 10.0 : 0)
+                .errors(report.errors)
+                .errorsTruncated(report.failed > report.errors.size())
+                .build();
+        log.info("Imported {} of {} users in {} ms ({} rows/s), {} rows rejected",
+                result.getImported(), result.getTotalRows(), result.getDurationMs(), result.getRowsPerSecond(), result.getFailed());
+        return result;
+    }
+
+    private void importChunk(List<Row> chunk, Report report) {
+        List<Row> rows = withoutExistingUsers(chunk, report);
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        // BCrypt dominates the cost of a row; spread it over the pool instead of the request thread
+        List<String> hashes = hashingPool.submit(() -> rows.parallelStream()
+                .map(row -> passwordEncoder.encode(row.request().getPassword()))
+                .toList()).join();
+        Role userRole = roleRegistry.get(Role.RoleName.ROLE_USER);
+        List<User> users = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            users.add(toUser(rows.get(i).request(), hashes.get(i), userRole));
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<User> saved = userRepository.saveAllAndFlush(users);
+                saved.forEach(user -> eventPublisher.publishEvent(UserChangedEvent.created(UserSnapshot.of(user))));
+            });
+            report.imported(rows.size());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Import batch of {} rows hit a constraint violation, retrying row by row", rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                importSingle(rows.get(i), toUser(rows.get(i).request(), hashes.get(i), userRole), report);
+            }
+        }
+    }
+
+    private void importSingle(Row row, User user, Report report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                User saved = userRepository.saveAndFlush(user);
+                eventPublisher.publishEvent(UserChangedEvent.created(UserSnapshot.of(saved)));
+            });
+            report.imported(1);
+        } catch (DataIntegrityViolationException e) {
+            report.fail(row.line(), user.getUsername(), UserConstraintViolations.translate(e).getMessage());
+        }
+    }
+
+    /**
+     * Drop (and report) rows whose username or email is already registered, also by an archived user,
+     * which the unique constraints on users cannot see
+     */
+    private List<Row> withoutExistingUsers(List<Row> chunk, Report report) {
+        List<String> usernames = chunk.stream().map(row -> row.request().getUsername()).toList();
+        List<String> emails = chunk.stream().map(row -> row.request().getEmail()).toList();
+        Set<String> existingUsernames = lowerCased(userRepository.findExistingUsernames(usernames));
+        existingUsernames.addAll(lowerCased(archivedUserRepository.findExistingUsernames(usernames)));
+        Set<String> existingEmails = lowerCased(userRepository.findExistingEmails(emails));
+        existingEmails.addAll(lowerCased(archivedUserRepository.findExistingEmails(emails)));
+        if (existingUsernames.isEmpty() && existingEmails.isEmpty()) {
+            return chunk;
+        }
+
+        List<Row> remaining = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            UserRegistrationRequest request = row.request();
+            if (existingUsernames.contains(request.getUsername().toLowerCase(Locale.ROOT))) {
+                report.fail(row.line(), request.getUsername(), UserConstraintViolations.USERNAME_TAKEN);
+            } else if (existingEmails.contains(request.getEmail().toLowerCase(Locale.ROOT))) {
+                report.fail(row.line(), request.getUsername(), UserConstraintViolations.EMAIL_IN_USE);
+            } else {
+                remaining.add(row);
+            }
+        }
+        return remaining;
+    }
+
+    private User toUser(UserRegistrationRequest request, String passwordHash, Role userRole) {
+        User user = User.builder()
+                .username(request.getUsername())
+                .email(request.getEmail())
+                .password(passwordHash)
+                .firstName(request.getFirstName())
+                .lastName(request.getLastName())
+                .isActive(true)
+                .isEmailVerified(false)
+                .build();
+        user.addRole(userRole);
+        return user;
+    }
+
+    private String validate(UserRegistrationRequest request) {
+        Set<ConstraintViolation<UserRegistrationRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Map<String, Integer> readCsvHeader(String header) {
+        if (header == null) {
+            throw new InvalidImportException("CSV import is empty, expected a header line");
+        }
+        // Excel writes a byte order mark in front of UTF-8 files
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT);
+            if (CSV_COLUMNS.contains(name)) {
+                columns.put(name, i);
+            }
+        }
+        for (String required : List.of("username", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidImportException("CSV header must contain a '" + required + "' column");
+            }
+        }
+        return columns;
+    }
+
+    private UserRegistrationRequest parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsvLine(line);
+        return UserRegistrationRequest.builder()
+                .username(field(fields, columns, "username"))
+                .email(field(fields, columns, "email"))
+                .password(field(fields, columns, "password"))
+                .firstName(field(fields, columns, "firstname"))
+                .lastName(field(fields, columns, "lastname"))
+                .build();
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    /**
+     * Split one CSV record (RFC 4180 quoting, no line breaks inside fields)
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String rootMessage(Exception e) {
+        return e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage();
+    }
+
+    private static Set<String> lowerCased(List<String> values) {
+        return values.stream().map(value -> value.toLowerCase(Locale.ROOT)).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private record Row(long line, UserRegistrationRequest request) {
+    }
+
+    /**
+     * Running totals of one import; only the first errors are kept for the response
+     */
+    private final class Report {
+
+        private final List<UserImportResult.RowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long imported;
+        private long failed;
+
+        void imported(int rows) {
+            imported += rows;
+            importedRows.increment(rows);
+        }
+
+        void fail(long line, String username, String message) {
+            failed++;
+            failedRows.increment();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new UserImportResult.RowError(line, username, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.repository.projection.UserRow;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Turns projected user rows into responses, shared by the listings and the export
+ */
+final class UserRowResponses {
+
+    private UserRowResponses() {
+    }
+
+    /**
+     * Convert projected rows to responses, loading the roles of all of them with one query
+     *
+     * @param roleNames query returning [userId, roleName] pairs for the given user ids
+     */
+    static List<UserResponse> toUserResponses(Function<Collection<Long>, List<Object[]>> roleNames, List<UserRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Set<String>> rolesByUser = new HashMap<>();
+        for (Object[] userRole : roleNames.apply(rows.stream().map(UserRow::id).toList())) {
+            rolesByUser.computeIfAbsent((Long) userRole[0], id -> new HashSet<>())
+                    .add(((Role.RoleName) userRole[1]).name());
+        }
+
+        return rows.stream()
+                .map(row -> UserResponse.builder()
+                        .id(row.id())
+                        .username(row.username())
+                        .email(row.email())
+                        .firstName(row.firstName())
+                        .lastName(row.lastName())
+                        .isActive(row.isActive())
+                        .isEmailVerified(row.isEmailVerified())
+                        .roles(rolesByUser.getOrDefault(row.id(), Set.of()))
+                        .createdAt(row.createdAt())
+                        .lastLogin(row.lastLogin())
+                        .build())
+                .toList();
+    }
+}
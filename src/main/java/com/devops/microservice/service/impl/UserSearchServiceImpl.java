@@ -0,0 +1,595 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.dto.response.UserSearchResult;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.exception.FeatureDisabledException;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.repository.projection.UserRow;
+import com.devops.microservice.service.UserSearchService;
+import com.devops.microservice.sharding.UserShards;
+import com.devops.microservice.util.LongLongHashMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory n-gram index over usernames, emails, first and last names, so partial matches never
+ * scan the users table. Every field contributes its trigrams plus two start-padded grams, which let
+ * one- and two-character terms match field prefixes. Users get dense int ordinals and posting lists
+ * are sorted int arrays; a changed user is appended under a new ordinal and its old one left as a
+ * tombstone, so lists only grow at the end. Built from a scan once the application is ready, kept
+ * current by committed {@link UserChangedEvent}s and rebuilt on a schedule to drop the tombstones.
+ * Archived users are not indexed.
+ * <p>
+ * Heap budget: about 350 bytes per user as measured by {@code UserSearchBenchmark}, and twice that
+ * while a rebuild holds the old and the new index, so 5M users need about 1.7 GB steady and 3.4 GB
+ * at a rebuild. A node logs a warning once that peak would pass half its maximum heap; nodes that
+ * cannot afford the index run with {@code app.users.search.enabled=false}, which builds nothing
+ * and refuses searches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserSearchServiceImpl implements UserSearchService {
+
+    private static final char PAD = '\u0001';
+    private static final char SEPARATOR = '\u001F';
+    private static final int SCAN_BATCH = 1000;
+    private static final int MAX_TERMS = 8;
+
+    /**
+     * Weight of a match in the username, email, first and last name
+     */
+    private static final int[] FIELD_WEIGHTS = {4, 3, 2, 2};
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int CONTAINS = 1;
+
+    private static final Role.RoleName[] ROLES = Role.RoleName.values();
+
+    private final UserRepository userRepository;
+    private final UserShards userShards;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.users.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.users.search.max-candidates:2000}")
+    private int maxCandidates;
+
+    private final Object rebuildLock = new Object();
+    private volatile Index index = new Index(16);
+    private List<UserChangedEvent> pending;
+    private TransactionTemplate transactionTemplate;
+    private Timer queryTimer;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        queryTimer = Timer.builder("users.search.query")
+                .description("User search time, served from the in-memory index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.bytes", this, search -> search.index.memoryBytes())
+                .description("Estimated memory held by the user search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.users", this, search -> search.index.liveCount())
+                .description("Users in the search index")
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.grams", this, search -> search.index.gramCount())
+                .description("Distinct n-grams in the search index")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<UserSearchResult> searchUsers(String query, Role.RoleName role, Boolean active, int limit) {
+        if (!enabled) {
+            throw new FeatureDisabledException("User search is disabled");
+        }
+        List<String> terms = terms(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return queryTimer.record(() -> index.search(terms, role, active, limit, maxCandidates));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            // Replayed onto the index being built, which may have scanned past this user already
+            if (pending != null) {
+                pending.add(event);
+            }
+        }
+        apply(index, event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not build the user search index, it stays incomplete until the next rebuild: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the index from the users table, dropping the tombstones left by changes
+     */
+    @Scheduled(initialDelayString = "${app.users.search.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${app.users.search.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            long startedAt = System.nanoTime();
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            try {
+                Index rebuilt = new Index(Math.max(16, index.liveCount() + index.liveCount() / 4));
+                userShards.forEach(shard -> transactionTemplate.executeWithoutResult(status -> scanInto(rebuilt)));
+                synchronized (this) {
+                    pending.forEach(event -> apply(rebuilt, event));
+                    rebuilt.trim();
+                    index = rebuilt;
+                }
+                log.info("Built user search index over {} users in {} ms: {} grams, {} KB", rebuilt.liveCount(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), rebuilt.gramCount(),
+                        rebuilt.memoryBytes() / 1024);
+                warnIfOverHeapBudget(rebuilt.memoryBytes());
+            } finally {
+                synchronized (this) {
+                    pending = null;
+                }
+            }
+        }
+    }
+
+    private static void warnIfOverHeapBudget(long indexBytes) {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        // A rebuild holds the old and the new index at once
+        if (maxHeap != Long.MAX_VALUE && 2 * indexBytes > maxHeap / 2) {
+            log.warn("User search index of {} MB needs {} MB while rebuilding, over half the {} MB heap; "
+                            + "raise -Xmx or set app.users.search.enabled=false",
+                    indexBytes >> 20, (2 * indexBytes) >> 20, maxHeap >> 20);
+        }
+    }
+
+    private void scanInto(Index target) {
+        try (Stream<UserRow> rows = userRepository.streamRows(null, null, null, null, null)) {
+            List<UserRow> chunk = new ArrayList<>(SCAN_BATCH);
+            Iterator<UserRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == SCAN_BATCH) {
+                    addChunk(target, chunk);
+                    chunk.clear();
+                }
+            }
+            addChunk(target, chunk);
+        }
+    }
+
+    private void addChunk(Index target, List<UserRow> chunk) {
+        for (UserResponse user : UserRowResponses.toUserResponses(userRepository::findRoleNamesByUserIds, chunk)) {
+            target.put(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                    flags(Boolean.TRUE.equals(user.getIsActive()), user.getRoles().stream().map(Role.RoleName::valueOf)));
+        }
+    }
+
+    private static void apply(Index target, UserChangedEvent event) {
+        UserSnapshot after = event.getAfter();
+        if (event.getType() == UserChangedEvent.Type.DELETED || event.getType() == UserChangedEvent.Type.ARCHIVED
+                || after == null) {
+            target.remove(event.getUserId());
+        } else {
+            target.put(after.getId(), after.getUsername(), after.getEmail(), after.getFirstName(), after.getLastName(),
+                    flags(after.isActive(), after.getRoles() == null ? Stream.empty() : after.getRoles().stream()));
+        }
+    }
+
+    /**
+     * Lower-cased, distinct, whitespace-separated terms of the query
+     */
+    private static List<String> terms(String query) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(query.trim().toLowerCase(Locale.ROOT).split("\\s+"))
+                .distinct()
+                .limit(MAX_TERMS)
+                .toList();
+    }
+
+    /**
+     * Bit 0 is the active flag, bit 1 + ordinal each role
+     */
+    private static short flags(boolean active, Stream<Role.RoleName> roles) {
+        int flags = active ? 1 : 0;
+        for (Iterator<Role.RoleName> it = roles.iterator(); it.hasNext(); ) {
+            flags |= 2 << it.next().ordinal();
+        }
+        return (short) flags;
+    }
+
+    private static long gram(char a, char b, char c) {
+        return (long) Character.toLowerCase(a) << 32 | (long) Character.toLowerCase(b) << 16 | Character.toLowerCase(c);
+    }
+
+    /**
+     * Grams a document must contain to match the term: its trigrams, or its padded prefix gram when shorter
+     */
+    private static long[] termGrams(String term) {
+        return switch (term.length()) {
+            case 1 -> new long[]{gram(PAD, PAD, term.charAt(0))};
+            case 2 -> new long[]{gram(PAD, term.charAt(0), term.charAt(1))};
+            default -> {
+                long[] grams = new long[term.length() - 2];
+                for (int i = 0; i < grams.length; i++) {
+                    grams[i] = gram(term.charAt(i), term.charAt(i + 1), term.charAt(i + 2));
+                }
+                yield grams;
+            }
+        };
+    }
+
+    /**
+     * How well the term matches the field {@code text[start, end)}: exact, prefix, contained or not at all.
+     * Terms shorter than a trigram only match prefixes, as the index cannot find them elsewhere.
+     */
+    private static int match(String text, int start, int end, String term) {
+        int length = term.length();
+        if (length > end - start) {
+            return 0;
+        }
+        if (matchesAt(text, start, term)) {
+            return length == end - start ? EXACT : PREFIX;
+        }
+        if (length < 3) {
+            return 0;
+        }
+        for (int from = start + 1; from + length <= end; from++) {
+            if (matchesAt(text, from, term)) {
+                return CONTAINS;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Whether the lower-cased term occurs at the offset, comparing characters as the grams do
+     */
+    private static boolean matchesAt(String text, int offset, String term) {
+        for (int i = 0; i < term.length(); i++) {
+            char c = text.charAt(offset + i);
+            char t = term.charAt(i);
+            if (c != t && Character.toLowerCase(c) != t) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Position of the ordinal in {@code list[0, end)}, or {@code -(insertion point) - 1}. Candidates
+     * are visited in descending order, so the search gallops down from the end of the range.
+     */
+    private static int gallopDown(int[] list, int end, int ordinal) {
+        int step = 1;
+        int from = end - 1;
+        while (from > 0 && list[from] > ordinal) {
+            from = Math.max(0, end - (step <<= 1));
+        }
+        return Arrays.binarySearch(list, Math.max(0, from), end, ordinal);
+    }
+
+    /**
+     * Sum over the terms of their best weighted field match; 0 if any term matches no field
+     */
+    private static int score(String text, List<String> terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = 0;
+            int start = 0;
+            for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                int end = text.indexOf(SEPARATOR, start);
+                if (end < 0) {
+                    end = text.length();
+                }
+                best = Math.max(best, FIELD_WEIGHTS[field] * match(text, start, end, term));
+                start = end + 1;
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * The index proper. Writers take the write lock for one user at a time, so searches wait at
+     * most for a single insert.
+     */
+    private static final class Index {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * User id to ordinal, and gram to posting list
+         */
+        private final LongLongHashMap ordinals;
+        private final LongLongHashMap grams = new LongLongHashMap();
+
+        private long[] ids;
+        private String[] texts;
+        private short[] flags;
+        private int size;
+        private int live;
+        private long textBytes;
+
+        private int[][] postings = new int[1024][];
+        private int[] postingSizes = new int[1024];
+        private int gramCount;
+        private long postingBytes;
+
+        Index(int expectedUsers) {
+            ordinals = new LongLongHashMap(expectedUsers);
+            ids = new long[expectedUsers];
+            texts = new String[expectedUsers];
+            flags = new short[expectedUsers];
+        }
+
+        void put(long id, String username, String email, String firstName, String lastName, short userFlags) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+                if (size == ids.length) {
+                    int capacity = size + (size >> 1);
+                    ids = Arrays.copyOf(ids, capacity);
+                    texts = Arrays.copyOf(texts, capacity);
+                    flags = Arrays.copyOf(flags, capacity);
+                }
+                int ordinal = size++;
+                String text = String.join(String.valueOf(SEPARATOR), nullToEmpty(username), nullToEmpty(email),
+                        nullToEmpty(firstName), nullToEmpty(lastName));
+                ids[ordinal] = id;
+                texts[ordinal] = text;
+                flags[ordinal] = userFlags;
+                ordinals.put(id, ordinal);
+                live++;
+                textBytes += stringBytes(text);
+
+                char a = PAD;
+                char b = PAD;
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == SEPARATOR) {
+                        a = PAD;
+                        b = PAD;
+                        continue;
+                    }
+                    append(gram(a, b, c), ordinal);
+                    a = b;
+                    b = c;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long id) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<UserSearchResult> search(List<String> terms, Role.RoleName role, Boolean active, int limit, int maxCandidates) {
+            lock.readLock().lock();
+            try {
+                List<int[]> lists = new ArrayList<>();
+                List<Integer> sizes = new ArrayList<>();
+                for (String term : terms) {
+                    for (long key : termGrams(term)) {
+                        int list = (int) grams.get(key, -1);
+                        if (list < 0) {
+                            return List.of();
+                        }
+                        lists.add(postings[list]);
+                        sizes.add(postingSizes[list]);
+                    }
+                }
+                Integer[] order = new Integer[lists.size()];
+                Arrays.setAll(order, i -> i);
+                Arrays.sort(order, Comparator.comparingInt(sizes::get));
+                int[] shortest = lists.get(order[0]);
+                int[] upperBounds = new int[order.length];
+                for (int i = 1; i < order.length; i++) {
+                    upperBounds[i] = sizes.get(order[i]);
+                }
+
+                PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+                int matched = 0;
+                // Newest users first; each ordinal is at most as large as the last one found in the other lists
+                candidates:
+                for (int i = sizes.get(order[0]) - 1; i >= 0 && matched < maxCandidates; i--) {
+                    int ordinal = shortest[i];
+                    for (int j = 1; j < order.length; j++) {
+                        int found = gallopDown(lists.get(order[j]), upperBounds[j], ordinal);
+                        if (found < 0) {
+                            upperBounds[j] = -found - 1;
+                            continue candidates;
+                        }
+                        upperBounds[j] = found;
+                    }
+                    String text = texts[ordinal];
+                    if (text == null || !matchesFilters(flags[ordinal], role, active)) {
+                        continue;
+                    }
+                    int score = score(text, terms);
+                    if (score == 0) {
+                        continue;
+                    }
+                    matched++;
+                    // Ties go to the newer user, which was visited first
+                    if (top.size() < limit) {
+                        top.offer(new Hit(ordinal, score));
+                    } else if (score > top.peek().score()) {
+                        top.poll();
+                        top.offer(new Hit(ordinal, score));
+                    }
+                }
+
+                List<Hit> hits = new ArrayList<>(top);
+                hits.sort(Hit.WORST_FIRST.reversed());
+                return hits.stream().map(this::toResult).toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Release the spare capacity of the posting lists, which make up most of the index
+         */
+        void trim() {
+            lock.writeLock().lock();
+            try {
+                for (int list = 0; list < gramCount; list++) {
+                    if (postings[list].length > postingSizes[list]) {
+                        postingBytes -= (long) (postings[list].length - postingSizes[list]) * 4;
+                        postings[list] = Arrays.copyOf(postings[list], postingSizes[list]);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int liveCount() {
+            return live;
+        }
+
+        int gramCount() {
+            return gramCount;
+        }
+
+        /**
+         * Arrays, strings and posting lists, with the hash maps estimated at two slots of 16 bytes per entry
+         */
+        long memoryBytes() {
+            return (long) ids.length * (8 + 4 + 2) + textBytes + postingBytes
+                    + (long) postings.length * (4 + 4)
+                    + (long) (ordinals.size() + grams.size()) * 32;
+        }
+
+        private void removeLocked(long id) {
+            int ordinal = (int) ordinals.get(id, -1);
+            if (ordinal >= 0) {
+                textBytes -= stringBytes(texts[ordinal]);
+                texts[ordinal] = null;
+                ordinals.remove(id);
+                live--;
+            }
+        }
+
+        private void append(long key, int ordinal) {
+            int list = (int) grams.get(key, -1);
+            if (list < 0) {
+                list = gramCount++;
+                if (list == postings.length) {
+                    postings = Arrays.copyOf(postings, list * 2);
+                    postingSizes = Arrays.copyOf(postingSizes, list * 2);
+                }
+                postings[list] = new int[2];
+                postingBytes += 16 + 2 * 4;
+                grams.put(key, list);
+            }
+            int[] entries = postings[list];
+            int count = postingSizes[list];
+            // A gram repeated within one user is listed once
+            if (count > 0 && entries[count - 1] == ordinal) {
+                return;
+            }
+            if (count == entries.length) {
+                entries = Arrays.copyOf(entries, count * 2);
+                postingBytes += count * 4L;
+                postings[list] = entries;
+            }
+            entries[count] = ordinal;
+            postingSizes[list] = count + 1;
+        }
+
+        private UserSearchResult toResult(Hit hit) {
+            String[] fields = texts[hit.ordinal()].split(String.valueOf(SEPARATOR), -1);
+            short userFlags = flags[hit.ordinal()];
+            return UserSearchResult.builder()
+                    .id(ids[hit.ordinal()])
+                    .username(fields[0])
+                    .email(fields[1])
+                    .firstName(fields[2].isEmpty() ? null : fields[2])
+                    .lastName(fields[3].isEmpty() ? null : fields[3])
+                    .isActive((userFlags & 1) != 0)
+                    .roles(Arrays.stream(ROLES)
+                            .filter(role -> (userFlags & (2 << role.ordinal())) != 0)
+                            .map(Role.RoleName::name)
+                            .collect(Collectors.toSet()))
+                    .score(hit.score())
+                    .build();
+        }
+
+        private static boolean matchesFilters(short userFlags, Role.RoleName role, Boolean active) {
+            return (active == null || ((userFlags & 1) != 0) == active)
+                    && (role == null || (userFlags & (2 << role.ordinal())) != 0);
+        }
+
+        private static long stringBytes(String text) {
+            // Header, hash and array header, plus one byte per character for Latin-1 strings
+            return 40 + text.length();
+        }
+
+        private static String nullToEmpty(String value) {
+            return value == null ? "" : value;
+        }
+    }
+
+    private record Hit(int ordinal, int score) {
+
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingInt(Hit::score).thenComparingInt(Hit::ordinal);
+    }
+}
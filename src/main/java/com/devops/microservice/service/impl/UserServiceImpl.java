@@ -1,29 +1,65 @@
 package com.devops.microservice.service.impl;
 
+import com.devops.microservice.dto.request.UserListFilter;
 import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.CursorPage;
 import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.entity.ArchivedUser;
 import com.devops.microservice.entity.Role;
 import com.devops.microservice.entity.User;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
 import com.devops.microservice.exception.ResourceNotFoundException;
 import com.devops.microservice.exception.UserAlreadyExistsException;
-import com.devops.microservice.repository.RoleRepository;
+import com.devops.microservice.repository.ArchivedUserRepository;
 import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.repository.UserSpecifications;
+import com.devops.microservice.repository.projection.UserRow;
+import com.devops.microservice.service.CountMode;
+import com.devops.microservice.service.LastLoginBuffer;
+import com.devops.microservice.service.RoleRegistry;
+import com.devops.microservice.service.UserArchive;
+import com.devops.microservice.service.UserReadCache;
+import com.devops.microservice.service.UserCountCache;
+import com.devops.microservice.service.UserCursor;
+import com.devops.microservice.service.UserResponseOrder;
 import com.devops.microservice.service.UserService;
+import com.devops.microservice.service.UserSortKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 /**
- * Service implementation for User operations
+ * Service implementation for User operations. Single-user lookups and existence checks are cached;
+ * {@link UserReadCache} evicts them when the {@link UserChangedEvent} of a change commits.
+ * Lookups that miss the users table fall back to the archive, and changes to an archived user
+ * restore it first.
  */
 @Service
 @RequiredArgsConstructor
@@ -32,26 +68,27 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LastLoginBuffer lastLoginBuffer;
+    private final UserCountCache userCountCache;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final UserArchive userArchive;
 
     @Override
     public UserResponse registerUser(UserRegistrationRequest request) {
         log.info("Registering new user with username: {}", request.getUsername());
 
-        // Check if user already exists
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new UserAlreadyExistsException("Username is already taken!");
+        // The unique constraints detect duplicates among current users, but cannot see the archive;
+        // checked before hashing, which is the expensive part of a rejected registration
+        if (archivedUserRepository.existsByUsername(request.getUsername())) {
+            throw new UserAlreadyExistsException(UserConstraintViolations.USERNAME_TAKEN);
         }
-
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new UserAlreadyExistsException("Email is already in use!");
+        if (archivedUserRepository.existsByEmail(request.getEmail())) {
+            throw new UserAlreadyExistsException(UserConstraintViolations.EMAIL_IN_USE);
         }
 
-        // Get default role
-        Role userRole = roleRepository.findByName(Role.RoleName.ROLE_USER)
-                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-
         // Create new user
         User user = User.builder()
                 .username(request.getUsername())
@@ -63,57 +100,196 @@ public class UserServiceImpl implements UserService {
                 .isEmailVerified(false)
                 .build();
 
-        user.addRole(userRole);
+        user.addRole(roleRegistry.get(Role.RoleName.ROLE_USER));
 
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw UserConstraintViolations.translate(e);
+        }
+        eventPublisher.publishEvent(UserChangedEvent.created(UserSnapshot.of(savedUser)));
         log.info("User registered successfully with ID: {}", savedUser.getId());
 
         return convertToUserResponse(savedUser);
     }
 
+    // Cached lookups read the primary, see UserReadCache
     @Override
-    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = UserReadCache.BY_ID, sync = true)
     public Optional<UserResponse> getUserById(Long id) {
-        return userRepository.findById(id)
-                .map(this::convertToUserResponse);
+        return userRepository.findRowById(id)
+                .map(row -> toUserResponses(List.of(row)).get(0))
+                .or(() -> archivedUserRepository.findById(id).map(this::convertToUserResponse));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = UserReadCache.BY_USERNAME, key = UserReadCache.NORMALIZED_KEY, sync = true)
     public Optional<UserResponse> getUserByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .map(this::convertToUserResponse);
+        return userRepository.findRowByUsername(username)
+                .map(row -> toUserResponses(List.of(row)).get(0))
+                .or(() -> archivedUserRepository.findByUsername(username).map(this::convertToUserResponse));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = UserReadCache.BY_EMAIL, key = UserReadCache.NORMALIZED_KEY, sync = true)
     public Optional<UserResponse> getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .map(this::convertToUserResponse);
+        return userRepository.findRowByEmail(email)
+                .map(row -> toUserResponses(List.of(row)).get(0))
+                .or(() -> archivedUserRepository.findByEmail(email).map(this::convertToUserResponse));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<UserResponse> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable)
-                .map(this::convertToUserResponse);
+        List<UserResponse> users = toUserResponses(userRepository.findRowsBy(pageable).getContent());
+        // Counts only when the page does not already reveal the total
+        return PageableExecutionUtils.getPage(users, pageable, userCountCache::exactCount);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserResponse> getAllUsers(Pageable pageable, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return getAllUsers(pageable);
+        }
+
+        Slice<UserRow> rows = userRepository.findRowsBy(pageable);
+        List<UserResponse> users = toUserResponses(rows.getContent());
+        userCountCache.recordSkipped(countMode);
+        if (countMode == CountMode.NONE) {
+            return new SliceImpl<>(users, pageable, rows.hasNext());
+        }
+        // PageImpl corrects a cached total that is inconsistent with the page it is given
+        return new PageImpl<>(users, pageable, userCountCache.cachedCount());
+    }
+
+    /**
+     * Merges the first offset + size rows of the users and of the archive, so deep pages read more
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserResponse> getAllUsers(Pageable pageable, CountMode countMode, boolean includeArchived) {
+        if (!includeArchived) {
+            return getAllUsers(pageable, countMode);
+        }
+
+        Pageable head = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+        if (countMode != CountMode.EXACT) {
+            userCountCache.recordSkipped(countMode);
+        }
+        return mergeArchived(pageable, userRepository.findRowsBy(head), archivedUserRepository.findRowsBy(head),
+                countMode == CountMode.NONE ? null : () -> countMode == CountMode.EXACT
+                        ? userCountCache.exactCount() + archivedUserRepository.count()
+                        : userCountCache.cachedCount() + userCountCache.cachedArchivedCount());
+    }
+
+    /**
+     * Runs the specification over the users (and the archive), which the composite indexes of the
+     * filtered columns serve in the order of the allowed sort keys
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserResponse> getAllUsers(UserListFilter filter, Pageable pageable, CountMode countMode,
+                                           boolean includeArchived) {
+        if (filter == null || filter.isEmpty()) {
+            return getAllUsers(pageable, countMode, includeArchived);
+        }
+
+        Specification<User> users = UserSpecifications.matching(filter);
+        Specification<ArchivedUser> archivedUsers = UserSpecifications.matching(filter);
+        if (countMode != CountMode.EXACT) {
+            userCountCache.recordSkipped(countMode);
+        }
+        if (!includeArchived) {
+            Slice<UserRow> rows = userRepository.findRows(User.class, users, pageable);
+            List<UserResponse> content = toUserResponses(rows.getContent());
+            return countMode == CountMode.EXACT
+                    ? PageableExecutionUtils.getPage(content, pageable, () -> userRepository.count(users))
+                    : new SliceImpl<>(content, pageable, rows.hasNext());
+        }
+
+        Pageable head = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+        return mergeArchived(pageable, userRepository.findRows(User.class, users, head),
+                archivedUserRepository.findRows(ArchivedUser.class, archivedUsers, head),
+                countMode == CountMode.EXACT
+                        ? () -> userRepository.count(users) + archivedUserRepository.count(archivedUsers) : null);
+    }
+
+    /**
+     * Cut the requested page out of the head rows of the users and of the archive; without a total
+     * the result is a {@link Slice}
+     */
+    private Slice<UserResponse> mergeArchived(Pageable pageable, Slice<UserRow> rows, Slice<UserRow> archivedRows,
+                                              LongSupplier total) {
+        List<UserResponse> merged = new ArrayList<>(toUserResponses(rows.getContent()));
+        List<UserResponse> archived = UserRowResponses.toUserResponses(
+                archivedUserRepository::findRoleNamesByUserIds, archivedRows.getContent());
+        archived.forEach(user -> user.setArchived(true));
+        merged.addAll(archived);
+        merged.sort(UserResponseOrder.of(pageable.getSort()));
+
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), merged.size());
+        List<UserResponse> users = List.copyOf(merged.subList(from, to));
+        if (total == null) {
+            return new SliceImpl<>(users, pageable, merged.size() > to || rows.hasNext() || archivedRows.hasNext());
+        }
+        return new PageImpl<>(users, pageable, total.getAsLong());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserResponse> getUsers(UserSortKey sortKey, Sort.Direction direction, int size, String cursor) {
+        UserCursor position = cursor == null || cursor.isBlank() ? null : UserCursor.decode(cursor);
+        if (position != null) {
+            sortKey = position.sortKey();
+            direction = position.direction();
+        }
+
+        // Seeks past the cursor row instead of skipping offset rows, and runs no COUNT
+        Window<User> window = userRepository.findAllBy(
+                position == null ? ScrollPosition.keyset() : position.toScrollPosition(),
+                sortKey.sort(direction), Limit.of(size));
+        List<User> users = window.getContent();
+
+        // Reading backward, the page we came from is after this one; hasNext() looks further back
+        boolean backward = position != null && position.backward();
+        boolean hasNext = backward || window.hasNext();
+        boolean hasPrevious = backward ? window.hasNext() : position != null;
+
+        return CursorPage.<UserResponse>builder()
+                .content(users.stream().map(this::convertToUserResponse).toList())
+                .size(users.size())
+                .sortBy(sortKey.getProperty())
+                .sortDir(direction.name().toLowerCase(Locale.ROOT))
+                .hasNext(hasNext && !users.isEmpty())
+                .hasPrevious(hasPrevious && !users.isEmpty())
+                .nextCursor(hasNext && !users.isEmpty()
+                        ? UserCursor.of(sortKey, direction, false, users.get(users.size() - 1)).encode() : null)
+                .prevCursor(hasPrevious && !users.isEmpty()
+                        ? UserCursor.of(sortKey, direction, true, users.get(0)).encode() : null)
+                .build();
     }
 
     @Override
     public UserResponse updateUser(Long id, UserRegistrationRequest request) {
         log.info("Updating user with ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        User user = findUser(id);
+
+        UserSnapshot before = UserSnapshot.of(user);
 
         // Check if username/email is being changed and if it's already taken
         if (!user.getUsername().equals(request.getUsername()) && 
-            userRepository.existsByUsername(request.getUsername())) {
+            (userRepository.existsByUsername(request.getUsername())
+                    || archivedUserRepository.existsByUsername(request.getUsername()))) {
             throw new UserAlreadyExistsException("Username is already taken!");
         }
 
         if (!user.getEmail().equals(request.getEmail()) && 
-            userRepository.existsByEmail(request.getEmail())) {
+            (userRepository.existsByEmail(request.getEmail())
+                    || archivedUserRepository.existsByEmail(request.getEmail()))) {
             throw new UserAlreadyExistsException("Email is already in use!");
         }
 
@@ -126,9 +302,12 @@ public class UserServiceImpl implements UserService {
         // Update password if provided
         if (request.getPassword() != null && !request.getPassword().trim().isEmpty()) {
             user.setPassword(passwordEncoder.encode(request.getPassword()));
+            user.incrementSecurityVersion();
         }
 
         User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.changed(
+                UserChangedEvent.Type.UPDATED, before, UserSnapshot.of(updatedUser)));
         log.info("User updated successfully with ID: {}", updatedUser.getId());
 
         return convertToUserResponse(updatedUser);
@@ -138,11 +317,10 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(Long id) {
         log.info("Deleting user with ID: {}", id);
 
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User not found with id: " + id);
-        }
+        User user = findUser(id);
 
-        userRepository.deleteById(id);
+        userRepository.delete(user);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(UserSnapshot.of(user)));
         log.info("User deleted successfully with ID: {}", id);
     }
 
@@ -150,11 +328,13 @@ public class UserServiceImpl implements UserService {
     public void activateUser(Long id) {
         log.info("Activating user with ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        User user = findUser(id);
 
+        UserSnapshot before = UserSnapshot.of(user);
         user.setIsActive(true);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.changed(
+                UserChangedEvent.Type.ACTIVATED, before, UserSnapshot.of(user)));
         log.info("User activated successfully with ID: {}", id);
     }
 
@@ -162,11 +342,14 @@ public class UserServiceImpl implements UserService {
     public void deactivateUser(Long id) {
         log.info("Deactivating user with ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        User user = findUser(id);
 
+        UserSnapshot before = UserSnapshot.of(user);
         user.setIsActive(false);
+        user.incrementSecurityVersion();
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.changed(
+                UserChangedEvent.Type.DEACTIVATED, before, UserSnapshot.of(user)));
         log.info("User deactivated successfully with ID: {}", id);
     }
 
@@ -174,33 +357,50 @@ public class UserServiceImpl implements UserService {
     public void verifyUserEmail(Long id) {
         log.info("Verifying email for user with ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        User user = findUser(id);
 
+        UserSnapshot before = UserSnapshot.of(user);
         user.setIsEmailVerified(true);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.changed(
+                UserChangedEvent.Type.EMAIL_VERIFIED, before, UserSnapshot.of(user)));
         log.info("Email verified successfully for user with ID: {}", id);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = UserReadCache.USERNAME_EXISTS, key = UserReadCache.NORMALIZED_KEY, sync = true)
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        return userRepository.existsByUsername(username) || archivedUserRepository.existsByUsername(username);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = UserReadCache.EMAIL_EXISTS, key = UserReadCache.NORMALIZED_KEY, sync = true)
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return userRepository.existsByEmail(email) || archivedUserRepository.existsByEmail(email);
     }
 
     @Override
-    public void updateLastLogin(String username) {
-        userRepository.findByUsername(username)
-                .ifPresent(user -> {
-                    user.setLastLogin(LocalDateTime.now());
-                    userRepository.save(user);
-                });
+    public void updateLastLogin(Long userId) {
+        lastLoginBuffer.record(userId, Instant.now());
+    }
+
+    /**
+     * Load a user to change it, restoring it from the archive if needed
+     */
+    private User findUser(Long id) {
+        return userRepository.findById(id)
+                .or(() -> userArchive.restore(id))
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+    }
+
+    private List<UserResponse> toUserResponses(List<UserRow> rows) {
+        return UserRowResponses.toUserResponses(userRepository::findRoleNamesByUserIds, rows);
+    }
+
+    private UserResponse convertToUserResponse(ArchivedUser archivedUser) {
+        UserResponse response = convertToUserResponse(archivedUser.toUser());
+        response.setArchived(true);
+        return response;
     }
 
     @Override
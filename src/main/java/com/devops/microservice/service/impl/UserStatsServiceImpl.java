@@ -0,0 +1,190 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.response.UserStatsResponse;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.service.UserStatsService;
+import com.devops.microservice.sharding.UserShards;
+import com.devops.microservice.util.DailyCounterRing;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * User totals held in striped counters, so reading them costs the same at any table size. They are
+ * counted with grouped queries once the application is ready, moved by every committed
+ * {@link UserChangedEvent} (the state before a change is subtracted, the state after it added) and
+ * recounted on a schedule. A change that commits while a recount runs may be missed or counted
+ * twice until the next one. Archived users are counted, so archiving and restoring change nothing.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatsServiceImpl implements UserStatsService {
+
+    private static final Role.RoleName[] ROLES = Role.RoleName.values();
+
+    private final UserRepository userRepository;
+    private final ArchivedUserRepository archivedUserRepository;
+    private final UserShards userShards;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.users.stats.signup-days:90}")
+    private int signupDays;
+
+    private volatile Counters counters;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public UserStatsResponse getUserStats() {
+        Counters current = counters;
+        if (current == null) {
+            reconcile();
+            current = counters;
+        }
+
+        long total = current.total.sum();
+        long active = current.active.sum();
+        long emailVerified = current.emailVerified.sum();
+        Map<String, Long> byRole = new LinkedHashMap<>();
+        for (Role.RoleName role : ROLES) {
+            byRole.put(role.name(), current.byRole[role.ordinal()].sum());
+        }
+        return UserStatsResponse.builder()
+                .totalUsers(total)
+                .activeUsers(active)
+                .inactiveUsers(total - active)
+                .emailVerifiedUsers(emailVerified)
+                .emailUnverifiedUsers(total - emailVerified)
+                .usersByRole(byRole)
+                .signupsPerDay(current.signups.upTo(LocalDate.now()))
+                .reconciledAt(current.reconciledAt)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Counters current = counters;
+        if (current == null || event.getType() == UserChangedEvent.Type.ARCHIVED
+                || event.getType() == UserChangedEvent.Type.RESTORED) {
+            return;
+        }
+        if (event.getBefore() != null) {
+            current.add(event.getBefore(), -1);
+        }
+        if (event.getAfter() != null) {
+            current.add(event.getAfter(), 1);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Could not count user statistics, they are counted on first use: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the counters with a fresh count of the users and the archive
+     */
+    @Scheduled(initialDelayString = "${app.users.stats.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${app.users.stats.reconcile-interval-ms:3600000}")
+    public synchronized void reconcile() {
+        long startedAt = System.nanoTime();
+        Counters recounted = new Counters(signupDays, LocalDateTime.now());
+        userShards.forEach(shard -> transactionTemplate.executeWithoutResult(status -> {
+            userRepository.countByStatusAndSignupDay().forEach(recounted::addGroup);
+            archivedUserRepository.countByStatusAndSignupDay().forEach(recounted::addGroup);
+            userRepository.countByRole().forEach(recounted::addRoleGroup);
+            archivedUserRepository.countByRole().forEach(recounted::addRoleGroup);
+        }));
+
+        Counters previous = counters;
+        counters = recounted;
+        long total = recounted.total.sum();
+        if (previous != null && previous.total.sum() != total) {
+            log.debug("User statistics drifted by {} users, reset to {}", total - previous.total.sum(), total);
+        }
+        log.info("Counted user statistics over {} users in {} ms", total,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private static final class Counters {
+
+        final LongAdder total = new LongAdder();
+        final LongAdder active = new LongAdder();
+        final LongAdder emailVerified = new LongAdder();
+        final LongAdder[] byRole = new LongAdder[ROLES.length];
+        final DailyCounterRing signups;
+        final LocalDateTime reconciledAt;
+
+        Counters(int signupDays, LocalDateTime reconciledAt) {
+            for (int i = 0; i < byRole.length; i++) {
+                byRole[i] = new LongAdder();
+            }
+            this.signups = new DailyCounterRing(signupDays);
+            this.reconciledAt = reconciledAt;
+        }
+
+        void add(UserSnapshot user, long delta) {
+            add(user.isActive(), user.isEmailVerified(),
+                    user.getCreatedAt() == null ? null : user.getCreatedAt().toLocalDate(), delta);
+            if (user.getRoles() != null) {
+                user.getRoles().forEach(role -> byRole[role.ordinal()].add(delta));
+            }
+        }
+
+        /**
+         * Add a [isActive, isEmailVerified, signup day, count] row
+         */
+        void addGroup(Object[] row) {
+            add(Boolean.TRUE.equals(row[0]), Boolean.TRUE.equals(row[1]), (LocalDate) row[2], ((Number) row[3]).longValue());
+        }
+
+        /**
+         * Add a [role name, count] row
+         */
+        void addRoleGroup(Object[] row) {
+            byRole[((Role.RoleName) row[0]).ordinal()].add(((Number) row[1]).longValue());
+        }
+
+        private void add(boolean isActive, boolean isEmailVerified, LocalDate signupDay, long delta) {
+            total.add(delta);
+            if (isActive) {
+                active.add(delta);
+            }
+            if (isEmailVerified) {
+                emailVerified.add(delta);
+            }
+            if (signupDay != null) {
+                signups.add(signupDay, delta);
+            }
+        }
+    }
+}
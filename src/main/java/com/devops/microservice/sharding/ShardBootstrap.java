@@ -0,0 +1,117 @@
+package com.devops.microservice.sharding;
+
+import com.devops.microservice.config.ShardRoutingDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings every shard up to what the rest of the application expects of the single database. As soon
+ * as the entity manager factory exists, before anything reads users: the schema (when Hibernate
+ * generates it) and a range of user ids of its own, so ids stay unique across shards and survive
+ * moves. Once the application is ready: the roles with the same ids as on shard 0, and adoption of
+ * users that data initialisation created on shard 0. With
+ * {@code app.sharding.rebalance.enabled} it goes on to move users to a new bucket map and exits.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ShardBootstrap {
+
+    /**
+     * Shard n hands out user ids from n * 2^40, far above any one shard's own rows
+     */
+    static final int ID_RANGE_BITS = 40;
+
+    private static final Set<String> GENERATED_SCHEMA = Set.of("create", "create-drop");
+
+    private final ShardRoutingDataSource dataSource;
+    private final UserShards userShards;
+    private final UserShardDirectory directory;
+    private final ShardRebalancer rebalancer;
+    private final ConfigurableApplicationContext applicationContext;
+
+    @Value("${spring.jpa.hibernate.ddl-auto:none}")
+    private String ddlAuto;
+
+    @Value("${app.sharding.rebalance.enabled:false}")
+    private boolean rebalance;
+
+    @Value("${app.sharding.rebalance.bucket-map:}")
+    private String rebalanceBucketMap;
+
+    public void prepareSchemas(EntityManagerFactory entityManagerFactory) {
+        for (int shard = 1; shard < dataSource.shardCount(); shard++) {
+            if (GENERATED_SCHEMA.contains(ddlAuto)) {
+                // Hibernate generated shard 0's schema through the routing datasource; repeat it for this shard
+                ShardContext.run(shard, () -> entityManagerFactory.unwrap(SessionFactory.class)
+                        .getSchemaManager().exportMappedObjects(true));
+            }
+            reserveIdRange(new JdbcTemplate(dataSource.getShard(shard)), (long) shard << ID_RANGE_BITS);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareShards() {
+        directory.createTableIfMissing();
+        JdbcTemplate shardZero = new JdbcTemplate(dataSource.getShard(0));
+        List<Map<String, Object>> roles = shardZero.queryForList("SELECT id, name, description FROM roles");
+
+        for (int shard = 1; shard < dataSource.shardCount(); shard++) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource.getShard(shard));
+            for (Map<String, Object> role : roles) {
+                if (jdbc.queryForObject("SELECT COUNT(*) FROM roles WHERE id = ?", Long.class, role.get("id")) == 0) {
+                    jdbc.update("INSERT INTO roles (id, name, description) VALUES (?, ?, ?)",
+                            role.get("id"), role.get("name"), role.get("description"));
+                }
+            }
+        }
+
+        rebalancer.adoptUnregistered(userShards.getShardMap());
+        log.info("Prepared {} user shards", dataSource.shardCount());
+
+        if (rebalance) {
+            rebalanceAndExit();
+        }
+    }
+
+    /**
+     * Move users to the configured target map, or to the current map extended over every configured
+     * shard with as few buckets moving as possible. The new map has to be deployed as
+     * {@code app.sharding.bucket-map} before nodes serve requests again.
+     */
+    private void rebalanceAndExit() {
+        UserShardMap target = rebalanceBucketMap.isBlank()
+                ? userShards.getShardMap().rebalancedTo(dataSource.shardCount())
+                : UserShardMap.parse(rebalanceBucketMap, dataSource.shardCount());
+        int moved = rebalancer.rebalance(target);
+        log.info("Rebalance moved {} users; deploy app.sharding.bucket-map={}", moved, target.toSpec());
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+
+    private void reserveIdRange(JdbcTemplate jdbc, long base) {
+        try {
+            // MySQL: Hibernate emulates the sequence with the users_seq table
+            if (jdbc.update("UPDATE users_seq SET next_val = ? WHERE next_val < ?", base, base) == 0
+                    && jdbc.queryForObject("SELECT COUNT(*) FROM users_seq", Long.class) == 0) {
+                jdbc.update("INSERT INTO users_seq (next_val) VALUES (?)", base);
+            }
+        } catch (BadSqlGrammarException e) {
+            // A real sequence (H2) cannot be compared portably; restart it only on a shard without users
+            if (jdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class) == 0) {
+                jdbc.execute("ALTER SEQUENCE users_seq RESTART WITH " + base);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.devops.microservice.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread works on. Bindings nest and are restored when the work returns.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * The bound shard, or {@code null} when none is bound
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run the work with the given shard bound
+     */
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Run the work with the given shard bound
+     */
+    public static void run(int shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
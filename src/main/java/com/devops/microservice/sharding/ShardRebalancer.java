@@ -0,0 +1,137 @@
+package com.devops.microservice.sharding;
+
+import com.devops.microservice.config.ShardRoutingDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Moves users between shards with plain JDBC, keeping their ids. A move copies the user and its
+ * role links to the target, repoints the directory, then deletes the source rows, so a failure
+ * part-way leaves a copy rather than losing the user. Archived users move between the archive
+ * tables the same way. Also used online when a rename changes shard.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ShardRebalancer {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * User tables with their role link tables: the hot users, then the archived ones
+     */
+    private static final Map<String, String> USER_TABLES = Map.of("users", "user_roles", "users_archive", "user_roles_archive");
+
+    private final ShardRoutingDataSource dataSource;
+    private final UserShardDirectory directory;
+
+    /**
+     * Move one user and its role links
+     */
+    public void moveUser(long userId, int from, int to) {
+        JdbcTemplate source = jdbc(from);
+        USER_TABLES.forEach((users, userRoles) -> {
+            List<Map<String, Object>> rows = source.queryForList("SELECT * FROM " + users + " WHERE id = ?", userId);
+            if (!rows.isEmpty()) {
+                move(rows.get(0), users, userRoles, from, to);
+            }
+        });
+    }
+
+    private void move(Map<String, Object> user, String users, String userRoles, int from, int to) {
+        JdbcTemplate source = jdbc(from);
+        JdbcTemplate target = jdbc(to);
+        Object userId = user.get("id");
+        List<Long> roleIds = source.queryForList("SELECT role_id FROM " + userRoles + " WHERE user_id = ?", Long.class, userId);
+
+        String insert = "INSERT INTO " + users + " (" + String.join(", ", user.keySet()) + ") VALUES ("
+                + user.keySet().stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        transaction(to).executeWithoutResult(status -> {
+            target.update(insert, user.values().toArray());
+            roleIds.forEach(roleId -> target.update("INSERT INTO " + userRoles + " (user_id, role_id) VALUES (?, ?)", userId, roleId));
+        });
+        directory.updateShard(((Number) userId).longValue(), to);
+        transaction(from).executeWithoutResult(status -> {
+            source.update("DELETE FROM " + userRoles + " WHERE user_id = ?", userId);
+            source.update("DELETE FROM " + users + " WHERE id = ?", userId);
+        });
+        log.debug("Moved user {} from shard {} to shard {}", userId, from, to);
+    }
+
+    /**
+     * Record users on shard 0 that have no directory entry, such as users created before sharding
+     * was enabled or by startup data initialisation, and move those that belong elsewhere
+     *
+     * @return number of users adopted
+     */
+    public int adoptUnregistered(UserShardMap shardMap) {
+        List<Map<String, Object>> users = new ArrayList<>();
+        for (String table : USER_TABLES.keySet()) {
+            users.addAll(jdbc(0).queryForList("SELECT u.id, u.username, u.email FROM " + table + " u "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM user_shard_directory d WHERE d.user_id = u.id)"));
+        }
+        for (Map<String, Object> user : users) {
+            long userId = ((Number) user.get("id")).longValue();
+            directory.register(userId, (String) user.get("email"), 0);
+            int shard = shardMap.shardOf((String) user.get("username"));
+            if (shard != 0) {
+                moveUser(userId, 0, shard);
+            }
+        }
+        if (!users.isEmpty()) {
+            log.info("Adopted {} unregistered users into the shard directory", users.size());
+        }
+        return users.size();
+    }
+
+    /**
+     * Move every user whose username maps to another shard under the target map. Meant to run
+     * offline, while no node serves requests with the old map.
+     *
+     * @return number of users moved
+     */
+    public int rebalance(UserShardMap target) {
+        if (target.shardCount() != dataSource.shardCount()) {
+            throw new IllegalArgumentException("Target map has " + target.shardCount()
+                    + " shards but " + dataSource.shardCount() + " are configured");
+        }
+        adoptUnregistered(target);
+
+        int moved = 0;
+        for (int shard = 0; shard < dataSource.shardCount(); shard++) {
+            for (String table : USER_TABLES.keySet()) {
+                long afterId = Long.MIN_VALUE;
+                List<Map<String, Object>> batch;
+                do {
+                    batch = jdbc(shard).queryForList(
+                            "SELECT id, username FROM " + table + " WHERE id > ? ORDER BY id LIMIT " + BATCH_SIZE, afterId);
+                    for (Map<String, Object> user : batch) {
+                        afterId = ((Number) user.get("id")).longValue();
+                        int destination = target.shardOf((String) user.get("username"));
+                        if (destination != shard) {
+                            moveUser(afterId, shard, destination);
+                            moved++;
+                        }
+                    }
+                } while (batch.size() == BATCH_SIZE);
+            }
+            log.info("Rebalanced shard {}: {} users moved so far", shard, moved);
+        }
+        return moved;
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(dataSource.getShard(shard));
+    }
+
+    private TransactionTemplate transaction(int shard) {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource.getShard(shard)));
+    }
+}
@@ -0,0 +1,217 @@
+package com.devops.microservice.sharding;
+
+import com.devops.microservice.dto.request.UserListFilter;
+import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.CursorPage;
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.exception.InvalidPageRequestException;
+import com.devops.microservice.exception.ResourceNotFoundException;
+import com.devops.microservice.exception.UserAlreadyExistsException;
+import com.devops.microservice.service.CountMode;
+import com.devops.microservice.service.UserResponseOrder;
+import com.devops.microservice.service.UserService;
+import com.devops.microservice.service.UserSortKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link UserService} over sharded storage. Each call is routed to the user's shard and runs the
+ * regular implementation there; the directory is kept in step with registrations, email changes,
+ * renames that change shard, and deletions. Listings ask every shard and merge the results.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@Slf4j
+public class ShardedUserService implements UserService {
+
+    private final UserService delegate;
+    private final UserShards shards;
+    private final ShardRebalancer rebalancer;
+
+    public ShardedUserService(@Qualifier("userServiceImpl") UserService delegate, UserShards shards,
+                              ShardRebalancer rebalancer) {
+        this.delegate = delegate;
+        this.shards = shards;
+        this.rebalancer = rebalancer;
+    }
+
+    @Override
+    public UserResponse registerUser(UserRegistrationRequest request) {
+        if (shards.shardOfEmail(request.getEmail()).isPresent()) {
+            throw new UserAlreadyExistsException("Email is already in use!");
+        }
+        int shard = shards.shardOf(request.getUsername());
+        UserResponse user = shards.on(shard, () -> delegate.registerUser(request));
+        try {
+            shards.directory().register(user.getId(), user.getEmail(), shard);
+        } catch (DuplicateKeyException e) {
+            // Registered on another shard since the check above
+            shards.on(shard, () -> {
+                delegate.deleteUser(user.getId());
+                return null;
+            });
+            throw new UserAlreadyExistsException("Email is already in use!");
+        }
+        return user;
+    }
+
+    @Override
+    public Optional<UserResponse> getUserById(Long id) {
+        return shards.shardOfUser(id).flatMap(shard -> shards.on(shard, () -> delegate.getUserById(id)));
+    }
+
+    @Override
+    public Optional<UserResponse> getUserByUsername(String username) {
+        return shards.on(shards.shardOf(username), () -> delegate.getUserByUsername(username));
+    }
+
+    @Override
+    public Optional<UserResponse> getUserByEmail(String email) {
+        return shards.shardOfEmail(email).flatMap(shard -> shards.on(shard, () -> delegate.getUserByEmail(email)));
+    }
+
+    @Override
+    public Page<UserResponse> getAllUsers(Pageable pageable) {
+        return (Page<UserResponse>) getAllUsers(pageable, CountMode.EXACT);
+    }
+
+    @Override
+    public Slice<UserResponse> getAllUsers(Pageable pageable, CountMode countMode) {
+        return getAllUsers(pageable, countMode, false);
+    }
+
+    @Override
+    public Slice<UserResponse> getAllUsers(Pageable pageable, CountMode countMode, boolean includeArchived) {
+        return getAllUsers(UserListFilter.none(), pageable, countMode, includeArchived);
+    }
+
+    /**
+     * Scatter-gather: every shard returns its first offset + size rows, which between them contain
+     * the requested page. {@link CountMode#CACHED} counts exactly, the cached total covers shard 0 only.
+     */
+    @Override
+    public Slice<UserResponse> getAllUsers(UserListFilter filter, Pageable pageable, CountMode countMode,
+                                           boolean includeArchived) {
+        Comparator<UserResponse> order = UserResponseOrder.of(pageable.getSort());
+        Pageable head = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+        CountMode shardCountMode = countMode == CountMode.NONE ? CountMode.NONE : CountMode.EXACT;
+        List<Slice<UserResponse>> parts = new ArrayList<>(shards.shardCount());
+        shards.forEach(shard -> parts.add(delegate.getAllUsers(filter, head, shardCountMode, includeArchived)));
+
+        // The parts are sorted runs, which the merge sort behind List.sort combines in linear passes
+        List<UserResponse> merged = new ArrayList<>();
+        parts.forEach(part -> merged.addAll(part.getContent()));
+        merged.sort(order);
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), merged.size());
+        List<UserResponse> content = List.copyOf(merged.subList(from, to));
+
+        if (countMode == CountMode.NONE) {
+            boolean hasNext = merged.size() > to || parts.stream().anyMatch(Slice::hasNext);
+            return new SliceImpl<>(content, pageable, hasNext);
+        }
+        long total = parts.stream().mapToLong(part -> ((Page<UserResponse>) part).getTotalElements()).sum();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public CursorPage<UserResponse> getUsers(UserSortKey sortKey, Sort.Direction direction, int size, String cursor) {
+        throw new InvalidPageRequestException("Cursor pagination is not available while users are sharded, use offset pagination");
+    }
+
+    @Override
+    public UserResponse updateUser(Long id, UserRegistrationRequest request) {
+        int shard = requireShard(id);
+        if (shards.directory().isEmailTaken(request.getEmail(), id)) {
+            throw new UserAlreadyExistsException("Email is already in use!");
+        }
+        int target = shards.shardOf(request.getUsername());
+        if (target != shard && shards.on(target, () -> delegate.existsByUsername(request.getUsername()))) {
+            throw new UserAlreadyExistsException("Username is already taken!");
+        }
+
+        UserResponse updated = shards.on(shard, () -> delegate.updateUser(id, request));
+        shards.directory().updateEmail(id, updated.getEmail());
+        if (target != shard) {
+            rebalancer.moveUser(id, shard, target);
+        }
+        return updated;
+    }
+
+    @Override
+    public void deleteUser(Long id) {
+        int shard = requireShard(id);
+        shards.on(shard, () -> {
+            delegate.deleteUser(id);
+            return null;
+        });
+        shards.directory().remove(id);
+    }
+
+    @Override
+    public void activateUser(Long id) {
+        shards.on(requireShard(id), () -> {
+            delegate.activateUser(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void deactivateUser(Long id) {
+        shards.on(requireShard(id), () -> {
+            delegate.deactivateUser(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void verifyUserEmail(Long id) {
+        shards.on(requireShard(id), () -> {
+            delegate.verifyUserEmail(id);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return shards.on(shards.shardOf(username), () -> delegate.existsByUsername(username));
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return shards.shardOfEmail(email).isPresent();
+    }
+
+    @Override
+    public void updateLastLogin(Long userId) {
+        delegate.updateLastLogin(userId);
+    }
+
+    @Override
+    public UserResponse convertToUserResponse(User user) {
+        return delegate.convertToUserResponse(user);
+    }
+
+    private int requireShard(Long id) {
+        return shards.shardOfUser(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+    }
+}
@@ -0,0 +1,86 @@
+package com.devops.microservice.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Global index on shard 0 of where each user lives, by id and by email. Usernames need no entry,
+ * their shard follows from the {@link UserShardMap}; emails and ids are resolved here in one query.
+ * The unique email column also keeps emails unique across shards. Statements run on shard 0's own
+ * pool, outside any shard transaction.
+ */
+public class UserShardDirectory {
+
+    static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS user_shard_directory (
+                user_id BIGINT NOT NULL PRIMARY KEY,
+                email VARCHAR(100) NOT NULL,
+                shard INT NOT NULL,
+                CONSTRAINT uk_user_shard_directory_email UNIQUE (email)
+            )""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserShardDirectory(DataSource shardZero) {
+        this.jdbcTemplate = new JdbcTemplate(shardZero);
+    }
+
+    public void createTableIfMissing() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    /**
+     * Record a user's shard
+     *
+     * @throws org.springframework.dao.DuplicateKeyException if the email belongs to another user
+     */
+    public void register(long userId, String email, int shard) {
+        jdbcTemplate.update("INSERT INTO user_shard_directory (user_id, email, shard) VALUES (?, ?, ?)",
+                userId, normalize(email), shard);
+    }
+
+    public Optional<Integer> shardOfUser(long userId) {
+        return first(jdbcTemplate.queryForList(
+                "SELECT shard FROM user_shard_directory WHERE user_id = ?", Integer.class, userId));
+    }
+
+    public Optional<Integer> shardOfEmail(String email) {
+        return first(jdbcTemplate.queryForList(
+                "SELECT shard FROM user_shard_directory WHERE email = ?", Integer.class, normalize(email)));
+    }
+
+    /**
+     * Whether the email is recorded for a user other than the given one
+     */
+    public boolean isEmailTaken(String email, long exceptUserId) {
+        return !jdbcTemplate.queryForList("SELECT user_id FROM user_shard_directory WHERE email = ? AND user_id <> ?",
+                Long.class, normalize(email), exceptUserId).isEmpty();
+    }
+
+    /**
+     * @throws org.springframework.dao.DuplicateKeyException if the email belongs to another user
+     */
+    public void updateEmail(long userId, String email) {
+        jdbcTemplate.update("UPDATE user_shard_directory SET email = ? WHERE user_id = ?", normalize(email), userId);
+    }
+
+    public void updateShard(long userId, int shard) {
+        jdbcTemplate.update("UPDATE user_shard_directory SET shard = ? WHERE user_id = ?", shard, userId);
+    }
+
+    public void remove(long userId) {
+        jdbcTemplate.update("DELETE FROM user_shard_directory WHERE user_id = ?", userId);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Optional<Integer> first(List<Integer> shards) {
+        return shards.isEmpty() ? Optional.empty() : Optional.of(shards.get(0));
+    }
+}
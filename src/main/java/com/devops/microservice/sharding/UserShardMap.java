@@ -0,0 +1,150 @@
+package com.devops.microservice.sharding;
+
+import com.devops.microservice.util.Hashing;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Placement of users on shards. The hash of the normalized username selects one of a fixed number
+ * of buckets, and each bucket is assigned to a shard, so rebalancing moves whole buckets and only
+ * the users in moved buckets change shard. Written as ranges, e.g. {@code 0-511:0,512-1023:1}.
+ */
+public final class UserShardMap {
+
+    public static final int DEFAULT_BUCKETS = 1024;
+
+    private final int[] bucketShards;
+    private final int shardCount;
+
+    private UserShardMap(int[] bucketShards, int shardCount) {
+        this.bucketShards = bucketShards;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Contiguous, equally sized bucket ranges per shard
+     */
+    public static UserShardMap uniform(int shardCount) {
+        int[] bucketShards = new int[DEFAULT_BUCKETS];
+        for (int bucket = 0; bucket < DEFAULT_BUCKETS; bucket++) {
+            bucketShards[bucket] = (int) ((long) bucket * shardCount / DEFAULT_BUCKETS);
+        }
+        return new UserShardMap(bucketShards, shardCount);
+    }
+
+    /**
+     * Read a map written by {@link #toSpec()}; every bucket must be assigned to one of the shards
+     */
+    public static UserShardMap parse(String spec, int shardCount) {
+        int[] bucketShards = new int[DEFAULT_BUCKETS];
+        Arrays.fill(bucketShards, -1);
+        try {
+            for (String range : spec.split(",")) {
+                String[] parts = range.trim().split(":");
+                String[] bounds = parts[0].split("-");
+                int from = Integer.parseInt(bounds[0].trim());
+                int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+                int shard = Integer.parseInt(parts[1].trim());
+                if (shard < 0 || shard >= shardCount) {
+                    throw new IllegalArgumentException("Shard " + shard + " does not exist, there are " + shardCount);
+                }
+                Arrays.fill(bucketShards, from, to + 1, shard);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid shard map '" + spec + "': " + e.getMessage(), e);
+        }
+        for (int bucket = 0; bucket < DEFAULT_BUCKETS; bucket++) {
+            if (bucketShards[bucket] < 0) {
+                throw new IllegalArgumentException("Invalid shard map '" + spec + "': bucket " + bucket + " is not assigned");
+            }
+        }
+        return new UserShardMap(bucketShards, shardCount);
+    }
+
+    /**
+     * Usernames are unique regardless of case, so every spelling must land on the same shard
+     */
+    public static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public int bucketOf(String username) {
+        return (int) Long.remainderUnsigned(Hashing.hash64(normalize(username)), DEFAULT_BUCKETS);
+    }
+
+    public int shardOf(String username) {
+        return bucketShards[bucketOf(username)];
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * The same assignment spread over a new number of shards, moving as few buckets as possible:
+     * shards above their share give buckets to shards below it, and the rest stay where they are
+     */
+    public UserShardMap rebalancedTo(int newShardCount) {
+        int[] rebalanced = bucketShards.clone();
+        int[] counts = new int[newShardCount];
+        int[] shares = new int[newShardCount];
+        for (int shard = 0; shard < newShardCount; shard++) {
+            shares[shard] = DEFAULT_BUCKETS / newShardCount + (shard < DEFAULT_BUCKETS % newShardCount ? 1 : 0);
+        }
+        for (int bucket = 0; bucket < DEFAULT_BUCKETS; bucket++) {
+            int shard = rebalanced[bucket];
+            if (shard < newShardCount && counts[shard] < shares[shard]) {
+                counts[shard]++;
+            } else {
+                rebalanced[bucket] = -1;
+            }
+        }
+        int receiver = 0;
+        for (int bucket = 0; bucket < DEFAULT_BUCKETS; bucket++) {
+            if (rebalanced[bucket] < 0) {
+                while (counts[receiver] >= shares[receiver]) {
+                    receiver++;
+                }
+                rebalanced[bucket] = receiver;
+                counts[receiver]++;
+            }
+        }
+        return new UserShardMap(rebalanced, newShardCount);
+    }
+
+    public String toSpec() {
+        StringBuilder spec = new StringBuilder();
+        int start = 0;
+        for (int bucket = 1; bucket <= DEFAULT_BUCKETS; bucket++) {
+            if (bucket == DEFAULT_BUCKETS || bucketShards[bucket] != bucketShards[start]) {
+                if (!spec.isEmpty()) {
+                    spec.append(',');
+                }
+                spec.append(start);
+                if (bucket - 1 > start) {
+                    spec.append('-').append(bucket - 1);
+                }
+                spec.append(':').append(bucketShards[start]);
+                start = bucket;
+            }
+        }
+        return spec.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UserShardMap other && shardCount == other.shardCount
+                && Arrays.equals(bucketShards, other.bucketShards);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * shardCount + Arrays.hashCode(bucketShards);
+    }
+
+    @Override
+    public String toString() {
+        return toSpec();
+    }
+}
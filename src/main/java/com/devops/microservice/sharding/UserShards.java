@@ -0,0 +1,116 @@
+package com.devops.microservice.sharding;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Where users live. Without sharding there is one shard and nothing is bound; with
+ * {@code app.sharding.enabled} the username selects the shard through the {@link UserShardMap}, and
+ * emails and ids through the {@link UserShardDirectory}. Code that reads or writes users outside
+ * {@link com.devops.microservice.service.UserService} runs each transaction through {@link #on} or
+ * {@link #forEach}, before its first statement.
+ */
+@Component
+@Slf4j
+public class UserShards {
+
+    private final ObjectProvider<UserShardDirectory> directoryProvider;
+
+    @Value("${app.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.sharding.shard-urls:}")
+    private List<String> shardUrls = List.of();
+
+    @Value("${app.sharding.bucket-map:}")
+    private String bucketMap = "";
+
+    private UserShardMap shardMap;
+
+    public UserShards(ObjectProvider<UserShardDirectory> directoryProvider) {
+        this.directoryProvider = directoryProvider;
+    }
+
+    /**
+     * Placement for a single database, as when sharding is disabled
+     */
+    public static UserShards unsharded() {
+        UserShards shards = new UserShards(null);
+        shards.init();
+        return shards;
+    }
+
+    @PostConstruct
+    void init() {
+        int shardCount = enabled ? 1 + (int) shardUrls.stream().filter(url -> !url.isBlank()).count() : 1;
+        shardMap = bucketMap.isBlank() ? UserShardMap.uniform(shardCount) : UserShardMap.parse(bucketMap, shardCount);
+        if (enabled) {
+            log.info("Users sharded over {} database(s) with map {}", shardCount, shardMap);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int shardCount() {
+        return shardMap.shardCount();
+    }
+
+    public UserShardMap getShardMap() {
+        return shardMap;
+    }
+
+    public int shardOf(String username) {
+        return enabled ? shardMap.shardOf(username) : 0;
+    }
+
+    /**
+     * Shard of the user with this email, empty if no user has it
+     */
+    public Optional<Integer> shardOfEmail(String email) {
+        return enabled ? directory().shardOfEmail(email) : Optional.of(0);
+    }
+
+    /**
+     * Shard of the user with this id, empty if there is no such user
+     */
+    public Optional<Integer> shardOfUser(long userId) {
+        return enabled ? directory().shardOfUser(userId) : Optional.of(0);
+    }
+
+    public UserShardDirectory directory() {
+        if (!enabled) {
+            throw new IllegalStateException("Users are not sharded");
+        }
+        return directoryProvider.getObject();
+    }
+
+    /**
+     * Run the work on one shard
+     */
+    public <T> T on(int shard, Supplier<T> work) {
+        return enabled ? ShardContext.call(shard, work) : work.get();
+    }
+
+    /**
+     * Run the work once on every shard, in shard order
+     */
+    public void forEach(IntConsumer work) {
+        for (int shard = 0; shard < shardCount(); shard++) {
+            int current = shard;
+            on(shard, () -> {
+                work.accept(current);
+                return null;
+            });
+        }
+    }
+}
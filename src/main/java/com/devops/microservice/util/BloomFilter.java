@@ -0,0 +1,94 @@
+package com.devops.microservice.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over string keys.
+ * Lookups hash the characters in place, so {@link #mightContain} neither allocates nor locks.
+ * Concurrent {@link #put} calls are safe; keys cannot be removed, rebuild the filter instead.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final long indexMask;
+    private final int hashFunctions;
+
+    private BloomFilter(long bitCount, int hashFunctions) {
+        // Power-of-two size so bit positions are taken with a mask instead of a division
+        long words = Long.highestOneBit(Math.max(1, (bitCount + 63) >>> 6) * 2 - 1);
+        if (words > (1 << 30)) {
+            throw new IllegalArgumentException("Bloom filter too large: " + bitCount + " bits");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words << 6;
+        this.indexMask = this.bitCount - 1;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Create a filter sized for the expected number of keys and target false-positive rate
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        long bitCount = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        return new BloomFilter(Math.max(64, bitCount), hashFunctions);
+    }
+
+    public void put(CharSequence key) {
+        long h1 = Hashing.hash64(key);
+        long h2 = Hashing.secondary(h1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = (h1 + i * h2) & indexMask;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(CharSequence key) {
+        long h1 = Hashing.hash64(key);
+        long h2 = Hashing.secondary(h1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = (h1 + i * h2) & indexMask;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitCount;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * Approximate memory held by the bit array, in bytes
+     */
+    public long memoryBytes() {
+        return bitCount >>> 3;
+    }
+
+    /**
+     * False-positive probability expected once the given number of keys has been added
+     */
+    public double expectedFalsePositiveRate(long insertions) {
+        return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions / bitCount), hashFunctions);
+    }
+}
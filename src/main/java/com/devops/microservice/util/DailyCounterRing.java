@@ -0,0 +1,75 @@
+package com.devops.microservice.util;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-day counts over the last {@code days} days, in a fixed ring of one slot per day. A slot is
+ * taken over, starting from zero, by the first caller that counts a later day mapping to it;
+ * counts for days that have already left the ring are dropped. All operations are lock-free.
+ */
+public final class DailyCounterRing {
+
+    private final AtomicReferenceArray<Slot> slots;
+
+    public DailyCounterRing(int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Days must be positive");
+        }
+        this.slots = new AtomicReferenceArray<>(days);
+    }
+
+    public int days() {
+        return slots.length();
+    }
+
+    /**
+     * Add to the day's count
+     */
+    public void add(LocalDate day, long delta) {
+        long epochDay = day.toEpochDay();
+        int index = index(epochDay);
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot != null && slot.epochDay() == epochDay) {
+                slot.count().add(delta);
+                return;
+            }
+            if (slot != null && slot.epochDay() > epochDay) {
+                return;
+            }
+            slots.compareAndSet(index, slot, new Slot(epochDay, new LongAdder()));
+        }
+    }
+
+    /**
+     * The day's count, zero once it has left the ring
+     */
+    public long get(LocalDate day) {
+        long epochDay = day.toEpochDay();
+        Slot slot = slots.get(index(epochDay));
+        return slot != null && slot.epochDay() == epochDay ? slot.count().sum() : 0;
+    }
+
+    /**
+     * Counts of the ring's days up to and including {@code today}, oldest first
+     */
+    public Map<LocalDate, Long> upTo(LocalDate today) {
+        Map<LocalDate, Long> counts = new LinkedHashMap<>();
+        for (int i = slots.length() - 1; i >= 0; i--) {
+            LocalDate day = today.minusDays(i);
+            counts.put(day, get(day));
+        }
+        return counts;
+    }
+
+    private int index(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) slots.length());
+    }
+
+    private record Slot(long epochDay, LongAdder count) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.devops.microservice.util;
+
+/**
+ * Allocation-free 64-bit hashing of strings for the probabilistic structures in this package
+ */
+public final class Hashing {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private Hashing() {
+    }
+
+    /**
+     * Hash the characters in place; no byte array is materialised
+     */
+    public static long hash64(CharSequence key) {
+        int length = key.length();
+        long h = length * 0xFF51AFD7ED558CCDL;
+        int i = 0;
+        // Four characters per round keeps the multiply chain short for typical ids and usernames
+        for (; i + 3 < length; i += 4) {
+            long block = key.charAt(i) | (long) key.charAt(i + 1) << 16
+                    | (long) key.charAt(i + 2) << 32 | (long) key.charAt(i + 3) << 48;
+            h = Long.rotateLeft(h ^ block * 0x87C37B91114253D5L, 27) * 5 + 0x52DCE729;
+        }
+        for (; i < length; i++) {
+            h = Long.rotateLeft(h ^ key.charAt(i) * 0x4CF5AD432745937FL, 31) * 5 + 0x38495AB5;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Second hash derived from the first, for double hashing ({@code h1 + i * h2}); always odd
+     */
+    public static long secondary(long hash) {
+        return mix(hash ^ SEED) | 1;
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
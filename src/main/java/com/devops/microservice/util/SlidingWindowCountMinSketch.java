@@ -0,0 +1,108 @@
+package com.devops.microservice.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate per-key event counts over a sliding time window, in fixed memory.
+ * The window is split into a ring of time slices, each a count-min sketch of
+ * {@code depth} rows by {@code width} counters. Estimates never undercount; hash
+ * collisions can only overcount. All operations are lock-free. A slice is cleared
+ * lazily by the first caller that sees it belong to an old window.
+ */
+public final class SlidingWindowCountMinSketch {
+
+    private final int depth;
+    private final int widthMask;
+    private final int slices;
+    private final long sliceMillis;
+
+    private final AtomicIntegerArray[] counters;
+    private final AtomicLongArray sliceIds;
+
+    public SlidingWindowCountMinSketch(int width, int depth, Duration window, int slices) {
+        if (width <= 0 || depth <= 0 || slices <= 0) {
+            throw new IllegalArgumentException("Width, depth and slices must be positive");
+        }
+        int roundedWidth = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+        this.slices = slices;
+        this.sliceMillis = Math.max(1, window.toMillis() / slices);
+        this.counters = new AtomicIntegerArray[slices];
+        for (int i = 0; i < slices; i++) {
+            counters[i] = new AtomicIntegerArray(depth * (widthMask + 1));
+        }
+        this.sliceIds = new AtomicLongArray(slices);
+    }
+
+    /**
+     * Count one event for the key
+     *
+     * @return estimated events for the key within the window, including this one
+     */
+    public int increment(CharSequence key, long nowMillis) {
+        long h1 = Hashing.hash64(key);
+        long h2 = Hashing.secondary(h1);
+        long sliceId = nowMillis / sliceMillis;
+        AtomicIntegerArray slice = currentSlice(sliceId);
+        for (int row = 0; row < depth; row++) {
+            slice.incrementAndGet(index(row, h1, h2));
+        }
+        return estimate(h1, h2, sliceId);
+    }
+
+    /**
+     * Estimated events for the key within the window
+     */
+    public int estimate(CharSequence key, long nowMillis) {
+        long h1 = Hashing.hash64(key);
+        return estimate(h1, Hashing.secondary(h1), nowMillis / sliceMillis);
+    }
+
+    /**
+     * Length of one time slice; estimates decay in steps of this size
+     */
+    public Duration sliceLength() {
+        return Duration.ofMillis(sliceMillis);
+    }
+
+    public long memoryBytes() {
+        return (long) slices * depth * (widthMask + 1) * Integer.BYTES;
+    }
+
+    private int estimate(long h1, long h2, long sliceId) {
+        long total = 0;
+        for (int slot = 0; slot < slices; slot++) {
+            long held = sliceIds.get(slot);
+            if (held <= sliceId - slices || held > sliceId) {
+                continue;
+            }
+            AtomicIntegerArray slice = counters[slot];
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < depth && min > 0; row++) {
+                min = Math.min(min, slice.get(index(row, h1, h2)));
+            }
+            total += min;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    private AtomicIntegerArray currentSlice(long sliceId) {
+        int slot = (int) (sliceId % slices);
+        long held = sliceIds.get(slot);
+        // Only the thread that wins the CAS clears; increments racing the clear may be dropped
+        if (held < sliceId && sliceIds.compareAndSet(slot, held, sliceId)) {
+            AtomicIntegerArray slice = counters[slot];
+            for (int i = 0; i < slice.length(); i++) {
+                slice.set(i, 0);
+            }
+        }
+        return counters[slot];
+    }
+
+    private int index(int row, long h1, long h2) {
+        return row * (widthMask + 1) + (int) ((h1 + row * h2) & widthMask);
+    }
+}
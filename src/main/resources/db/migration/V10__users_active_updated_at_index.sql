@@ -0,0 +1,2 @@
+-- Deactivated users by when they were deactivated, for the archive job's cold-user scan
+CREATE INDEX idx_users_active_updated_at ON users (is_active, updated_at);
@@ -0,0 +1,2 @@
+-- Bumped on password changes and deactivation; tokens carrying an older version are rejected
+ALTER TABLE users ADD COLUMN security_version INT DEFAULT 0;
@@ -0,0 +1,8 @@
+-- Logged-out tokens, kept until they expire
+CREATE TABLE revoked_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    jti VARCHAR(64) NOT NULL UNIQUE,
+    expires_at TIMESTAMP(6) NOT NULL,
+    revoked_at TIMESTAMP(6) NOT NULL,
+    INDEX idx_revoked_tokens_expires_at (expires_at)
+);
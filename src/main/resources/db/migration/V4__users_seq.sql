@@ -0,0 +1,8 @@
+-- Hibernate emulates the users id sequence with this table on MySQL (blocks of 50 ids). It starts
+-- after the users already stored, which were numbered by auto_increment.
+CREATE TABLE users_seq (
+    next_val BIGINT
+);
+
+INSERT INTO users_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 1 FROM users;
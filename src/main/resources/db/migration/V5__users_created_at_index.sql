@@ -0,0 +1,2 @@
+-- Keyset pagination over the default (created_at, id) order
+CREATE INDEX idx_users_created_at_id ON users (created_at, id);
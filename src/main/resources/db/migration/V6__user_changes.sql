@@ -0,0 +1,10 @@
+-- Cross-node user change log, polled by every node and pruned after its retention
+CREATE TABLE user_changes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    origin VARCHAR(64) NOT NULL,
+    payload VARCHAR(2000) NOT NULL,
+    changed_at TIMESTAMP(6) NOT NULL,
+    INDEX idx_user_changes_changed_at (changed_at)
+);
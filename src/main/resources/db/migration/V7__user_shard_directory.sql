@@ -0,0 +1,7 @@
+-- Shard directory, used on shard 0 only when users are sharded (created at startup if missing)
+CREATE TABLE IF NOT EXISTS user_shard_directory (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    email VARCHAR(100) NOT NULL,
+    shard INT NOT NULL,
+    CONSTRAINT uk_user_shard_directory_email UNIQUE (email)
+);
@@ -0,0 +1,27 @@
+-- Cold users moved out of users by the archive job, with their role links; ids are kept
+CREATE TABLE users_archive (
+    id BIGINT NOT NULL PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    first_name VARCHAR(50),
+    last_name VARCHAR(50),
+    is_active BOOLEAN,
+    is_email_verified BOOLEAN,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NULL,
+    last_login TIMESTAMP NULL,
+    security_version INT,
+    archived_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_users_archive_username UNIQUE (username),
+    CONSTRAINT uk_users_archive_email UNIQUE (email),
+    INDEX idx_users_archive_archived_at (archived_at)
+);
+
+CREATE TABLE user_roles_archive (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    FOREIGN KEY (user_id) REFERENCES users_archive(id) ON DELETE CASCADE,
+    FOREIGN KEY (role_id) REFERENCES roles(id) ON DELETE CASCADE
+);
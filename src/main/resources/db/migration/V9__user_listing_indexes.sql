@@ -0,0 +1,11 @@
+-- Composite indexes behind the filtered user listing. Each ends in the created_at, id order the
+-- listing uses by default, so an equality filter plus that sort reads the index in order and stops
+-- after one page instead of sorting every match.
+CREATE INDEX idx_users_active_created_at_id ON users (is_active, created_at, id);
+CREATE INDEX idx_users_verified_created_at_id ON users (is_email_verified, created_at, id);
+
+-- lastLogin range filters
+CREATE INDEX idx_users_last_login_id ON users (last_login, id);
+
+-- Role filters look users up by role; the primary key (user_id, role_id) only serves the reverse
+CREATE INDEX idx_user_roles_role_user ON user_roles (role_id, user_id);
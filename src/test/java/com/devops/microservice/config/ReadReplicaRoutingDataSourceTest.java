@@ -0,0 +1,113 @@
+package com.devops.microservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadReplicaRoutingDataSourceTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                    DataSourceTransactionManagerAutoConfiguration.class))
+            .withUserConfiguration(ReadReplicaDataSourceConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.username=sa",
+                    "app.datasource.replica.enabled=true",
+                    "app.datasource.replica.urls=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1");
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaAndEverythingElseThePrimary() {
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            TransactionTemplate readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            readOnly.setReadOnly(true);
+
+            assertEquals("REPLICA", readOnly.execute(status -> database(jdbcTemplate)));
+            assertEquals("PRIMARY", readWrite.execute(status -> database(jdbcTemplate)));
+            assertEquals("PRIMARY", database(jdbcTemplate));
+            // A read-only call joining a read-write transaction must see that transaction's writes
+            assertEquals("PRIMARY", readWrite.execute(status -> readOnly.execute(inner -> database(jdbcTemplate))));
+        });
+    }
+
+    @Test
+    void disabledByDefault() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+                .withUserConfiguration(ReadReplicaDataSourceConfig.class)
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1")
+                .run(context -> assertFalse(context.containsBean("readReplicaRoutingDataSource")));
+    }
+
+    @Test
+    void replicasTakeTurnsAndFailuresFallBackToThePrimary() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-a", h2("replica_a"));
+        replicas.put("replica-b", h2("replica_b"));
+        replicas.put("replica-down", new DriverManagerDataSource("jdbc:h2:mem:replica_down;IFEXISTS=TRUE", "sa", ""));
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(h2("primary_db"), replicas, 1);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        assertEquals("REPLICA_A", readOnly.execute(status -> database(jdbcTemplate)));
+        assertEquals("REPLICA_B", readOnly.execute(status -> database(jdbcTemplate)));
+        // The missing replica fails to connect, so this read lands on the primary and the replica leaves the rotation
+        assertEquals("PRIMARY_DB", readOnly.execute(status -> database(jdbcTemplate)));
+        assertEquals(2, routing.healthyReplicaCount());
+        assertEquals("REPLICA_A", readOnly.execute(status -> database(jdbcTemplate)));
+        assertEquals("REPLICA_B", readOnly.execute(status -> database(jdbcTemplate)));
+
+        routing.checkReplicas();
+        assertEquals(2, routing.healthyReplicaCount());
+
+        // Once the database exists the next health check puts the replica back
+        new JdbcTemplate(h2("replica_down")).execute("SELECT 1");
+        routing.checkReplicas();
+        assertEquals(3, routing.healthyReplicaCount());
+    }
+
+    @Test
+    void readsUseThePrimaryWhenNoReplicaIsHealthy() {
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(h2("only_primary"),
+                Map.of("replica", new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE", "sa", "")), 1);
+        routing.checkReplicas();
+        assertEquals(0, routing.healthyReplicaCount());
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        assertEquals("ONLY_PRIMARY", readOnly.execute(status -> database(new JdbcTemplate(dataSource))));
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static String database(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+    }
+}
@@ -2,28 +2,44 @@ package com.devops.microservice.controller;
 
 import com.devops.microservice.dto.request.LoginRequest;
 import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.AvailabilityResponse;
 import com.devops.microservice.dto.response.JwtResponse;
 import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.exception.ServiceOverloadedException;
+import com.devops.microservice.security.jwt.AuthTokenFilter;
+import com.devops.microservice.security.service.PasswordHashingExecutor;
 import com.devops.microservice.service.AuthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(AuthController.class)
+@WebMvcTest(controllers = AuthController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = AuthTokenFilter.class))
+@AutoConfigureMockMvc(addFilters = false)
 @ActiveProfiles("test")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class AuthControllerTest {
@@ -34,6 +50,9 @@ class AuthControllerTest {
     @MockBean
     private AuthService authService;
 
+    @MockBean
+    private PasswordHashingExecutor hashingExecutor;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -44,6 +63,10 @@ class AuthControllerTest {
 
     @BeforeEach
     void setUp() {
+        // Run hashing work inline so the async result is already complete
+        when(hashingExecutor.submit(anyString(), any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(1).get()));
+
         registrationRequest = UserRegistrationRequest.builder()
                 .username("testuser")
                 .email("test@example.com")
@@ -83,9 +106,13 @@ class AuthControllerTest {
     void registerUser_Success() throws Exception {
         when(authService.registerUser(any(UserRegistrationRequest.class))).thenReturn(userResponse);
 
-        mockMvc.perform(post("/api/v1/auth/register")
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(registrationRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.username").value("testuser"))
@@ -105,17 +132,34 @@ class AuthControllerTest {
 
     @Test
     void authenticateUser_Success() throws Exception {
-        when(authService.authenticateUser(any(LoginRequest.class))).thenReturn(jwtResponse);
+        when(authService.authenticateUser(any(LoginRequest.class), any())).thenReturn(jwtResponse);
 
-        mockMvc.perform(post("/api/v1/auth/login")
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.token").value("jwt-token"))
                 .andExpect(jsonPath("$.data.username").value("testuser"));
     }
 
+    @Test
+    void authenticateUser_QueueFull() throws Exception {
+        doThrow(new ServiceOverloadedException("Authentication service is busy, please retry shortly"))
+                .when(hashingExecutor).submit(anyString(), any());
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
     @Test
     void authenticateUser_ValidationError() throws Exception {
         loginRequest.setUsername(""); // Invalid username
@@ -126,4 +170,23 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false));
     }
+
+    @Test
+    void checkAvailability_Success() throws Exception {
+        when(authService.checkAvailability("newuser", null)).thenReturn(AvailabilityResponse.builder()
+                .username("newuser")
+                .usernameAvailable(true)
+                .build());
+
+        mockMvc.perform(get("/api/v1/auth/availability").param("username", "newuser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.usernameAvailable").value(true));
+    }
+
+    @Test
+    void checkAvailability_NothingToCheck() throws Exception {
+        mockMvc.perform(get("/api/v1/auth/availability").param("username", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
 }
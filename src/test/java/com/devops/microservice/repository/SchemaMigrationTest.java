@@ -0,0 +1,58 @@
+package com.devops.microservice.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs db/migration against H2 in MySQL mode, the way the prod profile runs it against MySQL
+ */
+class SchemaMigrationTest {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void baselinedDatabase_ReceivesEveryLaterMigration() {
+        // A database created by init.sql before migrations existed, holding users numbered by auto_increment
+        flyway().target(MigrationVersion.fromVersion("1")).load().migrate();
+        jdbcTemplate.execute("DROP TABLE \"flyway_schema_history\"");
+        jdbcTemplate.update("INSERT INTO users (username, email, password) VALUES ('alice', 'alice@example.com', 'x')");
+        jdbcTemplate.update("INSERT INTO users (username, email, password) VALUES ('bob', 'bob@example.com', 'x')");
+
+        flyway().baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertEquals(3L, jdbcTemplate.queryForObject("SELECT next_val FROM users_seq", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT security_version FROM users WHERE username = 'alice'", Integer.class));
+        for (String table : new String[]{"revoked_tokens", "user_changes", "user_shard_directory", "users_archive", "user_roles_archive"}) {
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class), table);
+        }
+    }
+
+    @Test
+    void emptyDatabase_StartsTheSequenceAtOne() {
+        flyway().load().migrate();
+
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT next_val FROM users_seq", Long.class));
+    }
+
+    private FluentConfiguration flyway() {
+        return Flyway.configure().dataSource(dataSource).locations("classpath:db/migration");
+    }
+}
@@ -0,0 +1,203 @@
+package com.devops.microservice.repository;
+
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.service.LastLoginBuffer;
+import com.devops.microservice.service.UserChangeLog;
+import com.devops.microservice.service.UserEntityCacheEvictor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.devops.microservice.sharding.UserShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs each step in its own committed transaction, since the second-level cache only sees committed data
+ */
+@DataJpaTest(properties = "app.users.changelog.enabled=true")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({LastLoginBuffer.class, UserEntityCacheEvictor.class, UserChangeLog.class, UserShards.class, SimpleMeterRegistry.class})
+class UserSecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private LastLoginBuffer lastLoginBuffer;
+
+    @Autowired
+    private UserEntityCacheEvictor cacheEvictor;
+
+    @Autowired
+    private UserChangeLog changeLog;
+
+    @Autowired
+    private UserChangeRepository changeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Role role = roleRepository.save(Role.builder().name(Role.RoleName.ROLE_USER).build());
+        User user = User.builder()
+                .username("cached")
+                .email("cached@example.com")
+                .password("encoded-password")
+                .build();
+        user.addRole(role);
+        userId = userRepository.save(user).getId();
+        evictAllRegions();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_changes");
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM roles");
+        evictAllRegions();
+    }
+
+    @Test
+    void findByUsername_IsServedFromTheCacheOnceLoaded() {
+        assertEquals(Set.of(Role.RoleName.ROLE_USER), roleNames(() -> userRepository.findByUsername("cached")));
+
+        statistics.clear();
+        assertEquals(Set.of(Role.RoleName.ROLE_USER), roleNames(() -> userRepository.findByUsername("cached")));
+
+        // Per-entity counts: the change log's scheduled poll may query user_changes meanwhile
+        assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Role.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getCollectionStatistics(User.class.getName() + ".roles").getLoadCount());
+        assertEquals(0, statistics.getNaturalIdStatistics(User.class.getName()).getExecutionCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 3, "user, its role set and the role");
+    }
+
+    @Test
+    void renamedUser_IsFoundUnderTheNewUsernameOnly() {
+        roleNames(() -> userRepository.findByUsername("cached"));
+
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).orElseThrow().setUsername("renamed"));
+
+        assertTrue(transactionTemplate.execute(status -> userRepository.findByUsername("cached")).isEmpty());
+        assertEquals(userId, transactionTemplate.execute(status -> userRepository.findByUsername("renamed")).orElseThrow().getId());
+    }
+
+    @Test
+    void lastLoginFlush_EvictsTheCachedUser() {
+        assertNull(transactionTemplate.execute(status -> userRepository.findById(userId)).orElseThrow().getLastLogin());
+
+        lastLoginBuffer.record(userId, Instant.now());
+        lastLoginBuffer.flush();
+
+        assertNotNull(transactionTemplate.execute(status -> userRepository.findById(userId)).orElseThrow().getLastLogin());
+    }
+
+    @Test
+    void changeMadeOnAnotherNode_EvictsTheUserItsRolesAndUsername() {
+        roleNames(() -> userRepository.findByUsername("cached"));
+        assertTrue(entityManagerFactory.getCache().contains(User.class, userId));
+
+        // Another node deactivates and renames the user and drops their roles; only the event reaches this one
+        jdbcTemplate.update("UPDATE users SET is_active = FALSE, username = 'moved' WHERE id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id = ?", userId);
+        UserSnapshot before = UserSnapshot.builder().id(userId).username("cached").active(true).build();
+        UserSnapshot after = UserSnapshot.builder().id(userId).username("moved").active(false).build();
+        cacheEvictor.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.DEACTIVATED, before, after));
+
+        assertTrue(transactionTemplate.execute(status -> userRepository.findByUsername("cached")).isEmpty());
+        User reloaded = transactionTemplate.execute(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            user.getRoles().size();
+            return user;
+        });
+        assertFalse(reloaded.getIsActive());
+        assertTrue(reloaded.getRoles().isEmpty());
+    }
+
+    @Test
+    void deactivationReplayedFromTheChangeLog_EvictsTheCachedUser() {
+        assertTrue(transactionTemplate.execute(status -> userRepository.findById(userId)).orElseThrow().getIsActive());
+        UserChangeLog otherNode = new UserChangeLog(changeRepository, eventPublisher, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(otherNode, "nodeId", "other-node");
+
+        // The other node's transaction: the row changes and the change is logged
+        UserSnapshot before = UserSnapshot.builder().id(userId).username("cached").active(true).build();
+        UserSnapshot after = UserSnapshot.builder().id(userId).username("cached").active(false).build();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE users SET is_active = FALSE WHERE id = ?", userId);
+            otherNode.append(UserChangedEvent.changed(UserChangedEvent.Type.DEACTIVATED, before, after));
+        });
+        assertTrue(transactionTemplate.execute(status -> userRepository.findById(userId)).orElseThrow().getIsActive());
+
+        changeLog.poll();
+
+        assertFalse(transactionTemplate.execute(status -> userRepository.findById(userId)).orElseThrow().getIsActive());
+        assertFalse(transactionTemplate.execute(status -> userRepository.findByUsername("cached")).orElseThrow().getIsActive());
+    }
+
+    private void evictAllRegions() {
+        // Cache.evictAll() leaves the natural-id region alone
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictAllRegions();
+    }
+
+    private Set<Role.RoleName> roleNames(Supplier<Optional<User>> lookup) {
+        return transactionTemplate.execute(status -> lookup.get().orElseThrow().getRoles().stream()
+                .map(Role::getName)
+                .collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,134 @@
+package com.devops.microservice.security.jwt;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.security.revocation.TokenRevocationService;
+import com.devops.microservice.security.revocation.TokenWatermarkRegistry;
+import com.devops.microservice.security.service.SecurityVersionRegistry;
+import com.devops.microservice.security.service.UserDetailsImpl;
+import com.devops.microservice.security.service.UserDetailsServiceImpl;
+import com.devops.microservice.sharding.UserShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The stateless path: tokens carrying the principal are accepted without a user lookup, as long as
+ * the security version they carry is still current
+ */
+class AuthTokenFilterTest {
+
+    private JwtUtils jwtUtils;
+    private UserDetailsServiceImpl userDetailsService;
+    private SecurityVersionRegistry securityVersions;
+    private AuthTokenFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret",
+                "testSecretKey123456789012345678901234567890123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 300000);
+        ReflectionTestUtils.setField(jwtUtils, "refreshExpirationMs", 600000);
+        ReflectionTestUtils.setField(jwtUtils, "statelessPrincipal", true);
+        jwtUtils.init();
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findSecurityVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 2}));
+        securityVersions = new SecurityVersionRegistry(userRepository, mock(ArchivedUserRepository.class),
+                UserShards.unsharded());
+        ReflectionTestUtils.invokeMethod(securityVersions, "load");
+
+        userDetailsService = mock(UserDetailsServiceImpl.class);
+        filter = new AuthTokenFilter(jwtUtils, userDetailsService, mock(TokenAuthenticationCache.class),
+                securityVersions, mock(TokenRevocationService.class), mock(TokenWatermarkRegistry.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void currentToken_AuthenticatesWithoutLoadingTheUser() throws Exception {
+        Authentication authentication = authenticate(token(1L, 2, true));
+
+        assertNotNull(authentication);
+        assertEquals("user1", ((UserDetailsImpl) authentication.getPrincipal()).getUsername());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void staleVersion_IsRejected() throws Exception {
+        assertNull(authenticate(token(1L, 1, true)));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void versionBump_RejectsTokensIssuedBeforeIt() throws Exception {
+        String before = token(1L, 2, true);
+
+        securityVersions.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.UPDATED, user(1L, 2), user(1L, 3)));
+
+        assertNull(authenticate(before));
+        assertNotNull(authenticate(token(1L, 3, true)));
+    }
+
+    @Test
+    void remoteDeletion_RejectsTheUsersTokens() throws Exception {
+        String token = token(5L, 0, true);
+        assertNotNull(authenticate(token));
+
+        // Replayed from another node's change log
+        securityVersions.onUserChanged(UserChangedEvent.deleted(user(5L, 0)).withChangedAt(Instant.now().minusSeconds(5)));
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void inactivePrincipal_IsRejected() throws Exception {
+        assertNull(authenticate(token(1L, 2, false)));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private String token(Long id, int securityVersion, boolean active) {
+        return jwtUtils.generateAccessToken(UserDetailsImpl.builder()
+                .id(id)
+                .username("user" + id)
+                .isActive(active)
+                .securityVersion(securityVersion)
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_USER")))
+                .build());
+    }
+
+    private static UserSnapshot user(Long id, int securityVersion) {
+        return UserSnapshot.builder().id(id).username("user" + id).active(true).securityVersion(securityVersion).build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.devops.microservice.security.jwt;
+
+import com.devops.microservice.security.service.UserDetailsImpl;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "testSecretKey123456789012345678901234567890123456789012345678901234567890";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 300000);
+        ReflectionTestUtils.setField(jwtUtils, "refreshExpirationMs", 600000);
+        jwtUtils.init();
+    }
+
+    @Test
+    void verifyToken_ReturnsClaims() {
+        String token = jwtUtils.generateTokenFromUsername("testuser");
+
+        VerifiedToken verified = jwtUtils.verifyToken(token);
+
+        assertEquals("testuser", verified.getSubject());
+        assertNotNull(verified.getIssuedAt());
+        assertTrue(verified.getExpiration().isAfter(Instant.now()));
+        assertFalse(verified.isExpired(Instant.now()));
+    }
+
+    @Test
+    void verifyToken_ExpiredToken() {
+        String token = signedToken(SECRET, new Date(System.currentTimeMillis() - 1000));
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtils.verifyToken(token));
+        assertFalse(jwtUtils.validateJwtToken(token));
+        assertTrue(jwtUtils.isTokenExpired(token));
+    }
+
+    @Test
+    void verifyToken_WrongSignature() {
+        String token = signedToken("otherSecretKey12345678901234567890123456789012345678901234567890",
+                new Date(System.currentTimeMillis() + 60000));
+
+        assertThrows(SignatureException.class, () -> jwtUtils.verifyToken(token));
+        assertFalse(jwtUtils.validateJwtToken(token));
+    }
+
+    @Test
+    void verifyToken_MalformedToken() {
+        assertThrows(MalformedJwtException.class, () -> jwtUtils.verifyToken("not-a-jwt"));
+        assertThrows(MalformedJwtException.class, () -> jwtUtils.verifyToken("a.b.c.d"));
+        assertThrows(MalformedJwtException.class, () -> jwtUtils.verifyToken("a..c"));
+        assertThrows(IllegalArgumentException.class, () -> jwtUtils.verifyToken(""));
+        assertTrue(jwtUtils.parseVerifiedToken("a.b.c").isEmpty());
+    }
+
+    @Test
+    void getUsernameAndExpiration_UseSingleVerification() {
+        String token = jwtUtils.generateRefreshToken("testuser");
+
+        assertEquals("testuser", jwtUtils.getUsernameFromJwtToken(token));
+        assertTrue(jwtUtils.getExpirationDateFromJwtToken(token).after(new Date()));
+    }
+
+    @Test
+    void statelessPrincipal_RoundTripsClaims() {
+        ReflectionTestUtils.setField(jwtUtils, "statelessPrincipal", true);
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+                .id(42L)
+                .username("testuser")
+                .isActive(true)
+                .securityVersion(3)
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_USER")))
+                .build();
+
+        VerifiedToken verified = jwtUtils.verifyToken(jwtUtils.generateAccessToken(principal));
+        UserDetailsImpl rebuilt = jwtUtils.buildPrincipal(verified);
+
+        assertEquals("42", verified.getSubject());
+        assertEquals(42L, jwtUtils.getUserId(verified));
+        assertEquals("testuser", rebuilt.getUsername());
+        assertTrue(rebuilt.isActive());
+        assertEquals(3, rebuilt.getSecurityVersion());
+        assertEquals("ROLE_USER", rebuilt.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void statelessPrincipal_DisabledKeepsUsernameSubject() {
+        String token = jwtUtils.generateTokenFromUsername("testuser");
+        VerifiedToken verified = jwtUtils.verifyToken(token);
+
+        assertNull(jwtUtils.getUserId(verified));
+        assertNull(jwtUtils.buildPrincipal(verified));
+    }
+
+    private static String signedToken(String secret, Date expiration) {
+        return Jwts.builder()
+                .setSubject("testuser")
+                .setIssuedAt(new Date(expiration.getTime() - 60000))
+                .setExpiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
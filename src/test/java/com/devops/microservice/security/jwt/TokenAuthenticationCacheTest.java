@@ -0,0 +1,108 @@
+package com.devops.microservice.security.jwt;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.security.service.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenAuthenticationCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private TokenAuthenticationCache tokenCache;
+
+    @BeforeEach
+    void setUp() {
+        tokenCache = new TokenAuthenticationCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tokenCache, "enabled", true);
+        ReflectionTestUtils.setField(tokenCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(tokenCache, "ttlSeconds", 300L);
+        tokenCache.ticker = nanos::get;
+        tokenCache.init();
+    }
+
+    @Test
+    void entries_ExpireWithTheTokenWhenItExpiresBeforeTheTtl() {
+        tokenCache.put("short", verified(Duration.ofSeconds(60)), user(1L), tokenCache.stamp());
+        tokenCache.put("long", verified(Duration.ofHours(1)), user(1L), tokenCache.stamp());
+
+        advance(Duration.ofSeconds(61));
+        assertNull(tokenCache.get("short"));
+        assertNotNull(tokenCache.get("long"));
+
+        advance(Duration.ofSeconds(240));
+        assertNull(tokenCache.get("long"));
+    }
+
+    @Test
+    void put_DropsALoadThatRacedWithAnInvalidation() {
+        long stamp = tokenCache.stamp();
+        tokenCache.evictUser(2L);
+
+        tokenCache.put("token", verified(Duration.ofHours(1)), user(1L), stamp);
+
+        assertNull(tokenCache.get("token"));
+        tokenCache.put("token", verified(Duration.ofHours(1)), user(1L), tokenCache.stamp());
+        assertNotNull(tokenCache.get("token"));
+    }
+
+    @Test
+    void userChanges_EvictOnlyThatUsersTokens() {
+        tokenCache.put("alice-1", verified(Duration.ofHours(1)), user(1L), tokenCache.stamp());
+        tokenCache.put("alice-2", verified(Duration.ofHours(1)), user(1L), tokenCache.stamp());
+        tokenCache.put("bob", verified(Duration.ofHours(1)), user(2L), tokenCache.stamp());
+
+        tokenCache.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.DEACTIVATED,
+                snapshot(1L, true), snapshot(1L, false)));
+
+        assertNull(tokenCache.get("alice-1"));
+        assertNull(tokenCache.get("alice-2"));
+        assertNotNull(tokenCache.get("bob"));
+
+        // Tokens cached after the change are served, also once its generation is forgotten
+        tokenCache.put("alice-3", verified(Duration.ofHours(1)), user(1L), tokenCache.stamp());
+        assertNotNull(tokenCache.get("alice-3"));
+        advance(Duration.ofSeconds(299));
+        tokenCache.put("alice-4", verified(Duration.ofHours(1)), user(1L), tokenCache.stamp());
+        advance(Duration.ofSeconds(2));
+        assertNotNull(tokenCache.get("alice-4"));
+    }
+
+    @Test
+    void createdUsers_KeepCachedTokens() {
+        tokenCache.put("token", verified(Duration.ofHours(1)), user(1L), tokenCache.stamp());
+
+        tokenCache.onUserChanged(UserChangedEvent.created(snapshot(1L, true)));
+
+        assertNotNull(tokenCache.get("token"));
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static VerifiedToken verified(Duration validFor) {
+        Claims claims = Jwts.claims()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + validFor.toMillis()));
+        return VerifiedToken.from(claims);
+    }
+
+    private static UserDetailsImpl user(Long id) {
+        return UserDetailsImpl.builder().id(id).username("user" + id).isActive(true).build();
+    }
+
+    private static UserSnapshot snapshot(Long id, boolean active) {
+        return UserSnapshot.builder().id(id).username("user" + id).active(active).build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.devops.microservice.security.password;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptivePasswordEncoderTest {
+
+    private final AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(5);
+
+    @Test
+    void encode_WritesPrefixedHashAtConfiguredCost() {
+        String encoded = encoder.encode("password123");
+
+        assertTrue(encoded.startsWith("{bcrypt}$2a$05$"));
+        assertEquals(5, AdaptivePasswordEncoder.costOf(encoded));
+        assertTrue(encoder.matches("password123", encoded));
+        assertFalse(encoder.upgradeEncoding(encoded));
+    }
+
+    @Test
+    void legacyHash_MatchesAndIsUpgraded() {
+        String legacy = new BCryptPasswordEncoder(5).encode("password123");
+
+        assertTrue(encoder.matches("password123", legacy));
+        assertFalse(encoder.matches("wrong", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void upgradeEncoding_OnlyRaisesTheCost() {
+        assertTrue(encoder.upgradeEncoding(new AdaptivePasswordEncoder(4).encode("password123")));
+        assertFalse(encoder.upgradeEncoding(new AdaptivePasswordEncoder(6).encode("password123")));
+        assertTrue(encoder.upgradeEncoding("{bcrypt}unknown"));
+    }
+
+    @Test
+    void costOf_UnknownFormats() {
+        assertEquals(-1, AdaptivePasswordEncoder.costOf(null));
+        assertEquals(-1, AdaptivePasswordEncoder.costOf("plain"));
+        assertEquals(-1, AdaptivePasswordEncoder.costOf("{noop}password"));
+        assertEquals(12, AdaptivePasswordEncoder.costOf("$2b$12$abcdefghijklmnopqrstuv"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.devops.microservice.security.revocation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileRevocationJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replay_ReturnsTheRevocationsPersistedBeforeARestart() throws IOException {
+        Path path = dir.resolve("journal/revoked-tokens.journal");
+        Instant now = Instant.ofEpochMilli(1_700_000_000_000L);
+        FileRevocationJournal journal = new FileRevocationJournal(path.toString(), true);
+        journal.replay(now, (jti, expiresAt) -> fail("Nothing revoked yet"));
+        journal.persist("token-1", now.plusSeconds(60));
+        journal.persist("token-2", now.plusSeconds(120));
+        journal.close();
+
+        Map<String, Instant> replayed = replay(path, now);
+
+        assertEquals(Map.of("token-1", now.plusSeconds(60), "token-2", now.plusSeconds(120)), replayed);
+    }
+
+    @Test
+    void replay_DropsExpiredAndCorruptLinesAndCompactsTheFile() throws IOException {
+        Path path = dir.resolve("revoked-tokens.journal");
+        Instant now = Instant.ofEpochMilli(1_700_000_000_000L);
+        Files.writeString(path, String.join("\n",
+                "expired " + now.minusSeconds(1).toEpochMilli(),
+                "active " + now.plusSeconds(60).toEpochMilli(),
+                "corrupt not-a-number",
+                "no-expiry",
+                ""), StandardOpenOption.CREATE);
+
+        Map<String, Instant> replayed = replay(path, now);
+
+        assertEquals(Map.of("active", now.plusSeconds(60)), replayed);
+        assertEquals(List.of("active " + now.plusSeconds(60).toEpochMilli()), Files.readAllLines(path));
+    }
+
+    private static Map<String, Instant> replay(Path path, Instant now) throws IOException {
+        FileRevocationJournal journal = new FileRevocationJournal(path.toString(), false);
+        Map<String, Instant> replayed = new LinkedHashMap<>();
+        try {
+            journal.replay(now, replayed::put);
+        } finally {
+            journal.close();
+        }
+        return replayed;
+    }
+}
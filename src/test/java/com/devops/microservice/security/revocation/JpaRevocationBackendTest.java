@@ -0,0 +1,98 @@
+package com.devops.microservice.security.revocation;
+
+import com.devops.microservice.entity.RevokedToken;
+import com.devops.microservice.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction, since revocations are inserted in transactions of their own
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaRevocationBackendTest {
+
+    private static final Instant EXPIRES_AT = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JpaRevocationBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new JpaRevocationBackend(revokedTokenRepository, transactionManager);
+        ReflectionTestUtils.setField(backend, "gapTimeoutMs", 60000L);
+        backend.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM revoked_tokens");
+    }
+
+    @Test
+    void persist_IgnoresATokenAlreadyRevokedElsewhere() {
+        backend.persist("token-1", EXPIRES_AT);
+
+        // A second node's logout of the same token, inside the logout's own transaction
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            backend.persist("token-1", EXPIRES_AT);
+            backend.persist("token-2", EXPIRES_AT);
+        });
+
+        assertEquals(List.of("token-1", "token-2"), revokedTokenRepository.findAll().stream()
+                .map(RevokedToken::getJti).sorted().toList());
+    }
+
+    @Test
+    void sync_PicksUpRowsCommittedAfterLaterOnes() {
+        insert(1, "token-1");
+        insert(3, "token-3");
+        Map<String, Instant> synced = new LinkedHashMap<>();
+
+        backend.sync(synced::put);
+        assertEquals(List.of("token-1", "token-3"), List.copyOf(synced.keySet()));
+        assertEquals(3, backend.getHighWaterMark());
+        assertEquals(1, backend.getGapCount());
+
+        // Id 2 was taken before id 3 but commits after it
+        insert(2, "token-2");
+        backend.sync(synced::put);
+
+        assertEquals(List.of("token-1", "token-3", "token-2"), List.copyOf(synced.keySet()));
+        assertEquals(0, backend.getGapCount());
+    }
+
+    private void insert(long id, String jti) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.update("INSERT INTO revoked_tokens (id, jti, expires_at, revoked_at) VALUES (?, ?, ?, ?)",
+                id, jti, Timestamp.from(EXPIRES_AT), now);
+    }
+}
@@ -0,0 +1,66 @@
+package com.devops.microservice.security.revocation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevokedTokenRegistryTest {
+
+    private RevokedTokenRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new RevokedTokenRegistry(100, 0.01);
+    }
+
+    @Test
+    void revoke_MarksTokenRevoked() {
+        assertTrue(registry.revoke("token-1", Instant.now().plusSeconds(60)));
+
+        assertTrue(registry.isRevoked("token-1"));
+        assertFalse(registry.isRevoked("token-2"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void revoke_IgnoresDuplicatesAndExpiredTokens() {
+        assertTrue(registry.revoke("token-1", Instant.now().plusSeconds(60)));
+        assertFalse(registry.revoke("token-1", Instant.now().plusSeconds(60)));
+        assertFalse(registry.revoke("token-2", Instant.now().minusSeconds(1)));
+
+        assertEquals(1, registry.size());
+        assertFalse(registry.isRevoked("token-2"));
+    }
+
+    @Test
+    void purgeExpired_EvictsInExpiryOrder() {
+        Instant now = Instant.now();
+        registry.revoke("late", now.plusSeconds(120));
+        registry.revoke("early", now.plusSeconds(30));
+
+        assertEquals(1, registry.purgeExpired(now.plusSeconds(60)));
+
+        assertFalse(registry.isRevoked("early"));
+        assertTrue(registry.isRevoked("late"));
+    }
+
+    @Test
+    void purgeExpired_RebuildsFilterWithoutLosingRevocations() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 100; i++) {
+            registry.revoke("expiring-" + i, now.plusSeconds(10));
+        }
+        registry.revoke("kept", now.plusSeconds(600));
+        var filterBefore = registry.getFilter();
+
+        assertEquals(100, registry.purgeExpired(now.plusSeconds(20)));
+
+        assertNotSame(filterBefore, registry.getFilter());
+        assertTrue(registry.isRevoked("kept"));
+        assertFalse(registry.isRevoked("expiring-1"));
+        assertEquals(1, registry.size());
+    }
+}
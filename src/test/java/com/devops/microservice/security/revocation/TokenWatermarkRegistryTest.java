@@ -0,0 +1,67 @@
+package com.devops.microservice.security.revocation;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenWatermarkRegistryTest {
+
+    private TokenWatermarkRegistry registry;
+    private Instant changedAt;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TokenWatermarkRegistry(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(registry, "refreshExpirationMs", 86_400_000L);
+        ReflectionTestUtils.setField(registry, "snapshotEnabled", false);
+        registry.init();
+        changedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusMillis(400);
+    }
+
+    @Test
+    void tokensIssuedLaterInTheSameSecondAreAccepted() {
+        registry.onUserChanged(deactivated().withChangedAt(changedAt));
+
+        assertTrue(registry.isInvalidated(1L, changedAt.minusMillis(1)));
+        assertTrue(registry.isInvalidated(1L, changedAt.truncatedTo(ChronoUnit.SECONDS)));
+        assertFalse(registry.isInvalidated(1L, changedAt));
+        assertFalse(registry.isInvalidated(1L, changedAt.plusMillis(300)));
+        assertFalse(registry.isInvalidated(2L, changedAt.minusSeconds(60)));
+    }
+
+    @Test
+    void replayedChangesUseTheTimeTheyWereMade() {
+        // Made a minute ago on another node, applied here only now
+        Instant madeAt = changedAt.minusSeconds(60);
+        Instant reissuedAt = madeAt.plusSeconds(30);
+
+        registry.onUserChanged(deactivated().withChangedAt(madeAt));
+
+        assertTrue(registry.isInvalidated(1L, madeAt.minusMillis(1)));
+        assertFalse(registry.isInvalidated(1L, reissuedAt));
+    }
+
+    @Test
+    void watermarksOnlyMoveForward() {
+        registry.invalidateBefore(1L, changedAt);
+        registry.onUserChanged(deactivated().withChangedAt(changedAt.minusSeconds(5)));
+
+        assertTrue(registry.isInvalidated(1L, changedAt.minusMillis(1)));
+        assertTrue(registry.isInvalidated(1L, null));
+        assertEquals(1, registry.size());
+    }
+
+    private static UserChangedEvent deactivated() {
+        UserSnapshot active = UserSnapshot.builder().id(1L).username("alice").active(true).build();
+        UserSnapshot inactive = UserSnapshot.builder().id(1L).username("alice").active(false).build();
+        return UserChangedEvent.changed(UserChangedEvent.Type.DEACTIVATED, active, inactive);
+    }
+}
@@ -0,0 +1,69 @@
+package com.devops.microservice.security.service;
+
+import com.devops.microservice.exception.TooManyLoginAttemptsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAttemptThrottleTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginAttemptThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        throttle = new LoginAttemptThrottle(meterRegistry);
+        ReflectionTestUtils.setField(throttle, "enabled", true);
+        ReflectionTestUtils.setField(throttle, "maxFailuresPerUser", 3);
+        ReflectionTestUtils.setField(throttle, "maxFailuresPerIp", 5);
+        ReflectionTestUtils.setField(throttle, "windowSeconds", 900L);
+        ReflectionTestUtils.setField(throttle, "slices", 15);
+        ReflectionTestUtils.setField(throttle, "sketchWidth", 1024);
+        ReflectionTestUtils.setField(throttle, "sketchDepth", 4);
+        ReflectionTestUtils.setField(throttle, "maxTrackedKeys", 1000);
+        throttle.init();
+    }
+
+    @Test
+    void checkAllowed_RejectsUsernameOverLimit() {
+        for (int i = 0; i < 3; i++) {
+            throttle.checkAllowed("testuser", "10.0.0." + i);
+            throttle.recordFailure("TestUser ", "10.0.0." + i);
+        }
+
+        TooManyLoginAttemptsException ex = assertThrows(TooManyLoginAttemptsException.class,
+                () -> throttle.checkAllowed("testuser", "10.0.0.99"));
+        assertEquals(60, ex.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> throttle.checkAllowed("otheruser", "10.0.0.99"));
+        assertEquals(1.0, meterRegistry.counter("auth.login.throttled", "key", "username").count());
+    }
+
+    @Test
+    void checkAllowed_RejectsAddressOverLimit() {
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure("user" + i, "10.0.0.1");
+        }
+
+        assertThrows(TooManyLoginAttemptsException.class, () -> throttle.checkAllowed("newuser", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.checkAllowed("newuser", "10.0.0.2"));
+        assertEquals(5.0, meterRegistry.counter("auth.login.failures").count());
+    }
+
+    @Test
+    void checkAllowed_FloodOfDistinctKeysDoesNotLockOutOtherUsers() {
+        // Far more keys than the 1024-wide sketch can tell apart; every estimate is over the limit
+        for (int i = 0; i < 50_000; i++) {
+            throttle.recordFailure("stuffed" + i, "172.16." + (i / 250) + "." + (i % 250));
+        }
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("victim", "10.0.0.1");
+        }
+
+        assertDoesNotThrow(() -> throttle.checkAllowed("bystander", "10.0.0.2"));
+        assertThrows(TooManyLoginAttemptsException.class, () -> throttle.checkAllowed("victim", "10.0.0.2"));
+    }
+}
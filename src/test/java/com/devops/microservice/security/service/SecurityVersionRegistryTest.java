@@ -0,0 +1,94 @@
+package com.devops.microservice.security.service;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.sharding.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SecurityVersionRegistryTest {
+
+    private SecurityVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        ArchivedUserRepository archivedUserRepository = mock(ArchivedUserRepository.class);
+        when(userRepository.findSecurityVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 2}));
+        when(archivedUserRepository.findSecurityVersions()).thenReturn(List.<Object[]>of(new Object[]{9L, 5}));
+        registry = new SecurityVersionRegistry(userRepository, archivedUserRepository, UserShards.unsharded());
+        ReflectionTestUtils.setField(registry, "refreshExpirationMs", Duration.ofDays(7).toMillis());
+        registry.load();
+    }
+
+    @Test
+    void load_TakesStoredVersionsOfHotAndArchivedUsers() {
+        assertFalse(registry.isCurrent(1L, 1));
+        assertTrue(registry.isCurrent(1L, 2));
+        assertFalse(registry.isCurrent(9L, 4));
+        assertTrue(registry.isCurrent(9L, 5));
+        assertTrue(registry.isCurrent(3L, 0));
+    }
+
+    @Test
+    void versionBump_RejectsTokensCarryingOlderVersions() {
+        registry.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.UPDATED, user(1L, 2), user(1L, 3)));
+
+        assertFalse(registry.isCurrent(1L, 2));
+        assertTrue(registry.isCurrent(1L, 3));
+    }
+
+    @Test
+    void remoteChanges_NeverLowerTheVersion() {
+        // Replayed from another node after a newer local change
+        registry.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.UPDATED, user(1L, 3), user(1L, 4)));
+        registry.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.ACTIVATED, user(1L, 2), user(1L, 3))
+                .withChangedAt(Instant.now().minusSeconds(30)));
+
+        assertFalse(registry.isCurrent(1L, 3));
+        assertTrue(registry.isCurrent(1L, 4));
+    }
+
+    @Test
+    void deletion_RejectsEveryToken() {
+        registry.onUserChanged(UserChangedEvent.deleted(user(3L, 0)));
+
+        assertFalse(registry.isCurrent(3L, 0));
+        assertFalse(registry.isCurrent(3L, Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    void compact_ForgetsUsersDeletedBeforeTheRefreshTokenLifetime() {
+        registry.onUserChanged(UserChangedEvent.deleted(user(3L, 0)).withChangedAt(Instant.now().minus(Duration.ofDays(8))));
+        registry.onUserChanged(UserChangedEvent.deleted(user(4L, 0)).withChangedAt(Instant.now().minus(Duration.ofDays(6))));
+
+        registry.compact();
+
+        assertEquals(3, registry.size());
+        assertTrue(registry.isCurrent(3L, 0));
+        assertFalse(registry.isCurrent(4L, Integer.MAX_VALUE - 1));
+        assertFalse(registry.isCurrent(1L, 1));
+    }
+
+    @Test
+    void changesWithoutVersion_AreNotTracked() {
+        registry.onUserChanged(UserChangedEvent.created(user(4L, 0)));
+        registry.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.EMAIL_VERIFIED, user(4L, 0), user(4L, 0)));
+
+        assertTrue(registry.isCurrent(4L, 0));
+    }
+
+    private static UserSnapshot user(Long id, int securityVersion) {
+        return UserSnapshot.builder().id(id).username("user" + id).active(true).securityVersion(securityVersion).build();
+    }
+}
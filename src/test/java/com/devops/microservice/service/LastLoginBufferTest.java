@@ -0,0 +1,83 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.User;
+import com.devops.microservice.sharding.UserShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LastLoginBufferTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private Cache cache;
+    private LastLoginBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        cache = mock(Cache.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        buffer = new LastLoginBuffer(jdbcTemplate, entityManagerFactory, new SimpleMeterRegistry(), UserShards.unsharded());
+        ReflectionTestUtils.setField(buffer, "batchSize", 500);
+        ReflectionTestUtils.setField(buffer, "jdbcTimeZone", "UTC");
+        buffer.init();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WritesLatestLoginPerUserInOneBatch() {
+        Instant first = Instant.parse("2024-01-01T10:00:00Z");
+        buffer.record(1L, first);
+        buffer.record(1L, first.plusSeconds(30));
+        buffer.record(1L, first.plusSeconds(10));
+        buffer.record(2L, first);
+
+        buffer.flush();
+
+        ArgumentCaptor<Collection<long[]>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE users SET last_login = ? WHERE id = ?"), batch.capture(),
+                eq(500), any(ParameterizedPreparedStatementSetter.class));
+        List<long[]> entries = List.copyOf(batch.getValue());
+        assertEquals(2, entries.size());
+        long[] user1 = entries.stream().filter(entry -> entry[0] == 1L).findFirst().orElseThrow();
+        assertEquals(first.plusSeconds(30).toEpochMilli(), user1[1]);
+        assertEquals(0, buffer.size());
+        verify(cache).evict(User.class, 1L);
+        verify(cache).evict(User.class, 2L);
+    }
+
+    @Test
+    void flush_KeepsEntriesWhenTheWriteFails() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        buffer.record(1L, Instant.now());
+
+        buffer.flush();
+
+        assertEquals(1, buffer.size());
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void flush_SkipsWhenNothingIsPending() {
+        buffer.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,191 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.exception.UserAlreadyExistsException;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.service.impl.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
+@ActiveProfiles("test")
+@Import({UserArchive.class, UserServiceImpl.class, RoleRegistry.class, UserCountCache.class, SimpleMeterRegistry.class})
+class UserArchiveTest {
+
+    @Autowired
+    private UserArchive userArchive;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ArchivedUserRepository archivedUserRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private LastLoginBuffer lastLoginBuffer;
+
+    private LocalDateTime now;
+    private User stale;
+    private User inactive;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        Role userRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_USER).build());
+        Role adminRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_ADMIN).build());
+
+        stale = persistUser("stale", now.minusYears(3), true, userRole, adminRole);
+        inactive = persistUser("inactive", now, false, userRole);
+        persistUser("hot", now, true, userRole);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void lockColdUsers_FindsStaleAndLongInactiveUsers() {
+        assertEquals(List.of(stale.getId()), userArchive.lockColdUsers(now.minusDays(30), now.minusYears(2), 10));
+        assertEquals(List.of(stale.getId(), inactive.getId()),
+                userArchive.lockColdUsers(now.plusMinutes(1), now.minusYears(2), 10));
+        assertEquals(List.of(stale.getId()), userArchive.lockColdUsers(now.plusMinutes(1), now.minusYears(2), 1));
+    }
+
+    @Test
+    void lockColdUsers_FallsBackToCreationForUsersThatNeverLoggedIn() {
+        User neverLoggedIn = persistUser("never", null, true);
+        entityManager.flush();
+
+        assertEquals(List.of(stale.getId()), userArchive.lockColdUsers(now.minusDays(30), now.minusYears(2), 10));
+        List<Long> cold = userArchive.lockColdUsers(now.minusDays(30), LocalDateTime.now().plusMinutes(1), 10);
+        assertEquals(4, cold.size());
+        assertEquals(neverLoggedIn.getId(), cold.get(3));
+    }
+
+    @Test
+    void archive_MovesUsersWithTheirRoles() {
+        assertEquals(1, archiveStaleUsers());
+
+        assertFalse(userRepository.existsById(stale.getId()));
+        assertEquals(2, userRepository.count());
+
+        UserResponse archived = userService.getUserByUsername("stale").orElseThrow();
+        assertTrue(archived.isArchived());
+        assertEquals(stale.getId(), archived.getId());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), archived.getRoles());
+        assertTrue(userService.getUserById(stale.getId()).orElseThrow().isArchived());
+        assertTrue(userService.existsByEmail("stale@example.com"));
+    }
+
+    @Test
+    void archive_KeepsArchivedNamesVisibleToImportChecks() {
+        archiveStaleUsers();
+
+        assertEquals(List.of("stale"), archivedUserRepository.findExistingUsernames(List.of("stale", "hot")));
+        assertEquals(List.of("stale@example.com"),
+                archivedUserRepository.findExistingEmails(List.of("stale@example.com", "hot@example.com")));
+        assertEquals(List.of("hot"), userRepository.findExistingUsernames(List.of("stale", "hot")));
+    }
+
+    @Test
+    void restore_MovesTheUserBackWithItsId() {
+        archiveStaleUsers();
+
+        User restored = userArchive.restore(stale.getId()).orElseThrow();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals("stale", restored.getUsername());
+        assertEquals(2, restored.getRoles().size());
+        assertEquals(0, archivedUserRepository.count());
+        assertFalse(userService.getUserByUsername("stale").orElseThrow().isArchived());
+    }
+
+    @Test
+    void changingAnArchivedUser_RestoresItFirst() {
+        archiveStaleUsers();
+
+        userService.deactivateUser(stale.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertFalse(archivedUserRepository.existsById(stale.getId()));
+        assertFalse(userRepository.findById(stale.getId()).orElseThrow().getIsActive());
+    }
+
+    @Test
+    void getAllUsers_ListsArchivedUsersOnlyWhenAsked() {
+        archiveStaleUsers();
+        PageRequest pageable = PageRequest.of(0, 10, Sort.by("username"));
+
+        Slice<UserResponse> hot = userService.getAllUsers(pageable, CountMode.EXACT, false);
+        Slice<UserResponse> all = userService.getAllUsers(pageable, CountMode.EXACT, true);
+
+        assertEquals(List.of("hot", "inactive"), hot.map(UserResponse::getUsername).getContent());
+        assertEquals(List.of("hot", "inactive", "stale"), all.map(UserResponse::getUsername).getContent());
+        assertEquals(List.of(false, false, true), all.map(UserResponse::isArchived).getContent());
+    }
+
+    @Test
+    void registerUser_RejectsNamesHeldByArchivedUsers() {
+        archiveStaleUsers();
+
+        UserRegistrationRequest request = UserRegistrationRequest.builder()
+                .username("stale")
+                .email("new@example.com")
+                .password("password123")
+                .build();
+
+        assertThrows(UserAlreadyExistsException.class, () -> userService.registerUser(request));
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    private int archiveStaleUsers() {
+        int moved = userArchive.archive(userArchive.lockColdUsers(now.minusDays(30), now.minusYears(2), 10), now);
+        entityManager.clear();
+        return moved;
+    }
+
+    private User persistUser(String username, LocalDateTime lastLogin, boolean active, Role... roles) {
+        User user = User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("encoded-password")
+                .isActive(active)
+                .lastLogin(lastLogin)
+                .build();
+        for (Role role : roles) {
+            user.addRole(role);
+        }
+        return entityManager.persist(user);
+    }
+}
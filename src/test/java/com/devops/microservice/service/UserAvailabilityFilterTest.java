@@ -0,0 +1,94 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.sharding.UserShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class UserAvailabilityFilterTest {
+
+    private UserRepository userRepository;
+    private ArchivedUserRepository archivedUserRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserAvailabilityFilter filter;
+    private Predicate<String> exactCheck;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        archivedUserRepository = mock(ArchivedUserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new UserAvailabilityFilter(userRepository, archivedUserRepository, UserShards.unsharded(),
+                mock(PlatformTransactionManager.class), meterRegistry);
+        ReflectionTestUtils.setField(filter, "expectedUsers", 1000L);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.001);
+        filter.init();
+        exactCheck = mock(Predicate.class);
+
+        when(userRepository.streamUsernamesAndEmails()).thenAnswer(invocation -> Stream.of(
+                new Object[]{"alice", "alice@example.com"}, new Object[]{"Bob", "Bob@Example.com"}));
+        when(archivedUserRepository.streamUsernamesAndEmails()).thenAnswer(invocation -> Stream.<Object[]>of(
+                new Object[]{"carol", "carol@example.com"}));
+    }
+
+    @Test
+    void beforeTheFirstBuild_EveryCheckQueries() {
+        when(exactCheck.test("dave")).thenReturn(false);
+
+        assertFalse(filter.isUsernameTaken("dave", exactCheck));
+        verify(exactCheck).test("dave");
+    }
+
+    @Test
+    void freeNames_AreAnsweredWithoutTheExactCheck() {
+        filter.rebuild();
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(filter.isUsernameTaken("free" + i, exactCheck));
+            assertFalse(filter.isEmailTaken("free" + i + "@example.com", exactCheck));
+        }
+        verify(exactCheck, atMost(2)).test(anyString());
+        assertTrue(meterRegistry.counter("users.availability.checks", "field", "username", "result", "filtered").count() >= 99);
+    }
+
+    @Test
+    void takenNames_IncludingArchivedOnesAndOtherCases_AreConfirmedByTheExactCheck() {
+        filter.rebuild();
+        when(exactCheck.test(anyString())).thenReturn(true);
+
+        assertTrue(filter.isUsernameTaken("ALICE", exactCheck));
+        assertTrue(filter.isUsernameTaken(" bob ", exactCheck));
+        assertTrue(filter.isUsernameTaken("carol", exactCheck));
+        assertTrue(filter.isEmailTaken("bob@example.com", exactCheck));
+        verify(exactCheck, times(4)).test(anyString());
+    }
+
+    @Test
+    void changedUsers_AreAddedAtOnceAndKeptByTheNextRebuild() {
+        filter.rebuild();
+        UserSnapshot dave = UserSnapshot.builder().id(4L).username("dave").email("dave@example.com").build();
+        when(exactCheck.test(anyString())).thenReturn(true);
+
+        filter.onUserChanged(UserChangedEvent.created(dave));
+        assertTrue(filter.isUsernameTaken("dave", exactCheck));
+
+        // Not in the scan yet, e.g. because its transaction had not committed
+        filter.rebuild();
+        assertTrue(filter.isEmailTaken("dave@example.com", exactCheck));
+        verify(exactCheck, times(2)).test(anyString());
+    }
+}
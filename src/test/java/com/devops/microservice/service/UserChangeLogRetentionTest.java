@@ -0,0 +1,64 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.UserChange;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.repository.UserChangeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction, as the scheduler calls {@link UserChangeLog#prune} without one
+ */
+@DataJpaTest(properties = {"app.users.changelog.enabled=true", "app.users.changelog.retention-ms=3600000"})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({UserChangeLog.class, SimpleMeterRegistry.class})
+class UserChangeLogRetentionTest {
+
+    @Autowired
+    private UserChangeLog changeLog;
+
+    @Autowired
+    private UserChangeRepository changeRepository;
+
+    @AfterEach
+    void tearDown() {
+        changeRepository.deleteAll();
+    }
+
+    @Test
+    void prune_DeletesChangesOlderThanTheRetention() {
+        UserChange expired = changeRepository.save(change(Instant.now().minusSeconds(7200)));
+        UserChange retained = changeRepository.save(change(Instant.now().minusSeconds(60)));
+
+        changeLog.prune();
+
+        assertEquals(List.of(retained.getId()), changeRepository.findAll().stream().map(UserChange::getId).toList());
+        assertFalse(changeRepository.existsById(expired.getId()));
+    }
+
+    private static UserChange change(Instant changedAt) {
+        return UserChange.builder()
+                .userId(1L)
+                .kind(UserChangedEvent.Type.UPDATED)
+                .origin("node-a")
+                .payload("{}")
+                .changedAt(changedAt)
+                .build();
+    }
+}
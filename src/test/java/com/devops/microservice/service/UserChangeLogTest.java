@@ -0,0 +1,143 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.UserChange;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.UserChangeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserChangeLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private UserChangeRepository changeRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private UserChangeLog nodeA;
+    private UserChangeLog nodeB;
+    private long appended;
+
+    @BeforeEach
+    void setUp() {
+        changeRepository = mock(UserChangeRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        nodeA = node("node-a", new SimpleMeterRegistry());
+        nodeB = node("node-b", meterRegistry);
+    }
+
+    @Test
+    void poll_AppliesOtherNodesChangesCoalescedPerUser() {
+        UserSnapshot alice = snapshot("alice", true, 0);
+        UserSnapshot alicia = snapshot("alicia", true, 0);
+        UserSnapshot deactivated = snapshot("alicia", false, 1);
+        List<UserChange> log = appendedBy(nodeA,
+                UserChangedEvent.changed(UserChangedEvent.Type.UPDATED, alice, alicia),
+                UserChangedEvent.changed(UserChangedEvent.Type.DEACTIVATED, alicia, deactivated));
+        log.addAll(appendedBy(nodeB, UserChangedEvent.created(snapshot("bob", true, 0))));
+        when(changeRepository.findTop500ByIdGreaterThanOrderByIdAsc(0L)).thenReturn(log);
+
+        nodeB.poll();
+
+        ArgumentCaptor<UserChangedEvent> published = ArgumentCaptor.forClass(UserChangedEvent.class);
+        verify(eventPublisher).publishEvent(published.capture());
+        UserChangedEvent event = published.getValue();
+        assertEquals(UserChangedEvent.Type.DEACTIVATED, event.getType());
+        assertEquals(alice, event.getBefore());
+        assertEquals(deactivated, event.getAfter());
+        // The time node A made the change, not the time node B applied it
+        assertEquals(log.get(1).getChangedAt(), event.getChangedAt());
+        assertEquals(3, nodeB.getHighWaterMark());
+        assertEquals(2, meterRegistry.get("users.changelog.lag").timer().count());
+        assertEquals(1, meterRegistry.get("users.changelog.applied").counter().count());
+    }
+
+    @Test
+    void poll_PicksUpEntriesThatCommitAfterLaterOnes() {
+        List<UserChange> log = appendedBy(nodeA,
+                UserChangedEvent.created(snapshot("alice", true, 0)),
+                UserChangedEvent.deleted(snapshot("alice", true, 0)),
+                UserChangedEvent.created(snapshot("carol", true, 0)));
+        when(changeRepository.findTop500ByIdGreaterThanOrderByIdAsc(0L)).thenReturn(List.of(log.get(0), log.get(2)));
+        when(changeRepository.findByIdIn(List.of(2L))).thenReturn(List.of(log.get(1)));
+
+        nodeB.poll();
+        assertEquals(1, meterRegistry.get("users.changelog.gaps").gauge().value());
+        nodeB.poll();
+
+        assertEquals(0, meterRegistry.get("users.changelog.gaps").gauge().value());
+        // All entries are for one user: the first poll coalesces 1 and 3, the second applies the late 2
+        verify(eventPublisher, times(2)).publishEvent(any(UserChangedEvent.class));
+    }
+
+    @Test
+    void coalesce_DeletionWinsAndCreationIsKept() {
+        UserSnapshot first = snapshot("alice", true, 0);
+        UserSnapshot renamed = snapshot("alicia", true, 0);
+
+        Instant earlier = Instant.parse("2026-01-01T12:00:00.100Z");
+        Instant later = earlier.plusMillis(50);
+
+        List<UserChangedEvent> created = UserChangeLog.coalesce(List.of(
+                UserChangedEvent.created(first).withChangedAt(earlier),
+                UserChangedEvent.changed(UserChangedEvent.Type.UPDATED, first, renamed).withChangedAt(later)));
+        List<UserChangedEvent> deleted = UserChangeLog.coalesce(List.of(
+                UserChangedEvent.changed(UserChangedEvent.Type.UPDATED, first, renamed).withChangedAt(earlier),
+                UserChangedEvent.deleted(renamed).withChangedAt(later)));
+
+        assertEquals(List.of(UserChangedEvent.created(renamed).withChangedAt(later)), created);
+        assertEquals(List.of(UserChangedEvent.deleted(first).withChangedAt(later)), deleted);
+    }
+
+    private UserChangeLog node(String nodeId, SimpleMeterRegistry registry) {
+        UserChangeLog changeLog = new UserChangeLog(changeRepository, eventPublisher, objectMapper, registry);
+        ReflectionTestUtils.setField(changeLog, "nodeId", nodeId);
+        ReflectionTestUtils.setField(changeLog, "gapTimeoutMs", 60000L);
+        changeLog.init();
+        return changeLog;
+    }
+
+    /**
+     * Entries as the node would write them, numbered after those already captured
+     */
+    private List<UserChange> appendedBy(UserChangeLog node, UserChangedEvent... events) {
+        clearInvocations(changeRepository);
+        for (UserChangedEvent event : events) {
+            node.append(event);
+        }
+        ArgumentCaptor<UserChange> saved = ArgumentCaptor.forClass(UserChange.class);
+        verify(changeRepository, times(events.length)).save(saved.capture());
+        List<UserChange> changes = new ArrayList<>(saved.getAllValues());
+        changes.forEach(change -> change.setId(++appended));
+        return changes;
+    }
+
+    private static UserSnapshot snapshot(String username, boolean active, int securityVersion) {
+        return UserSnapshot.builder()
+                .id(7L)
+                .username(username)
+                .email(username + "@example.com")
+                .active(active)
+                .securityVersion(securityVersion)
+                .roles(Set.of(Role.RoleName.ROLE_USER))
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+}
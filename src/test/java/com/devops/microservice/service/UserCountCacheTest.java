@@ -0,0 +1,87 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserCountCacheTest {
+
+    private UserRepository userRepository;
+    private ArchivedUserRepository archivedUserRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserCountCache countCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        archivedUserRepository = mock(ArchivedUserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        countCache = new UserCountCache(userRepository, archivedUserRepository, meterRegistry);
+        countCache.init();
+    }
+
+    @Test
+    void cachedCount_FollowsEventsUntilReconciled() {
+        when(userRepository.count()).thenReturn(10L, 15L);
+
+        assertEquals(10, countCache.cachedCount());
+        countCache.onUserChanged(UserChangedEvent.created(snapshot(11L)));
+        countCache.onUserChanged(UserChangedEvent.created(snapshot(12L)));
+        countCache.onUserChanged(UserChangedEvent.deleted(snapshot(3L)));
+        assertEquals(11, countCache.cachedCount());
+        verify(userRepository, times(1)).count();
+
+        countCache.reconcile();
+
+        assertEquals(15, countCache.cachedCount());
+    }
+
+    @Test
+    void cachedArchivedCount_FollowsArchivingAndRestoring() {
+        when(userRepository.count()).thenReturn(10L);
+        when(archivedUserRepository.count()).thenReturn(4L, 9L);
+
+        assertEquals(10, countCache.cachedCount());
+        assertEquals(4, countCache.cachedArchivedCount());
+        countCache.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.ARCHIVED, snapshot(1L), snapshot(1L)));
+        countCache.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.ARCHIVED, snapshot(2L), snapshot(2L)));
+        countCache.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.RESTORED, snapshot(3L), snapshot(3L)));
+        countCache.onUserChanged(UserChangedEvent.deleted(snapshot(4L)));
+        assertEquals(5, countCache.cachedArchivedCount());
+        assertEquals(8, countCache.cachedCount());
+        verify(archivedUserRepository, times(1)).count();
+
+        countCache.reconcile();
+
+        assertEquals(9, countCache.cachedArchivedCount());
+    }
+
+    @Test
+    void eventsBeforeTheFirstCountAreIgnored() {
+        when(userRepository.count()).thenReturn(7L);
+
+        countCache.onUserChanged(UserChangedEvent.created(snapshot(1L)));
+
+        assertEquals(7, countCache.cachedCount());
+    }
+
+    @Test
+    void skippedCountsAreTallied() {
+        countCache.recordSkipped(CountMode.NONE);
+        countCache.recordSkipped(CountMode.CACHED);
+
+        assertEquals(1, meterRegistry.get("users.count.skipped").tag("mode", "none").counter().count());
+        assertEquals(2, meterRegistry.get("users.count.skipped").counters().size());
+    }
+
+    private static UserSnapshot snapshot(long id) {
+        return UserSnapshot.builder().id(id).build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.devops.microservice.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserIdSequenceSeederTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserIdSequenceSeeder seeder;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        seeder = new UserIdSequenceSeeder(jdbcTemplate, mock(EntityManagerFactory.class));
+        // An auto_increment-numbered database after Hibernate added users_seq with its initial value
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE users_seq (next_val BIGINT)");
+        jdbcTemplate.update("INSERT INTO users (username) VALUES ('alice'), ('bob'), ('carol')");
+        jdbcTemplate.update("INSERT INTO users_seq (next_val) VALUES (1)");
+    }
+
+    @Test
+    void seed_MovesTheSequencePastStoredAndArchivedUsers() {
+        jdbcTemplate.execute("CREATE TABLE users_archive (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.update("INSERT INTO users_archive (id) VALUES (7)");
+
+        seeder.seed();
+
+        assertEquals(8L, jdbcTemplate.queryForObject("SELECT next_val FROM users_seq", Long.class));
+    }
+
+    @Test
+    void seed_NeverMovesTheSequenceBack() {
+        jdbcTemplate.update("UPDATE users_seq SET next_val = 101");
+
+        seeder.seed();
+
+        assertEquals(101L, jdbcTemplate.queryForObject("SELECT next_val FROM users_seq", Long.class));
+    }
+}
@@ -0,0 +1,76 @@
+package com.devops.microservice.service;
+
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserReadCacheTest {
+
+    private CaffeineCacheManager cacheManager;
+    private UserReadCache readCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(UserReadCache.BY_ID, UserReadCache.BY_USERNAME,
+                UserReadCache.BY_EMAIL, UserReadCache.USERNAME_EXISTS, UserReadCache.EMAIL_EXISTS);
+        readCache = new UserReadCache(cacheManager);
+    }
+
+    @Test
+    void rename_EvictsOldAndNewNamesInAnyCase() {
+        cache(UserReadCache.BY_ID).put(1L, "alice");
+        cache(UserReadCache.BY_USERNAME).put("alice", "alice");
+        cache(UserReadCache.USERNAME_EXISTS).put("alicia", false);
+        cache(UserReadCache.BY_EMAIL).put("alice@example.com", "alice");
+        cache(UserReadCache.BY_ID).put(2L, "bob");
+        cache(UserReadCache.BY_USERNAME).put("bob", "bob");
+
+        readCache.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.UPDATED,
+                snapshot(1L, "Alice", "Alice@Example.com"), snapshot(1L, "ALICIA", "alicia@example.com")));
+
+        assertNull(cache(UserReadCache.BY_ID).get(1L));
+        assertNull(cache(UserReadCache.BY_USERNAME).get("alice"));
+        assertNull(cache(UserReadCache.USERNAME_EXISTS).get("alicia"));
+        assertNull(cache(UserReadCache.BY_EMAIL).get("alice@example.com"));
+        assertNotNull(cache(UserReadCache.BY_ID).get(2L));
+        assertNotNull(cache(UserReadCache.BY_USERNAME).get("bob"));
+    }
+
+    @Test
+    void created_EvictsCachedMisses() {
+        cache(UserReadCache.BY_ID).put(3L, null);
+        cache(UserReadCache.BY_USERNAME).put("carol", null);
+        cache(UserReadCache.EMAIL_EXISTS).put("carol@example.com", false);
+
+        readCache.onUserChanged(UserChangedEvent.created(snapshot(3L, "carol", "carol@example.com")));
+
+        assertNull(cache(UserReadCache.BY_ID).get(3L));
+        assertNull(cache(UserReadCache.BY_USERNAME).get("carol"));
+        assertNull(cache(UserReadCache.EMAIL_EXISTS).get("carol@example.com"));
+    }
+
+    @Test
+    void normalizedKey_LowerCasesTheLookedUpName() {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setVariable("p0", "Alice@Example.COM");
+
+        Object key = new SpelExpressionParser().parseExpression(UserReadCache.NORMALIZED_KEY).getValue(context);
+
+        assertEquals("alice@example.com", key);
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
+    private static UserSnapshot snapshot(long id, String username, String email) {
+        return UserSnapshot.builder().id(id).username(username).email(email).build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.security.jwt.JwtUtils;
+import com.devops.microservice.security.revocation.TokenRevocationService;
+import com.devops.microservice.security.revocation.TokenWatermarkRegistry;
+import com.devops.microservice.security.service.LoginAttemptThrottle;
+import com.devops.microservice.security.service.UserDetailsImpl;
+import com.devops.microservice.security.service.UserDetailsServiceImpl;
+import com.devops.microservice.service.UserAvailabilityFilter;
+import com.devops.microservice.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthServiceImplTest {
+
+    private JwtUtils jwtUtils;
+    private TokenRevocationService revocationService;
+    private UserDetailsServiceImpl userDetailsService;
+    private AuthServiceImpl authService;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "testSecretKey123456789012345678901234567890123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 300000);
+        ReflectionTestUtils.setField(jwtUtils, "refreshExpirationMs", 600000);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+
+        revocationService = new TokenRevocationService(List.of(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(revocationService, "expectedRevocations", 100L);
+        ReflectionTestUtils.setField(revocationService, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.invokeMethod(revocationService, "init");
+
+        userDetailsService = mock(UserDetailsServiceImpl.class);
+        authService = new AuthServiceImpl(mock(AuthenticationManager.class), jwtUtils, mock(UserService.class),
+                userDetailsService, revocationService, mock(TokenWatermarkRegistry.class),
+                mock(LoginAttemptThrottle.class), mock(UserAvailabilityFilter.class));
+    }
+
+    @Test
+    void logout_RevokesTheRefreshTokenSoItCannotBeUsed() {
+        UserDetailsImpl alice = principal(1L, "alice");
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(alice);
+        String accessToken = jwtUtils.generateAccessToken(alice);
+        String refreshToken = jwtUtils.generateRefreshToken(alice);
+        assertNotNull(authService.refreshToken(refreshToken).getToken());
+
+        authService.logout(accessToken, refreshToken);
+
+        assertTrue(revocationService.isRevoked(jwtUtils.verifyToken(accessToken)));
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> authService.refreshToken(refreshToken));
+        assertEquals("Refresh token has been revoked", ex.getMessage());
+    }
+
+    @Test
+    void logout_LeavesOtherUsersRefreshTokensAlone() {
+        String accessToken = jwtUtils.generateAccessToken(principal(1L, "alice"));
+        String othersRefreshToken = jwtUtils.generateRefreshToken(principal(2L, "bob"));
+
+        authService.logout(accessToken, othersRefreshToken);
+
+        assertFalse(revocationService.isRevoked(jwtUtils.verifyToken(othersRefreshToken)));
+    }
+
+    private static UserDetailsImpl principal(Long id, String username) {
+        return UserDetailsImpl.builder()
+                .id(id)
+                .username(username)
+                .email(username + "@example.com")
+                .isActive(true)
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_USER")))
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.response.CursorPage;
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.exception.InvalidPageRequestException;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.service.LastLoginBuffer;
+import com.devops.microservice.service.RoleRegistry;
+import com.devops.microservice.service.UserArchive;
+import com.devops.microservice.service.UserCountCache;
+import com.devops.microservice.service.UserService;
+import com.devops.microservice.service.UserSortKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({UserServiceImpl.class, RoleRegistry.class, UserArchive.class})
+class UserCursorPaginationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private LastLoginBuffer lastLoginBuffer;
+
+    @MockBean
+    private UserCountCache userCountCache;
+
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        List<User> created = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            created.add(User.builder()
+                    .username("user" + (char) ('a' + (i * 7) % 25))
+                    .email("user" + i + "@example.com")
+                    .password("encoded-password")
+                    .build());
+        }
+        // Saved in one flush, so many rows share a createdAt and only the id breaks the tie
+        users = userRepository.saveAllAndFlush(created);
+    }
+
+    @Test
+    void getUsers_WalksEveryRowOnceForwardAndBack() {
+        List<Long> expected = users.stream()
+                .sorted(Comparator.comparing(User::getCreatedAt).thenComparing(User::getId).reversed())
+                .map(User::getId)
+                .toList();
+
+        List<Long> forward = new ArrayList<>();
+        CursorPage<UserResponse> page = userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 10, null);
+        assertFalse(page.isHasPrevious());
+        while (true) {
+            page.getContent().forEach(user -> forward.add(user.getId()));
+            if (!page.isHasNext()) {
+                break;
+            }
+            page = userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 10, page.getNextCursor());
+        }
+        assertEquals(expected, forward);
+        assertEquals(5, page.getSize());
+        assertNull(page.getNextCursor());
+
+        CursorPage<UserResponse> previous = userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 10, page.getPrevCursor());
+        assertEquals(expected.subList(10, 20), previous.getContent().stream().map(UserResponse::getId).toList());
+        assertTrue(previous.isHasNext());
+        assertTrue(previous.isHasPrevious());
+
+        CursorPage<UserResponse> first = userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 10, previous.getPrevCursor());
+        assertEquals(expected.subList(0, 10), first.getContent().stream().map(UserResponse::getId).toList());
+        assertFalse(first.isHasPrevious());
+    }
+
+    @Test
+    void getUsers_CursorKeepsItsSortWhenParametersChange() {
+        CursorPage<UserResponse> page = userService.getUsers(UserSortKey.USERNAME, Sort.Direction.ASC, 3, null);
+        assertEquals(List.of("usera", "userb", "userc"), page.getContent().stream().map(UserResponse::getUsername).toList());
+
+        CursorPage<UserResponse> next = userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 3, page.getNextCursor());
+
+        assertEquals("username", next.getSortBy());
+        assertEquals(List.of("userd", "usere", "userf"), next.getContent().stream().map(UserResponse::getUsername).toList());
+    }
+
+    @Test
+    void getUsers_RejectsTamperedCursorAndUnsupportedSort() {
+        assertThrows(InvalidPageRequestException.class,
+                () -> userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 10, "not-a-cursor"));
+        assertThrows(InvalidPageRequestException.class, () -> UserSortKey.fromProperty("password"));
+    }
+}
@@ -0,0 +1,128 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.request.UserExportFilter;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.service.UserExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({UserExportServiceImpl.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class UserExportServiceImplTest {
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Role userRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_USER).build());
+        Role adminRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_ADMIN).build());
+        for (int i = 0; i < 7; i++) {
+            User user = User.builder()
+                    .username("user" + i)
+                    .email("user" + i + "@example.com")
+                    .password("encoded-password")
+                    .firstName(i == 2 ? "Smith, \"Jr\"" : "First" + i)
+                    .isActive(i != 3)
+                    .build();
+            user.addRole(userRole);
+            if (i % 2 == 0) {
+                user.addRole(adminRole);
+            }
+            users.add(entityManager.persist(user));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void exportUsers_NdjsonWritesEveryUserInIdOrderAcrossChunks() throws Exception {
+        ReflectionTestUtils.setField(userExportService, "chunkSize", 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = userExportService.exportUsers(new UserExportFilter(), UserExportService.Format.NDJSON, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(7, written);
+        assertEquals(7, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode user = objectMapper.readTree(lines.get(i));
+            assertEquals(users.get(i).getId(), user.get("id").asLong());
+            assertEquals(i % 2 == 0 ? 2 : 1, user.get("roles").size());
+            assertFalse(user.has("password"));
+        }
+    }
+
+    @Test
+    void exportUsers_CsvAppliesFiltersAndQuotesFields() throws Exception {
+        UserExportFilter filter = UserExportFilter.builder()
+                .active(true)
+                .role(Role.RoleName.ROLE_ADMIN)
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = userExportService.exportUsers(filter, UserExportService.Format.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(4, written);
+        assertEquals(UserExportServiceImpl.CSV_HEADER, lines.get(0));
+        assertEquals(List.of("user0", "user2", "user4", "user6"),
+                lines.stream().skip(1).map(line -> line.split(",")[1]).toList());
+        assertTrue(lines.get(2).contains(",\"Smith, \"\"Jr\"\"\","));
+        assertTrue(lines.get(2).contains(",true,false,ROLE_ADMIN|ROLE_USER,"));
+    }
+
+    @Test
+    void exportUsers_FiltersOnCreationTime() throws Exception {
+        User first = users.get(0);
+        UserExportFilter filter = UserExportFilter.builder()
+                .createdFrom(first.getCreatedAt().plusYears(1))
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, userExportService.exportUsers(filter, UserExportService.Format.NDJSON, out));
+        assertEquals(0, out.size());
+
+        filter.setCreatedFrom(first.getCreatedAt());
+        filter.setCreatedTo(first.getCreatedAt().plusYears(1));
+        assertEquals(7, userExportService.exportUsers(filter, UserExportService.Format.NDJSON, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void buffersWholeResultSet_OnlyForMySqlUrlsWithoutCursorFetch() {
+        assertTrue(UserExportServiceImpl.buffersWholeResultSet(
+                "jdbc:mysql://mysql:3306/user_registration_db?useSSL=false&characterEncoding=utf8"));
+        assertFalse(UserExportServiceImpl.buffersWholeResultSet(
+                "jdbc:mysql://mysql:3306/user_registration_db?useSSL=false&useCursorFetch=true"));
+        assertFalse(UserExportServiceImpl.buffersWholeResultSet("jdbc:h2:mem:testdb"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.request.UserListFilter;
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.service.CountMode;
+import com.devops.microservice.service.LastLoginBuffer;
+import com.devops.microservice.service.RoleRegistry;
+import com.devops.microservice.service.UserArchive;
+import com.devops.microservice.service.UserCountCache;
+import com.devops.microservice.service.UserService;
+import com.devops.microservice.service.UserSortKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
+@ActiveProfiles("test")
+@Import({UserServiceImpl.class, RoleRegistry.class, UserArchive.class, UserCountCache.class, SimpleMeterRegistry.class})
+class UserFilteredListingTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserArchive userArchive;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private LastLoginBuffer lastLoginBuffer;
+
+    private LocalDateTime now;
+    private Pageable byUsername;
+
+    @BeforeEach
+    void setUp() {
+        // Whole seconds, so stored times equal the bounds they are compared with
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        byUsername = PageRequest.of(0, 10, UserSortKey.USERNAME.sort(Sort.Direction.ASC));
+        Role userRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_USER).build());
+        Role adminRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_ADMIN).build());
+
+        persistUser("alice", true, true, now.minusDays(1), userRole, adminRole);
+        persistUser("bob", true, false, now.minusDays(10), userRole);
+        persistUser("carol", false, true, null, userRole);
+        persistUser("dave", true, true, now.minusYears(3), userRole, adminRole);
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE users SET created_at = ?1 WHERE username = 'dave'")
+                .setParameter(1, now.minusYears(4))
+                .executeUpdate();
+        entityManager.clear();
+    }
+
+    @Test
+    void filters_AreCombined() {
+        assertEquals(List.of("alice", "bob", "dave"), usernames(UserListFilter.builder().isActive(true).build()));
+        assertEquals(List.of("alice", "dave"), usernames(UserListFilter.builder()
+                .isActive(true).isEmailVerified(true).role(Role.RoleName.ROLE_ADMIN).build()));
+        assertEquals(List.of("carol"), usernames(UserListFilter.builder().isActive(false).role(Role.RoleName.ROLE_USER).build()));
+    }
+
+    @Test
+    void ranges_AreHalfOpenAndSkipUsersWhoNeverLoggedIn() {
+        assertEquals(List.of("alice", "bob"), usernames(UserListFilter.builder()
+                .lastLoginFrom(now.minusDays(10)).lastLoginTo(now).build()));
+        assertEquals(List.of("bob"), usernames(UserListFilter.builder()
+                .lastLoginFrom(now.minusDays(10)).lastLoginTo(now.minusDays(1)).build()));
+        assertEquals(List.of("dave"), usernames(UserListFilter.builder().createdTo(now.minusYears(1)).build()));
+        assertEquals(List.of("alice", "bob", "carol"), usernames(UserListFilter.builder().createdFrom(now.minusYears(1)).build()));
+    }
+
+    @Test
+    void getAllUsers_PagesAndCountsTheMatchesOnly() {
+        UserListFilter active = UserListFilter.builder().isActive(true).build();
+        Pageable firstTwo = PageRequest.of(0, 2, UserSortKey.USERNAME.sort(Sort.Direction.DESC));
+
+        Page<UserResponse> exact = (Page<UserResponse>) userService.getAllUsers(active, firstTwo, CountMode.EXACT, false);
+        Slice<UserResponse> cached = userService.getAllUsers(active, firstTwo, CountMode.CACHED, false);
+
+        assertEquals(List.of("dave", "bob"), exact.map(UserResponse::getUsername).getContent());
+        assertEquals(3, exact.getTotalElements());
+        assertFalse(cached instanceof Page);
+        assertTrue(cached.hasNext());
+    }
+
+    @Test
+    void getAllUsers_AppliesTheFilterToArchivedUsers() {
+        userArchive.archive(userArchive.lockColdUsers(now.minusDays(30), now.minusYears(2), 10), now);
+        entityManager.clear();
+        UserListFilter admins = UserListFilter.builder().role(Role.RoleName.ROLE_ADMIN).build();
+
+        Page<UserResponse> users = (Page<UserResponse>) userService.getAllUsers(admins, byUsername, CountMode.EXACT, true);
+
+        assertEquals(List.of("alice", "dave"), users.map(UserResponse::getUsername).getContent());
+        assertEquals(List.of(false, true), users.map(UserResponse::isArchived).getContent());
+        assertEquals(2, users.getTotalElements());
+    }
+
+    private List<String> usernames(UserListFilter filter) {
+        return userService.getAllUsers(filter, byUsername, CountMode.NONE, false).map(UserResponse::getUsername).getContent();
+    }
+
+    private void persistUser(String username, boolean active, boolean verified, LocalDateTime lastLogin, Role... roles) {
+        User user = User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("encoded-password")
+                .isActive(active)
+                .isEmailVerified(verified)
+                .lastLogin(lastLogin)
+                .build();
+        for (Role role : roles) {
+            user.addRole(role);
+        }
+        entityManager.persist(user);
+    }
+}
@@ -0,0 +1,171 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.response.UserImportResult;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.exception.InvalidImportException;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.service.RoleRegistry;
+import com.devops.microservice.service.UserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceImplTest {
+
+    private UserRepository userRepository;
+    private ArchivedUserRepository archivedUserRepository;
+    private UserImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository = mock(UserRepository.class);
+        archivedUserRepository = mock(ArchivedUserRepository.class);
+        RoleRegistry roleRegistry = mock(RoleRegistry.class);
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(Role.builder().id(1L).name(Role.RoleName.ROLE_USER).build());
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hashed-" + invocation.getArgument(0));
+        when(userRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        importService = new UserImportServiceImpl(userRepository, archivedUserRepository, roleRegistry, passwordEncoder,
+                mock(ApplicationEventPublisher.class), new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+        ReflectionTestUtils.setField(importService, "hashingParallelism", 2);
+        ReflectionTestUtils.setField(importService, "maxReportedErrors", 10);
+        importService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        importService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importUsers_CsvInsertsValidRowsInChunksAndReportsTheRest() throws Exception {
+        String csv = """
+                username,email,password,first_name,last_name
+                alice,alice@example.com,password123,"Alice, Jr.",Smith
+                bob,not-an-email,password123,Bob,Jones
+                carol,carol@example.com,password123,Carol,
+                ALICE,alice2@example.com,password123,Alice,Again
+                dave,dave@example.com,password123,Dave,"O""Brien"
+                """;
+
+        UserImportResult result = importService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(5, result.getTotalRows());
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(3L, 5L), result.getErrors().stream().map(UserImportResult.RowError::getLine).toList());
+        assertEquals("email: Please provide a valid email address", result.getErrors().get(0).getMessage());
+        assertEquals("Username appears earlier in the file", result.getErrors().get(1).getMessage());
+
+        ArgumentCaptor<List<User>> batches = ArgumentCaptor.forClass(List.class);
+        verify(userRepository, times(2)).saveAllAndFlush(batches.capture());
+        User alice = batches.getAllValues().get(0).get(0);
+        assertEquals("Alice, Jr.", alice.getFirstName());
+        assertEquals("hashed-password123", alice.getPassword());
+        assertEquals(1, alice.getRoles().size());
+        assertNull(batches.getAllValues().get(0).get(1).getLastName());
+        assertEquals("O\"Brien", batches.getAllValues().get(1).get(0).getLastName());
+    }
+
+    @Test
+    void importUsers_NdjsonSkipsMalformedLinesAndExistingUsers() throws Exception {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("Taken"));
+        String ndjson = """
+                {"username":"taken","email":"taken@example.com","password":"password123"}
+                {"username":"broken",
+                {"username":"fresh","email":"fresh@example.com","password":"password123"}
+                """;
+
+        UserImportResult result = importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        assertEquals(3, result.getTotalRows());
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed row"));
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals("Username is already taken!", result.getErrors().get(1).getMessage());
+        assertEquals("taken", result.getErrors().get(1).getUsername());
+    }
+
+    @Test
+    void importUsers_SkipsUsernamesAndEmailsOfArchivedUsers() throws Exception {
+        when(archivedUserRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("sleeper"));
+        when(archivedUserRepository.findExistingEmails(anyCollection())).thenReturn(List.of("Dormant@example.com"));
+        String ndjson = """
+                {"username":"sleeper","email":"new@example.com","password":"password123"}
+                {"username":"newcomer","email":"dormant@example.com","password":"password123"}
+                {"username":"fresh","email":"fresh@example.com","password":"password123"}
+                """;
+
+        UserImportResult result = importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of("Username is already taken!", "Email is already in use!"),
+                result.getErrors().stream().map(UserImportResult.RowError::getMessage).toList());
+        verify(userRepository).saveAllAndFlush(argThat((List<User> users) -> users.size() == 1));
+    }
+
+    @Test
+    void importUsers_RetriesRowByRowAndReportsUniqueKeyConflicts() throws Exception {
+        when(userRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("batch"));
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // H2 reports the natural id's unnamed unique key by its index and column
+        when(userRepository.saveAndFlush(argThat(user -> user != null && "racer".equals(user.getUsername()))))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("Unique index or primary key violation", new SQLException(),
+                                "PUBLIC.CONSTRAINT_INDEX_4D ON PUBLIC.USERS(USERNAME NULLS FIRST) VALUES ( /* 1 */ 'racer' )")));
+        String ndjson = """
+                {"username":"racer","email":"racer@example.com","password":"password123"}
+                {"username":"fresh","email":"fresh@example.com","password":"password123"}
+                """;
+
+        UserImportResult result = importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals("racer", result.getErrors().get(0).getUsername());
+        assertEquals("Username is already taken!", result.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void importUsers_RejectsCsvWithoutRequiredColumns() {
+        InputStream csv = stream("username,email\nalice,alice@example.com\n");
+
+        InvalidImportException exception = assertThrows(InvalidImportException.class,
+                () -> importService.importUsers(csv, UserImportService.Format.CSV));
+
+        assertEquals("CSV header must contain a 'password' column", exception.getMessage());
+        verifyNoInteractions(userRepository);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,136 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.entity.User;
+import com.devops.microservice.service.CountMode;
+import com.devops.microservice.service.LastLoginBuffer;
+import com.devops.microservice.service.RoleRegistry;
+import com.devops.microservice.service.UserArchive;
+import com.devops.microservice.service.UserCountCache;
+import com.devops.microservice.service.UserService;
+import com.devops.microservice.service.UserSortKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements per read endpoint must not grow with the number of users returned.
+ * The second-level cache is off so every count reflects what reaches the database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"})
+@ActiveProfiles("test")
+@Import({UserServiceImpl.class, RoleRegistry.class, UserArchive.class, UserCountCache.class, SimpleMeterRegistry.class})
+class UserQueryCountTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserCountCache userCountCache;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private LastLoginBuffer lastLoginBuffer;
+
+    private Statistics statistics;
+    private User firstUser;
+
+    @BeforeEach
+    void setUp() {
+        Role userRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_USER).build());
+        Role adminRole = entityManager.persist(Role.builder().name(Role.RoleName.ROLE_ADMIN).build());
+        for (int i = 0; i < 30; i++) {
+            User user = User.builder()
+                    .username("user" + i)
+                    .email("user" + i + "@example.com")
+                    .password("encoded-password")
+                    .build();
+            user.addRole(userRole);
+            if (i % 3 == 0) {
+                user.addRole(adminRole);
+            }
+            entityManager.persist(user);
+            if (i == 0) {
+                firstUser = user;
+            }
+        }
+        entityManager.flush();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void offsetListing_UsesTheSameStatementsForAnyPageSize() {
+        userCountCache.cachedCount();
+        for (CountMode mode : CountMode.values()) {
+            long small = statementsFor(() -> userService.getAllUsers(PageRequest.of(1, 5, Sort.by("createdAt")), mode));
+            long large = statementsFor(() -> userService.getAllUsers(PageRequest.of(0, 25, Sort.by("createdAt")), mode));
+
+            assertEquals(small, large, "count mode " + mode);
+            // Rows, roles and (for exact) the count
+            assertEquals(mode == CountMode.EXACT ? 3 : 2, large, "count mode " + mode);
+        }
+    }
+
+    @Test
+    void offsetListing_ReturnsEveryRole() {
+        entityManager.clear();
+        Slice<UserResponse> users = userService.getAllUsers(PageRequest.of(0, 3, Sort.by("username")), CountMode.NONE);
+
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), users.getContent().get(0).getRoles());
+        assertEquals(Set.of("ROLE_USER"), users.getContent().get(1).getRoles());
+    }
+
+    @Test
+    void cursorListing_UsesTheSameStatementsForAnyPageSize() {
+        long small = statementsFor(() -> userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 5, null));
+        long large = statementsFor(() -> userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 25, null));
+
+        assertEquals(small, large);
+        assertEquals(2, large);
+    }
+
+    @Test
+    void lookups_UseTwoStatements() {
+        assertEquals(2, statementsFor(() -> userService.getUserById(firstUser.getId())));
+        assertEquals(2, statementsFor(() -> userService.getUserByUsername("user1")));
+        assertEquals(2, statementsFor(() -> userService.getUserByEmail("user2@example.com")));
+    }
+
+    private long statementsFor(Supplier<?> call) {
+        // Start from an empty persistence context so nothing is served from the first-level cache
+        entityManager.clear();
+        statistics.clear();
+        assertNotNull(call.get());
+        return statistics.getPrepareStatementCount();
+    }
+}
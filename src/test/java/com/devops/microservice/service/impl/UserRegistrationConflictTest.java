@@ -0,0 +1,82 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.exception.UserAlreadyExistsException;
+import com.devops.microservice.service.LastLoginBuffer;
+import com.devops.microservice.service.RoleRegistry;
+import com.devops.microservice.service.UserArchive;
+import com.devops.microservice.service.UserCountCache;
+import com.devops.microservice.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Duplicate registrations against the schema Hibernate generates, where the database's own unique
+ * keys report the conflict
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({UserServiceImpl.class, RoleRegistry.class, UserArchive.class, UserCountCache.class, SimpleMeterRegistry.class})
+class UserRegistrationConflictTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private LastLoginBuffer lastLoginBuffer;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordEncoder.encode(any())).thenReturn("encoded-password");
+        entityManager.persist(Role.builder().name(Role.RoleName.ROLE_USER).build());
+        entityManager.flush();
+        roleRegistry.reload();
+        userService.registerUser(request("alice", "alice@example.com"));
+    }
+
+    @Test
+    void duplicateUsername_IsReportedAsTaken() {
+        UserAlreadyExistsException e = assertThrows(UserAlreadyExistsException.class,
+                () -> userService.registerUser(request("alice", "other@example.com")));
+
+        assertEquals(UserConstraintViolations.USERNAME_TAKEN, e.getMessage());
+    }
+
+    @Test
+    void duplicateEmail_IsReportedAsInUse() {
+        UserAlreadyExistsException e = assertThrows(UserAlreadyExistsException.class,
+                () -> userService.registerUser(request("bob", "alice@example.com")));
+
+        assertEquals(UserConstraintViolations.EMAIL_IN_USE, e.getMessage());
+    }
+
+    private static UserRegistrationRequest request(String username, String email) {
+        return UserRegistrationRequest.builder()
+                .username(username)
+                .email(email)
+                .password("password123")
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.response.UserSearchResult;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.exception.FeatureDisabledException;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.repository.projection.UserRow;
+import com.devops.microservice.sharding.UserShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class UserSearchServiceImplTest {
+
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserSearchServiceImpl searchService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        searchService = new UserSearchServiceImpl(userRepository, UserShards.unsharded(),
+                mock(PlatformTransactionManager.class), meterRegistry);
+        ReflectionTestUtils.setField(searchService, "enabled", true);
+        ReflectionTestUtils.setField(searchService, "maxCandidates", 20000);
+        searchService.init();
+
+        created(1L, "johnsmith", "john@example.com", "John", "Smith", true, Role.RoleName.ROLE_USER);
+        created(2L, "jsmith", "js@corp.example.org", "Jane", "Smithers", true, Role.RoleName.ROLE_ADMIN);
+        created(3L, "bob", "bob.johnson@example.com", "Bob", "Johnson", false, Role.RoleName.ROLE_USER);
+    }
+
+    @Test
+    void searchUsers_MatchesSubstringsOfAnyFieldAndRanksExactMatchesFirst() {
+        List<UserSearchResult> results = searchService.searchUsers("smith", null, null, 10);
+
+        assertEquals(List.of(1L, 2L), ids(results));
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+        assertEquals("Smith", results.get(0).getLastName());
+        assertEquals(Set.of("ROLE_USER"), results.get(0).getRoles());
+    }
+
+    @Test
+    void searchUsers_IgnoresCaseAndRequiresEveryTerm() {
+        assertEquals(List.of(1L, 3L), ids(searchService.searchUsers("JOHN", null, null, 10)));
+        assertEquals(List.of(3L), ids(searchService.searchUsers("john bob", null, null, 10)));
+        assertTrue(searchService.searchUsers("john zzz", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void searchUsers_MatchesShortTermsAsPrefixesOnly() {
+        // Equal scores: the newer user first
+        assertEquals(List.of(2L, 1L, 3L), ids(searchService.searchUsers("j", null, null, 10)));
+        assertEquals(List.of(3L), ids(searchService.searchUsers("bo", null, null, 10)));
+        // "th" occurs inside "smith", but is too short to be matched there
+        assertTrue(searchService.searchUsers("th", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void searchUsers_AppliesFiltersAndLimit() {
+        assertEquals(List.of(1L), ids(searchService.searchUsers("john", null, true, 10)));
+        assertEquals(List.of(3L), ids(searchService.searchUsers("john", Role.RoleName.ROLE_USER, false, 10)));
+        assertEquals(1, searchService.searchUsers("example", null, null, 1).size());
+    }
+
+    @Test
+    void changes_ReplaceAndRemoveIndexedUsers() {
+        UserSnapshot before = snapshot(1L, "johnsmith", "john@example.com", "John", "Smith", true, Role.RoleName.ROLE_USER);
+        UserSnapshot after = snapshot(1L, "johnny", "john@example.com", "John", "Doe", true, Role.RoleName.ROLE_USER);
+        searchService.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.UPDATED, before, after));
+
+        assertEquals(List.of(2L), ids(searchService.searchUsers("smith", null, null, 10)));
+        assertEquals(List.of(1L), ids(searchService.searchUsers("johnny", null, null, 10)));
+
+        searchService.onUserChanged(UserChangedEvent.deleted(after));
+        assertTrue(searchService.searchUsers("johnny", null, null, 10).isEmpty());
+        assertEquals(2.0, meterRegistry.get("users.search.index.users").gauge().value());
+    }
+
+    @Test
+    void rebuild_IndexesEveryUserFromTheScan() {
+        when(userRepository.streamRows(any(), any(), any(), any(), any())).thenReturn(Stream.of(
+                new UserRow(7L, "alice", "alice@example.com", "Alice", "Wonder", true, true, null, null)));
+        when(userRepository.findRoleNamesByUserIds(anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{7L, Role.RoleName.ROLE_MODERATOR}));
+
+        searchService.rebuild();
+
+        assertTrue(searchService.searchUsers("smith", null, null, 10).isEmpty());
+        List<UserSearchResult> results = searchService.searchUsers("wonder", Role.RoleName.ROLE_MODERATOR, true, 10);
+        assertEquals(List.of(7L), ids(results));
+        assertTrue(meterRegistry.get("users.search.index.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    void disabledSearch_BuildsNothingAndRefusesQueries() {
+        ReflectionTestUtils.setField(searchService, "enabled", false);
+
+        searchService.rebuild();
+        created(4L, "carol", "carol@example.com", "Carol", "Smith", true, Role.RoleName.ROLE_USER);
+
+        verifyNoInteractions(userRepository);
+        assertThrows(FeatureDisabledException.class, () -> searchService.searchUsers("smith", null, null, 10));
+        assertEquals(3.0, meterRegistry.get("users.search.index.users").gauge().value());
+    }
+
+    private void created(Long id, String username, String email, String firstName, String lastName, boolean active,
+                         Role.RoleName role) {
+        searchService.onUserChanged(UserChangedEvent.created(snapshot(id, username, email, firstName, lastName, active, role)));
+    }
+
+    private static UserSnapshot snapshot(Long id, String username, String email, String firstName, String lastName,
+                                         boolean active, Role.RoleName role) {
+        return UserSnapshot.builder()
+                .id(id)
+                .username(username)
+                .email(email)
+                .firstName(firstName)
+                .lastName(lastName)
+                .active(active)
+                .roles(Set.of(role))
+                .build();
+    }
+
+    private static List<Long> ids(List<UserSearchResult> results) {
+        return results.stream().map(UserSearchResult::getId).toList();
+    }
+}
@@ -5,16 +5,33 @@ import com.devops.microservice.dto.response.UserResponse;
 import com.devops.microservice.entity.Role;
 import com.devops.microservice.entity.User;
 import com.devops.microservice.exception.UserAlreadyExistsException;
-import com.devops.microservice.repository.RoleRepository;
+import com.devops.microservice.repository.ArchivedUserRepository;
 import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.repository.projection.UserRow;
+import com.devops.microservice.service.CountMode;
+import com.devops.microservice.service.LastLoginBuffer;
+import com.devops.microservice.service.RoleRegistry;
+import com.devops.microservice.service.UserArchive;
+import com.devops.microservice.service.UserCountCache;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -30,16 +47,32 @@ class UserServiceImplTest {
     private UserRepository userRepository;
 
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LastLoginBuffer lastLoginBuffer;
+
+    @Mock
+    private UserCountCache userCountCache;
+
+    @Mock
+    private ArchivedUserRepository archivedUserRepository;
+
+    @Mock
+    private UserArchive userArchive;
+
     @InjectMocks
     private UserServiceImpl userService;
 
     private UserRegistrationRequest registrationRequest;
     private User user;
+    private UserRow userRow;
     private Role userRole;
 
     @BeforeEach
@@ -69,15 +102,15 @@ class UserServiceImplTest {
                 .isEmailVerified(false)
                 .roles(Set.of(userRole))
                 .build();
+
+        userRow = new UserRow(1L, "testuser", "test@example.com", "Test", "User", true, false, null, null);
     }
 
     @Test
     void registerUser_Success() {
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(roleRepository.findByName(Role.RoleName.ROLE_USER)).thenReturn(Optional.of(userRole));
+        when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(userRole);
         when(passwordEncoder.encode(anyString())).thenReturn("encoded-password");
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
 
         UserResponse result = userService.registerUser(registrationRequest);
 
@@ -88,56 +121,123 @@ class UserServiceImplTest {
         assertFalse(result.getIsEmailVerified());
         assertTrue(result.getRoles().contains("ROLE_USER"));
 
-        verify(userRepository).existsByUsername("testuser");
-        verify(userRepository).existsByEmail("test@example.com");
-        verify(userRepository).save(any(User.class));
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository).saveAndFlush(any(User.class));
     }
 
     @Test
     void registerUser_UserAlreadyExists() {
-        when(userRepository.existsByUsername(anyString())).thenReturn(true);
+        when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(userRole);
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(uniqueViolation("uk_users_username"));
 
-        assertThrows(UserAlreadyExistsException.class, () -> {
+        UserAlreadyExistsException ex = assertThrows(UserAlreadyExistsException.class, () -> {
             userService.registerUser(registrationRequest);
         });
 
-        verify(userRepository).existsByUsername("testuser");
-        verify(userRepository, never()).save(any(User.class));
+        assertEquals("Username is already taken!", ex.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void registerUser_UsernameTakenOnGeneratedSchema() {
+        when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(userRole);
+        // ddl-auto names the natural id's key (which absorbs uk_users_username) after a hash
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(uniqueViolation("UKsx468g52bpetvlad2j9y0lptc"));
+
+        UserAlreadyExistsException ex = assertThrows(UserAlreadyExistsException.class,
+                () -> userService.registerUser(registrationRequest));
+
+        assertEquals("Username is already taken!", ex.getMessage());
     }
 
     @Test
     void registerUser_EmailAlreadyExists() {
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
-        when(userRepository.existsByEmail(anyString())).thenReturn(true);
+        when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(userRole);
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(uniqueViolation("uk_users_email"));
 
-        assertThrows(UserAlreadyExistsException.class, () -> {
+        UserAlreadyExistsException ex = assertThrows(UserAlreadyExistsException.class, () -> {
             userService.registerUser(registrationRequest);
         });
 
-        verify(userRepository).existsByUsername("testuser");
-        verify(userRepository).existsByEmail("test@example.com");
-        verify(userRepository, never()).save(any(User.class));
+        assertEquals("Email is already in use!", ex.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     void getUserById_Success() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findRowById(1L)).thenReturn(Optional.of(userRow));
+        when(userRepository.findRoleNamesByUserIds(List.of(1L))).thenReturn(roleNames(1L, Role.RoleName.ROLE_USER));
 
         Optional<UserResponse> result = userService.getUserById(1L);
 
         assertTrue(result.isPresent());
         assertEquals("testuser", result.get().getUsername());
-        verify(userRepository).findById(1L);
+        assertEquals(Set.of("ROLE_USER"), result.get().getRoles());
+        verify(userRepository).findRowById(1L);
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
     void getUserById_NotFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.findRowById(1L)).thenReturn(Optional.empty());
 
         Optional<UserResponse> result = userService.getUserById(1L);
 
         assertFalse(result.isPresent());
-        verify(userRepository).findById(1L);
+        verify(userRepository).findRowById(1L);
+        verify(userRepository, never()).findRoleNamesByUserIds(any());
+    }
+
+    @Test
+    void getAllUsers_CountNoneSkipsTheCount() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userRepository.findRowsBy(pageable)).thenReturn(new SliceImpl<>(List.of(userRow), pageable, true));
+
+        Slice<UserResponse> result = userService.getAllUsers(pageable, CountMode.NONE);
+
+        assertFalse(result instanceof Page);
+        assertTrue(result.hasNext());
+        verify(userCountCache).recordSkipped(CountMode.NONE);
+        verify(userCountCache, never()).exactCount();
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void getAllUsers_CountCachedUsesTheCachedTotal() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userRepository.findRowsBy(pageable)).thenReturn(new SliceImpl<>(List.of(userRow), pageable, true));
+        when(userCountCache.cachedCount()).thenReturn(42L);
+
+        Page<UserResponse> result = (Page<UserResponse>) userService.getAllUsers(pageable, CountMode.CACHED);
+
+        assertEquals(42, result.getTotalElements());
+        verify(userCountCache, never()).exactCount();
+    }
+
+    @Test
+    void getAllUsers_CountCachedWithArchivedUsersUsesBothCachedTotals() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userRepository.findRowsBy(pageable)).thenReturn(new SliceImpl<>(List.of(userRow), pageable, true));
+        when(archivedUserRepository.findRowsBy(pageable)).thenReturn(new SliceImpl<>(List.of(), pageable, false));
+        when(userCountCache.cachedCount()).thenReturn(42L);
+        when(userCountCache.cachedArchivedCount()).thenReturn(8L);
+
+        Page<UserResponse> result = (Page<UserResponse>) userService.getAllUsers(pageable, CountMode.CACHED, true);
+
+        assertEquals(50, result.getTotalElements());
+        verify(archivedUserRepository, never()).count();
+    }
+
+    @Test
+    void getAllUsers_CountExactSkipsTheQueryWhenThePageHoldsEveryRow() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(userRepository.findRowsBy(pageable)).thenReturn(new SliceImpl<>(List.of(userRow), pageable, false));
+
+        Page<UserResponse> result = (Page<UserResponse>) userService.getAllUsers(pageable, CountMode.EXACT);
+
+        assertEquals(1, result.getTotalElements());
+        verify(userCountCache, never()).exactCount();
     }
 
     @Test
@@ -154,4 +254,15 @@ class UserServiceImplTest {
         assertEquals(user.getIsEmailVerified(), result.getIsEmailVerified());
         assertTrue(result.getRoles().contains("ROLE_USER"));
     }
+
+    private static List<Object[]> roleNames(Long userId, Role.RoleName roleName) {
+        List<Object[]> pairs = new ArrayList<>();
+        pairs.add(new Object[]{userId, roleName});
+        return pairs;
+    }
+
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Duplicate entry", new SQLException("Duplicate entry"), constraintName));
+    }
 }
@@ -0,0 +1,120 @@
+package com.devops.microservice.service.impl;
+
+import com.devops.microservice.dto.response.UserStatsResponse;
+import com.devops.microservice.entity.Role;
+import com.devops.microservice.event.UserChangedEvent;
+import com.devops.microservice.event.UserSnapshot;
+import com.devops.microservice.repository.ArchivedUserRepository;
+import com.devops.microservice.repository.UserRepository;
+import com.devops.microservice.sharding.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserStatsServiceImplTest {
+
+    private UserRepository userRepository;
+    private ArchivedUserRepository archivedUserRepository;
+    private UserStatsServiceImpl statsService;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        archivedUserRepository = mock(ArchivedUserRepository.class);
+        statsService = new UserStatsServiceImpl(userRepository, archivedUserRepository, UserShards.unsharded(),
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(statsService, "signupDays", 7);
+        statsService.init();
+        today = LocalDate.now();
+
+        when(userRepository.countByStatusAndSignupDay()).thenReturn(List.of(
+                new Object[]{true, true, today, 3L},
+                new Object[]{true, false, today.minusDays(1), 2L},
+                new Object[]{false, false, today.minusDays(30), 1L}));
+        when(archivedUserRepository.countByStatusAndSignupDay()).thenReturn(List.<Object[]>of(
+                new Object[]{true, true, today.minusYears(3), 4L}));
+        when(userRepository.countByRole()).thenReturn(List.of(
+                new Object[]{Role.RoleName.ROLE_USER, 6L}, new Object[]{Role.RoleName.ROLE_ADMIN, 1L}));
+        when(archivedUserRepository.countByRole()).thenReturn(List.<Object[]>of(
+                new Object[]{Role.RoleName.ROLE_USER, 4L}));
+    }
+
+    @Test
+    void getUserStats_CountsOnFirstUseIncludingArchivedUsers() {
+        UserStatsResponse stats = statsService.getUserStats();
+
+        assertEquals(10, stats.getTotalUsers());
+        assertEquals(9, stats.getActiveUsers());
+        assertEquals(1, stats.getInactiveUsers());
+        assertEquals(7, stats.getEmailVerifiedUsers());
+        assertEquals(3, stats.getEmailUnverifiedUsers());
+        assertEquals(10L, stats.getUsersByRole().get("ROLE_USER"));
+        assertEquals(0L, stats.getUsersByRole().get("ROLE_MODERATOR"));
+        assertEquals(7, stats.getSignupsPerDay().size());
+        assertEquals(3L, stats.getSignupsPerDay().get(today));
+        assertEquals(2L, stats.getSignupsPerDay().get(today.minusDays(1)));
+        assertNotNull(stats.getReconciledAt());
+    }
+
+    @Test
+    void changes_MoveTheCountersWithoutQueries() {
+        statsService.reconcile();
+        clearInvocations(userRepository, archivedUserRepository);
+        UserSnapshot created = snapshot(true, false, Role.RoleName.ROLE_USER);
+        UserSnapshot promoted = snapshot(true, true, Role.RoleName.ROLE_USER, Role.RoleName.ROLE_ADMIN);
+        UserSnapshot deactivated = snapshot(false, true, Role.RoleName.ROLE_USER, Role.RoleName.ROLE_ADMIN);
+
+        statsService.onUserChanged(UserChangedEvent.created(created));
+        statsService.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.UPDATED, created, promoted));
+        statsService.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.DEACTIVATED, promoted, deactivated));
+        statsService.onUserChanged(UserChangedEvent.changed(UserChangedEvent.Type.ARCHIVED, deactivated, deactivated));
+
+        UserStatsResponse stats = statsService.getUserStats();
+        assertEquals(11, stats.getTotalUsers());
+        assertEquals(2, stats.getInactiveUsers());
+        assertEquals(8, stats.getEmailVerifiedUsers());
+        assertEquals(2L, stats.getUsersByRole().get("ROLE_ADMIN"));
+        assertEquals(4L, stats.getSignupsPerDay().get(today));
+
+        statsService.onUserChanged(UserChangedEvent.deleted(deactivated));
+        stats = statsService.getUserStats();
+        assertEquals(10, stats.getTotalUsers());
+        assertEquals(1L, stats.getUsersByRole().get("ROLE_ADMIN"));
+        assertEquals(3L, stats.getSignupsPerDay().get(today));
+        verifyNoInteractions(userRepository, archivedUserRepository);
+    }
+
+    @Test
+    void reconcile_ReplacesDriftedCounters() {
+        statsService.reconcile();
+        statsService.onUserChanged(UserChangedEvent.created(snapshot(true, true, Role.RoleName.ROLE_USER)));
+        assertEquals(11, statsService.getUserStats().getTotalUsers());
+
+        // Removed again by a change that published no event, say; the recount does not see the user
+        statsService.reconcile();
+
+        assertEquals(10, statsService.getUserStats().getTotalUsers());
+        assertEquals(3L, statsService.getUserStats().getSignupsPerDay().get(today));
+    }
+
+    private UserSnapshot snapshot(boolean active, boolean emailVerified, Role.RoleName... roles) {
+        return UserSnapshot.builder()
+                .id(100L)
+                .username("new")
+                .email("new@example.com")
+                .active(active)
+                .emailVerified(emailVerified)
+                .roles(Set.of(roles))
+                .createdAt(today.atTime(12, 0))
+                .build();
+    }
+}
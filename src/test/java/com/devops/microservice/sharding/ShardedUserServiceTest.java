@@ -0,0 +1,165 @@
+package com.devops.microservice.sharding;
+
+import com.devops.microservice.config.ShardRoutingDataSource;
+import com.devops.microservice.dto.request.UserRegistrationRequest;
+import com.devops.microservice.dto.response.UserResponse;
+import com.devops.microservice.exception.InvalidPageRequestException;
+import com.devops.microservice.exception.UserAlreadyExistsException;
+import com.devops.microservice.security.service.UserDetailsImpl;
+import com.devops.microservice.security.service.UserDetailsServiceImpl;
+import com.devops.microservice.service.UserService;
+import com.devops.microservice.service.UserSortKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "app.sharding.enabled=true",
+        "app.sharding.shard-urls=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ShardedUserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserShards userShards;
+
+    @Autowired
+    private ShardRoutingDataSource dataSource;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Test
+    void registeredUsersLiveOnTheirShardAndResolveByEveryKey() {
+        for (int shard = 0; shard < 3; shard++) {
+            String username = usernameOn(shard);
+            UserResponse user = userService.registerUser(request(username, username + "@example.com"));
+
+            assertTrue(storedOn(shard, user.getId()));
+            assertEquals(user.getId(), userService.getUserByUsername(username).orElseThrow().getId());
+            assertEquals(user.getId(), userService.getUserByEmail(username + "@example.com").orElseThrow().getId());
+            assertEquals(username, userService.getUserById(user.getId()).orElseThrow().getUsername());
+            assertEquals(user.getId(), ((UserDetailsImpl) userDetailsService.loadUserByUsername(username + "@example.com")).getId());
+            assertTrue(userService.existsByEmail(username.toUpperCase() + "@EXAMPLE.COM"));
+        }
+    }
+
+    @Test
+    void emailsStayUniqueAcrossShards() {
+        String email = UUID.randomUUID() + "@example.com";
+        userService.registerUser(request(usernameOn(1), email));
+
+        assertThrows(UserAlreadyExistsException.class, () -> userService.registerUser(request(usernameOn(2), email)));
+        assertEquals(1, countOnAllShards("SELECT COUNT(*) FROM users WHERE email = '" + email + "'"));
+    }
+
+    @Test
+    void renameToAnotherShardMovesTheUser() {
+        UserResponse user = userService.registerUser(request(usernameOn(0), UUID.randomUUID() + "@example.com"));
+        String renamed = usernameOn(2);
+
+        userService.updateUser(user.getId(), request(renamed, user.getEmail()));
+
+        assertFalse(storedOn(0, user.getId()));
+        assertTrue(storedOn(2, user.getId()));
+        assertEquals(user.getId(), userService.getUserByUsername(renamed).orElseThrow().getId());
+        assertEquals(renamed, userService.getUserById(user.getId()).orElseThrow().getUsername());
+    }
+
+    @Test
+    void listingMergesEveryShardInOrder() {
+        for (int shard = 0; shard < 3; shard++) {
+            for (int i = 0; i < 3; i++) {
+                userService.registerUser(request(usernameOn(shard), UUID.randomUUID() + "@example.com"));
+            }
+        }
+        long total = countOnAllShards("SELECT COUNT(*) FROM users");
+
+        List<String> listed = new ArrayList<>();
+        Page<UserResponse> page;
+        int pageNumber = 0;
+        do {
+            page = userService.getAllUsers(PageRequest.of(pageNumber++, 4, Sort.by("username")));
+            page.getContent().forEach(user -> listed.add(user.getUsername()));
+        } while (page.hasNext());
+
+        assertEquals(total, page.getTotalElements());
+        assertEquals(total, listed.size());
+        assertEquals(listed.stream().sorted(String.CASE_INSENSITIVE_ORDER).toList(), listed);
+        assertThrows(InvalidPageRequestException.class,
+                () -> userService.getUsers(UserSortKey.CREATED_AT, Sort.Direction.DESC, 10, null));
+    }
+
+    @Test
+    void rebalanceMovesUsersToTheTargetMap() {
+        List<UserResponse> users = new ArrayList<>();
+        for (int shard = 1; shard < 3; shard++) {
+            users.add(userService.registerUser(request(usernameOn(shard), UUID.randomUUID() + "@example.com")));
+        }
+
+        try {
+            rebalancer.rebalance(UserShardMap.parse("0-1023:0", 3));
+            assertEquals(countOnAllShards("SELECT COUNT(*) FROM users"), count(0, "SELECT COUNT(*) FROM users"));
+            users.forEach(user -> assertEquals(0, userShards.shardOfUser(user.getId()).orElseThrow()));
+        } finally {
+            rebalancer.rebalance(userShards.getShardMap());
+        }
+
+        for (UserResponse user : users) {
+            assertTrue(storedOn(userShards.shardOf(user.getUsername()), user.getId()));
+            assertEquals(user.getUsername(), userService.getUserById(user.getId()).orElseThrow().getUsername());
+        }
+    }
+
+    private String usernameOn(int shard) {
+        String username;
+        do {
+            username = "u" + UUID.randomUUID().toString().substring(0, 12);
+        } while (userShards.shardOf(username) != shard);
+        return username;
+    }
+
+    private static UserRegistrationRequest request(String username, String email) {
+        return UserRegistrationRequest.builder()
+                .username(username)
+                .email(email)
+                .password("password123")
+                .firstName("Test")
+                .lastName("User")
+                .build();
+    }
+
+    private boolean storedOn(int shard, long userId) {
+        return count(shard, "SELECT COUNT(*) FROM users WHERE id = " + userId) == 1;
+    }
+
+    private long count(int shard, String sql) {
+        return new JdbcTemplate(dataSource.getShard(shard)).queryForObject(sql, Long.class);
+    }
+
+    private long countOnAllShards(String sql) {
+        long total = 0;
+        for (int shard = 0; shard < dataSource.shardCount(); shard++) {
+            total += count(shard, sql);
+        }
+        return total;
+    }
+}
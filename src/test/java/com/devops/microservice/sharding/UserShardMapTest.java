@@ -0,0 +1,65 @@
+package com.devops.microservice.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserShardMapTest {
+
+    @Test
+    void uniform_SplitsBucketsIntoEqualRanges() {
+        UserShardMap map = UserShardMap.uniform(2);
+
+        assertEquals("0-511:0,512-1023:1", map.toSpec());
+        assertEquals(2, map.shardCount());
+    }
+
+    @Test
+    void shardOf_IgnoresCaseAndSurroundingWhitespace() {
+        UserShardMap map = UserShardMap.uniform(4);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(map.shardOf("user" + i), map.shardOf("  USER" + i + " "));
+        }
+    }
+
+    @Test
+    void parse_ReadsWhatToSpecWrites() {
+        UserShardMap map = UserShardMap.parse("0-99:1, 100-1022:0, 1023:2", 3);
+
+        assertEquals("0-99:1,100-1022:0,1023:2", map.toSpec());
+        assertEquals(map, UserShardMap.parse(map.toSpec(), 3));
+    }
+
+    @Test
+    void parse_RejectsUnassignedBucketsAndUnknownShards() {
+        assertThrows(IllegalArgumentException.class, () -> UserShardMap.parse("0-1000:0", 1));
+        assertThrows(IllegalArgumentException.class, () -> UserShardMap.parse("0-1023:2", 2));
+        assertThrows(IllegalArgumentException.class, () -> UserShardMap.parse("0-x:0", 1));
+    }
+
+    @Test
+    void rebalancedTo_MovesOnlyTheBucketsTheNewShardTakesOver() {
+        UserShardMap before = UserShardMap.uniform(2);
+        UserShardMap after = before.rebalancedTo(3);
+
+        int[] counts = new int[3];
+        int moved = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String username = "user" + i;
+            int from = before.shardOf(username);
+            int to = after.shardOf(username);
+            counts[to]++;
+            if (from != to) {
+                moved++;
+                assertEquals(2, to, "users only move to the new shard");
+            }
+        }
+
+        // A third of the users move, and every shard ends up with about a third of them
+        assertEquals(20_000 / 3.0, moved, 20_000 * 0.03);
+        for (int count : counts) {
+            assertEquals(20_000 / 3.0, count, 20_000 * 0.03);
+        }
+    }
+}
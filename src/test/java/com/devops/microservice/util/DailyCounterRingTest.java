@@ -0,0 +1,43 @@
+package com.devops.microservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DailyCounterRingTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 15);
+
+    @Test
+    void countsPerDay() {
+        DailyCounterRing ring = new DailyCounterRing(7);
+
+        ring.add(TODAY, 2);
+        ring.add(TODAY.minusDays(1), 1);
+        ring.add(TODAY, -1);
+
+        assertEquals(1, ring.get(TODAY));
+        assertEquals(1, ring.get(TODAY.minusDays(1)));
+        assertEquals(0, ring.get(TODAY.minusDays(2)));
+        assertEquals(List.of(0L, 0L, 0L, 0L, 0L, 1L, 1L), List.copyOf(ring.upTo(TODAY).values()));
+        assertEquals(TODAY.minusDays(6), ring.upTo(TODAY).keySet().iterator().next());
+    }
+
+    @Test
+    void laterDaysTakeOverTheSlotsOfDaysThatLeftTheRing() {
+        DailyCounterRing ring = new DailyCounterRing(7);
+        ring.add(TODAY, 5);
+
+        ring.add(TODAY.plusDays(7), 1);
+
+        assertEquals(0, ring.get(TODAY));
+        assertEquals(1, ring.get(TODAY.plusDays(7)));
+        // Too old for the slot's current day
+        ring.add(TODAY, 3);
+        assertEquals(1, ring.get(TODAY.plusDays(7)));
+        assertEquals(0, ring.get(TODAY));
+    }
+}
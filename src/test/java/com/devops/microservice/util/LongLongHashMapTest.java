@@ -0,0 +1,78 @@
+package com.devops.microservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongHashMapTest {
+
+    @Test
+    void putGetAndRemove() {
+        LongLongHashMap map = new LongLongHashMap();
+        map.put(1L, 100L);
+        map.put(0L, 7L);
+        map.put(-5L, 50L);
+
+        assertEquals(100L, map.get(1L, -1L));
+        assertEquals(7L, map.get(0L, -1L));
+        assertEquals(50L, map.get(-5L, -1L));
+        assertEquals(-1L, map.get(2L, -1L));
+        assertEquals(3, map.size());
+
+        assertTrue(map.remove(0L));
+        assertFalse(map.remove(0L));
+        assertFalse(map.containsKey(0L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void putMax_KeepsLargestValue() {
+        LongLongHashMap map = new LongLongHashMap();
+        map.putMax(42L, 10L);
+        map.putMax(42L, 5L);
+        assertEquals(10L, map.get(42L, 0L));
+
+        map.putMax(42L, 20L);
+        assertEquals(20L, map.get(42L, 0L));
+    }
+
+    @Test
+    void copy_IsIndependent() {
+        LongLongHashMap original = new LongLongHashMap();
+        original.put(1L, 1L);
+
+        LongLongHashMap copy = original.copy();
+        copy.put(1L, 2L);
+        copy.put(2L, 2L);
+
+        assertEquals(1L, original.get(1L, 0L));
+        assertFalse(original.containsKey(2L));
+        assertEquals(2, copy.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                long value = random.nextLong();
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key, 0L)));
+        map.forEach((key, value) -> assertEquals(expected.get(key), value));
+    }
+}
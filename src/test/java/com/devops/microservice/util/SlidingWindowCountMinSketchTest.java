@@ -0,0 +1,54 @@
+package com.devops.microservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCountMinSketchTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void countsWithinWindow() {
+        SlidingWindowCountMinSketch sketch = new SlidingWindowCountMinSketch(1024, 4, Duration.ofSeconds(60), 6);
+
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("alice", START + i * 1000L);
+        }
+
+        assertEquals(5, sketch.estimate("alice", START + 5000L));
+        assertEquals(0, sketch.estimate("bob", START + 5000L));
+    }
+
+    @Test
+    void oldSlicesLeaveTheWindow() {
+        SlidingWindowCountMinSketch sketch = new SlidingWindowCountMinSketch(1024, 4, Duration.ofSeconds(60), 6);
+
+        sketch.increment("alice", START);
+        sketch.increment("alice", START + 30_000L);
+
+        assertEquals(2, sketch.estimate("alice", START + 30_000L));
+        assertEquals(1, sketch.estimate("alice", START + 65_000L));
+        assertEquals(0, sketch.estimate("alice", START + 95_000L));
+
+        // A reused ring slot starts from zero
+        assertEquals(1, sketch.increment("alice", START + 120_000L));
+    }
+
+    @Test
+    void neverUndercountsUnderCollisions() {
+        SlidingWindowCountMinSketch sketch = new SlidingWindowCountMinSketch(64, 3, Duration.ofSeconds(60), 1);
+
+        for (int i = 0; i < 10_000; i++) {
+            sketch.increment("user" + i, START);
+        }
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("target", START);
+        }
+
+        assertTrue(sketch.estimate("target", START) >= 20);
+        assertEquals(64L * 3 * Integer.BYTES, sketch.memoryBytes());
+    }
+}